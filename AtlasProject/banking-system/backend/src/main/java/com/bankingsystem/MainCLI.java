@@ -6,7 +6,8 @@ import com.bankingsystem.model.Transaction;
 import com.bankingsystem.repository.AccountRepository;
 import com.bankingsystem.repository.CustomerRepository;
 import com.bankingsystem.service.*;
-import com.bankingsystem.util.UndoRedoStack;
+import com.bankingsystem.util.AccountCache;
+import com.bankingsystem.util.IdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -16,7 +17,6 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Scanner;
-import java.util.UUID;
 
 @Component
 public class MainCLI implements CommandLineRunner {
@@ -40,7 +40,13 @@ public class MainCLI implements CommandLineRunner {
     private AuditService auditService;
     
     @Autowired
-    private UndoRedoStack undoRedoStack;
+    private ReversalService reversalService;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private AccountCache accountCache;
     
     private final Scanner scanner = new Scanner(System.in);
     private String currentUserId = "CLI_USER";
@@ -181,7 +187,7 @@ public class MainCLI implements CommandLineRunner {
                 default: throw new RuntimeException("Invalid account type selection");
             }
             
-            String accountNumber = "ACC" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6);
+            String accountNumber = idGenerator.nextId(IdGenerator.ACCOUNT);
             Account account = new Account(accountNumber, customer, accountType);
             account = accountRepository.save(account);
             
@@ -282,7 +288,7 @@ public class MainCLI implements CommandLineRunner {
         
         try {
             String accountNumber = getStringInput("Enter Account Number: ");
-            Account account = accountRepository.findByAccountNumber(accountNumber)
+            Account account = accountCache.findAccount(accountNumber)
                     .orElseThrow(() -> new RuntimeException("Account not found"));
             
             System.out.println("Account Details:");
@@ -307,7 +313,9 @@ public class MainCLI implements CommandLineRunner {
         
         try {
             String accountNumber = getStringInput("Enter Account Number: ");
-            List<Transaction> transactions = transferService.getTransferHistory(accountNumber);
+            @SuppressWarnings("unchecked")
+            List<Transaction> transactions = (List<Transaction>) transferService
+                    .getTransferHistory(accountNumber, null, null, null, null).get("transactions");
             
             if (transactions.isEmpty()) {
                 System.out.println("No transactions found for this account.");
@@ -342,19 +350,12 @@ public class MainCLI implements CommandLineRunner {
         try {
             String accountId = getStringInput("Enter Account ID: ");
             
-            if (!undoRedoStack.canUndo(accountId)) {
-                System.out.println("❌ No transactions available to undo for this account.");
-                return;
-            }
-            
-            Transaction transaction = undoRedoStack.popUndo(accountId);
+            Transaction reversal = reversalService.undoLast(accountId, currentUserId);
             System.out.println("✅ Transaction undone successfully!");
-            System.out.println("Undone Transaction ID: " + transaction.getTransactionId());
-            System.out.println("Type: " + transaction.getType().getDisplayName());
-            System.out.println("Amount: ₹" + transaction.getAmount());
-            
-            auditService.logSuccess(currentUserId, "UNDO_TRANSACTION", "TRANSACTION", transaction.getId(), 
-                    "Undone transaction: " + transaction.getTransactionId());
+            System.out.println("Undone Transaction ID: " + reversal.getReversalOf());
+            System.out.println("Reversal Transaction ID: " + reversal.getTransactionId());
+            System.out.println("Type: " + reversal.getType().getDisplayName());
+            System.out.println("Amount: ₹" + reversal.getAmount());
             
         } catch (Exception e) {
             System.out.println("❌ Error undoing transaction: " + e.getMessage());
@@ -368,19 +369,11 @@ public class MainCLI implements CommandLineRunner {
         try {
             String accountId = getStringInput("Enter Account ID: ");
             
-            if (!undoRedoStack.canRedo(accountId)) {
-                System.out.println("❌ No transactions available to redo for this account.");
-                return;
-            }
-            
-            Transaction transaction = undoRedoStack.popRedo(accountId);
+            Transaction redo = reversalService.redoLast(accountId, currentUserId);
             System.out.println("✅ Transaction redone successfully!");
-            System.out.println("Redone Transaction ID: " + transaction.getTransactionId());
-            System.out.println("Type: " + transaction.getType().getDisplayName());
-            System.out.println("Amount: ₹" + transaction.getAmount());
-            
-            auditService.logSuccess(currentUserId, "REDO_TRANSACTION", "TRANSACTION", transaction.getId(), 
-                    "Redone transaction: " + transaction.getTransactionId());
+            System.out.println("Redo Transaction ID: " + redo.getTransactionId());
+            System.out.println("Type: " + redo.getType().getDisplayName());
+            System.out.println("Amount: ₹" + redo.getAmount());
             
         } catch (Exception e) {
             System.out.println("❌ Error redoing transaction: " + e.getMessage());
@@ -503,15 +496,15 @@ public class MainCLI implements CommandLineRunner {
                 customerRepository.save(customer3);
                 
                 // Create sample accounts
-                Account account1 = new Account("ACC" + System.currentTimeMillis() + "001", customer1, Account.AccountType.SAVINGS);
+                Account account1 = new Account(idGenerator.nextId(IdGenerator.ACCOUNT), customer1, Account.AccountType.SAVINGS);
                 account1.deposit(new BigDecimal("50000"));
                 accountRepository.save(account1);
                 
-                Account account2 = new Account("ACC" + System.currentTimeMillis() + "002", customer2, Account.AccountType.CURRENT);
+                Account account2 = new Account(idGenerator.nextId(IdGenerator.ACCOUNT), customer2, Account.AccountType.CURRENT);
                 account2.deposit(new BigDecimal("100000"));
                 accountRepository.save(account2);
                 
-                Account account3 = new Account("ACC" + System.currentTimeMillis() + "003", customer3, Account.AccountType.SAVINGS);
+                Account account3 = new Account(idGenerator.nextId(IdGenerator.ACCOUNT), customer3, Account.AccountType.SAVINGS);
                 account3.deposit(new BigDecimal("75000"));
                 accountRepository.save(account3);
                 
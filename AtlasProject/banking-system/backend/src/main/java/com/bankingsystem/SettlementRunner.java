@@ -1,98 +1,87 @@
 package com.bankingsystem;
 
-import com.bankingsystem.model.Transaction;
+import com.bankingsystem.model.SettlementRun;
 import com.bankingsystem.util.SettlementQueue;
-import com.bankingsystem.service.AuditService;
+import com.bankingsystem.service.SettlementScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
+// Runs before the interactive CLI so a scripted settlement run never waits on stdin
 @Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
 public class SettlementRunner implements CommandLineRunner {
     
     @Autowired
     private SettlementQueue settlementQueue;
     
     @Autowired
-    private AuditService auditService;
+    private SettlementScheduler settlementScheduler;
+    
+    @Autowired
+    private ApplicationContext applicationContext;
+    
+    // How long to wait for a run already in progress in this JVM, such as a micro-batch
+    @Value("${banking.settlement.timeout:300000}")
+    private long timeoutMillis;
     
     @Override
     public void run(String... args) throws Exception {
-        // Check if this is a settlement run
+        // Check if this is a settlement run; it exits the process when done, as scripts/settlement.sh expects
         if (args.length > 0 && args[0].contains("settlement")) {
-            runSettlement();
+            boolean succeeded;
+            try {
+                runSettlement();
+                succeeded = true;
+            } catch (Exception e) {
+                System.err.println("❌ " + e.getMessage());
+                succeeded = false;
+            }
+            int exitCode = succeeded ? 0 : 1;
+            System.exit(SpringApplication.exit(applicationContext, () -> exitCode));
         }
     }
     
     public void runSettlement() {
         System.out.println("🔄 Starting batch settlement process...");
         
-        try {
-            // Get all pending transactions
-            List<Transaction> pendingTransactions = settlementQueue.getPendingTransactions();
-            
-            if (pendingTransactions.isEmpty()) {
-                System.out.println("✅ No pending transactions to settle.");
-                return;
-            }
-            
-            System.out.println("📊 Found " + pendingTransactions.size() + " transactions to settle");
-            
-            int processedCount = 0;
-            int failedCount = 0;
-            
-            // Process each transaction
-            for (Transaction transaction : pendingTransactions) {
-                try {
-                    // Simulate settlement processing
-                    processSettlementTransaction(transaction);
-                    settlementQueue.markAsProcessed(transaction.getTransactionId());
-                    processedCount++;
-                    
-                    System.out.println("✅ Settled transaction: " + transaction.getTransactionId());
-                    
-                } catch (Exception e) {
-                    failedCount++;
-                    System.err.println("❌ Failed to settle transaction " + transaction.getTransactionId() + ": " + e.getMessage());
-                }
-            }
-            
-            // Log settlement results
-            auditService.logSuccess("SYSTEM", "BATCH_SETTLEMENT", "SETTLEMENT", "BATCH", 
-                    "Settlement completed. Processed: " + processedCount + ", Failed: " + failedCount);
-            
-            System.out.println("🎉 Settlement completed!");
-            System.out.println("✅ Processed: " + processedCount);
-            System.out.println("❌ Failed: " + failedCount);
-            
-        } catch (Exception e) {
-            System.err.println("💥 Settlement process failed: " + e.getMessage());
-            auditService.logFailure("SYSTEM", "BATCH_SETTLEMENT", "SETTLEMENT", "BATCH", 
-                    "Settlement process failed", e.getMessage());
-            throw e;
+        long pendingCount = settlementQueue.getPendingCount();
+        if (pendingCount == 0) {
+            System.out.println("✅ No pending transactions to settle.");
+            return;
         }
-    }
-    
-    private void processSettlementTransaction(Transaction transaction) {
-        // Simulate settlement processing
-        // In a real implementation, this would:
-        // 1. Validate the transaction
-        // 2. Update account balances
-        // 3. Generate settlement reports
-        // 4. Send notifications
-        // 5. Update transaction status
+        System.out.println("📊 Found " + pendingCount + " transactions to settle");
         
-        // For now, just simulate processing time
-        try {
-            Thread.sleep(100); // Simulate processing time
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Settlement interrupted", e);
+        SettlementRun run = settlementScheduler.run(SettlementRun.Trigger.SCRIPT);
+        long waitUntil = System.currentTimeMillis() + timeoutMillis;
+        while (run == null && System.currentTimeMillis() < waitUntil) {
+            System.out.println("⏳ A settlement run is already in progress, waiting for it to finish...");
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the settlement run in progress");
+            }
+            run = settlementScheduler.run(SettlementRun.Trigger.SCRIPT);
+        }
+        if (run == null) {
+            throw new RuntimeException("Settlement run already in progress, try again later");
+        }
+        if (run.getError() != null) {
+            throw new RuntimeException("Settlement process failed: " + run.getError());
         }
         
-        // Mark transaction as settled
-        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
+        System.out.println("🎉 Settlement completed in " + run.getDurationMillis() + " ms!");
+        System.out.println("✅ Processed: " + run.getSettled() + String.format(" (%.1f/s)", run.getItemsPerSecond()));
+        System.out.println("❌ Failed: " + run.getFailed());
+        System.out.println("📦 Netted " + run.getLegs() + " legs into " + run.getPositionWrites() + " position updates");
+        if (run.isTimedOut()) {
+            System.out.println("⏱️ Timed out with " + run.getRemaining() + " transactions left for the next run");
+        }
     }
 }
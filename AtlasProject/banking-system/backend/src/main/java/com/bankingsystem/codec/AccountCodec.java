@@ -0,0 +1,76 @@
+package com.bankingsystem.codec;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Customer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.bankingsystem.codec.AttributeValues.*;
+
+@Component
+public class AccountCodec implements ItemCodec<Account> {
+    
+    public static final String TABLE = "BankingAccounts";
+    
+    public static final String ACCOUNT_NUMBER = "accountNumber";
+    private static final String CUSTOMER_ID = "customerId";
+    private static final String ACCOUNT_TYPE = "accountType";
+    private static final String BALANCE = "balance";
+    private static final String STATUS = "status";
+    private static final String VERSION = "version";
+    private static final String CREATED_AT = "createdAt";
+    
+    private static final int CAPACITY = capacity(7);
+    
+    private static final AttributeValue[] ACCOUNT_TYPES = enumValues(Account.AccountType.class);
+    private static final AttributeValue[] STATUSES = enumValues(Account.AccountStatus.class);
+    
+    @Override
+    public String tableName() {
+        return TABLE;
+    }
+    
+    @Override
+    public String hashKey() {
+        return ACCOUNT_NUMBER;
+    }
+    
+    @Override
+    public Map<String, AttributeValue> encode(Account account) {
+        Map<String, AttributeValue> item = new HashMap<>(CAPACITY);
+        putString(item, ACCOUNT_NUMBER, account.getAccountNumber());
+        if (account.getCustomer() != null) {
+            putString(item, CUSTOMER_ID, account.getCustomer().getId());
+        }
+        putEnum(item, ACCOUNT_TYPE, account.getAccountType(), ACCOUNT_TYPES);
+        putNumber(item, BALANCE, account.getBalance());
+        putEnum(item, STATUS, account.getStatus(), STATUSES);
+        putNumber(item, VERSION, account.getVersion());
+        putTimestamp(item, CREATED_AT, account.getCreatedAt());
+        return item;
+    }
+    
+    /**
+     * The customer is restored as a reference carrying only its id
+     */
+    @Override
+    public Account decode(Map<String, AttributeValue> item) {
+        Account account = new Account();
+        account.setAccountNumber(getString(item, ACCOUNT_NUMBER));
+        String customerId = getString(item, CUSTOMER_ID);
+        if (customerId != null) {
+            Customer customer = new Customer();
+            customer.setId(customerId);
+            account.setCustomer(customer);
+        }
+        account.setAccountType(getEnum(item, ACCOUNT_TYPE, Account.AccountType.class));
+        account.setBalance(getDecimal(item, BALANCE));
+        account.setStatus(getEnum(item, STATUS, Account.AccountStatus.class));
+        account.setVersion(getLong(item, VERSION));
+        account.setCreatedAt(getTimestamp(item, CREATED_AT));
+        return account;
+    }
+}
@@ -0,0 +1,174 @@
+package com.bankingsystem.codec;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared encoding helpers for the item codecs.
+ * Constant values (booleans, null, enum names) are built once and reused, since AttributeValue is immutable.
+ */
+public final class AttributeValues {
+    
+    public static final AttributeValue TRUE = AttributeValue.fromBool(true);
+    public static final AttributeValue FALSE = AttributeValue.fromBool(false);
+    public static final AttributeValue NULL = AttributeValue.fromNul(true);
+    
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    
+    private AttributeValues() {}
+    
+    /**
+     * Capacity for a HashMap that holds the given number of entries without rehashing
+     */
+    public static int capacity(int entries) {
+        return (int) (entries / 0.75f) + 1;
+    }
+    
+    /**
+     * One cached value per enum constant, indexed by ordinal
+     */
+    public static <E extends Enum<E>> AttributeValue[] enumValues(Class<E> type) {
+        E[] constants = type.getEnumConstants();
+        AttributeValue[] values = new AttributeValue[constants.length];
+        for (E constant : constants) {
+            values[constant.ordinal()] = AttributeValue.fromS(constant.name());
+        }
+        return values;
+    }
+    
+    /**
+     * Put a string unless it is null or blank; DynamoDB items simply omit absent attributes
+     */
+    public static void putString(Map<String, AttributeValue> item, String name, String value) {
+        if (value != null && !value.isBlank()) {
+            item.put(name, AttributeValue.fromS(value));
+        }
+    }
+    
+    public static void putNumber(Map<String, AttributeValue> item, String name, BigDecimal value) {
+        if (value != null) {
+            item.put(name, AttributeValue.fromN(value.toPlainString()));
+        }
+    }
+    
+    public static void putNumber(Map<String, AttributeValue> item, String name, Long value) {
+        if (value != null) {
+            item.put(name, AttributeValue.fromN(Long.toString(value)));
+        }
+    }
+    
+    public static void putTimestamp(Map<String, AttributeValue> item, String name, LocalDateTime value) {
+        if (value != null) {
+            item.put(name, AttributeValue.fromS(TIMESTAMP.format(value)));
+        }
+    }
+    
+    public static <E extends Enum<E>> void putEnum(Map<String, AttributeValue> item, String name, E value, AttributeValue[] cached) {
+        if (value != null) {
+            item.put(name, cached[value.ordinal()]);
+        }
+    }
+    
+    public static String getString(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value != null ? value.s() : null;
+    }
+    
+    public static BigDecimal getDecimal(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        if (value == null) {
+            return null;
+        }
+        // Items written before numbers were stored natively hold them as strings
+        return new BigDecimal(value.n() != null ? value.n() : value.s());
+    }
+    
+    public static Long getLong(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value != null && value.n() != null ? Long.valueOf(value.n()) : null;
+    }
+    
+    public static LocalDateTime getTimestamp(Map<String, AttributeValue> item, String name) {
+        String value = getString(item, name);
+        return value != null && !value.isEmpty() ? LocalDateTime.parse(value, TIMESTAMP) : null;
+    }
+    
+    public static <E extends Enum<E>> E getEnum(Map<String, AttributeValue> item, String name, Class<E> type) {
+        String value = getString(item, name);
+        return value != null && !value.isEmpty() ? Enum.valueOf(type, value) : null;
+    }
+    
+    /**
+     * Encode an arbitrary value with native DynamoDB types: maps as M, collections as L, numbers as N
+     */
+    public static AttributeValue fromObject(Object value) {
+        if (value == null) {
+            return NULL;
+        }
+        if (value instanceof String) {
+            return AttributeValue.fromS((String) value);
+        }
+        if (value instanceof BigDecimal) {
+            return AttributeValue.fromN(((BigDecimal) value).toPlainString());
+        }
+        if (value instanceof Number) {
+            return AttributeValue.fromN(value.toString());
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? TRUE : FALSE;
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<String, AttributeValue> encoded = new HashMap<>(capacity(map.size()));
+            map.forEach((key, entry) -> encoded.put(String.valueOf(key), fromObject(entry)));
+            return AttributeValue.fromM(encoded);
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            List<AttributeValue> encoded = new ArrayList<>(collection.size());
+            for (Object entry : collection) {
+                encoded.add(fromObject(entry));
+            }
+            return AttributeValue.fromL(encoded);
+        }
+        if (value instanceof Enum) {
+            return AttributeValue.fromS(((Enum<?>) value).name());
+        }
+        return AttributeValue.fromS(value.toString());
+    }
+    
+    /**
+     * Decode a value written by fromObject; numbers come back as BigDecimal
+     */
+    public static Object toObject(AttributeValue value) {
+        switch (value.type()) {
+            case S:
+                return value.s();
+            case N:
+                return new BigDecimal(value.n());
+            case BOOL:
+                return value.bool();
+            case M:
+                Map<String, Object> map = new LinkedHashMap<>(capacity(value.m().size()));
+                value.m().forEach((key, entry) -> map.put(key, toObject(entry)));
+                return map;
+            case L:
+                List<Object> list = new ArrayList<>(value.l().size());
+                for (AttributeValue entry : value.l()) {
+                    list.add(toObject(entry));
+                }
+                return list;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.bankingsystem.codec;
+
+import com.bankingsystem.model.AuditLog;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.bankingsystem.codec.AttributeValues.*;
+
+/**
+ * Audit items use the BankingAuditLogs schema: ActionID hash key and Timestamp range key.
+ * Details are stored as a native map so their structure survives the round trip.
+ */
+@Component
+public class AuditLogCodec implements ItemCodec<AuditLog> {
+    
+    public static final String TABLE = "BankingAuditLogs";
+    
+    public static final String ACTION_ID = "ActionID";
+    public static final String TIMESTAMP = "Timestamp";
+    private static final String USER_ID = "UserId";
+    private static final String ACTION = "Action";
+    private static final String ENTITY_TYPE = "EntityType";
+    private static final String ENTITY_ID = "EntityId";
+    private static final String DESCRIPTION = "Description";
+    private static final String RESULT = "Result";
+    private static final String ERROR_MESSAGE = "ErrorMessage";
+    private static final String IP_ADDRESS = "IpAddress";
+    private static final String USER_AGENT = "UserAgent";
+    private static final String DETAILS = "Details";
+    
+    private static final int CAPACITY = capacity(12);
+    
+    @Override
+    public String tableName() {
+        return TABLE;
+    }
+    
+    @Override
+    public String hashKey() {
+        return ACTION_ID;
+    }
+    
+    @Override
+    public Map<String, AttributeValue> encode(AuditLog auditLog) {
+        Map<String, AttributeValue> item = new HashMap<>(CAPACITY);
+        putString(item, ACTION_ID, auditLog.getActionId());
+        putTimestamp(item, TIMESTAMP, auditLog.getTimestamp());
+        putString(item, USER_ID, auditLog.getUserId());
+        putString(item, ACTION, auditLog.getAction());
+        putString(item, ENTITY_TYPE, auditLog.getEntityType());
+        putString(item, ENTITY_ID, auditLog.getEntityId());
+        putString(item, DESCRIPTION, auditLog.getDescription());
+        putString(item, RESULT, auditLog.getResult());
+        putString(item, ERROR_MESSAGE, auditLog.getErrorMessage());
+        putString(item, IP_ADDRESS, auditLog.getIpAddress());
+        putString(item, USER_AGENT, auditLog.getUserAgent());
+        if (auditLog.getDetails() != null && !auditLog.getDetails().isEmpty()) {
+            item.put(DETAILS, fromObject(auditLog.getDetails()));
+        }
+        return item;
+    }
+    
+    @Override
+    public AuditLog decode(Map<String, AttributeValue> item) {
+        AuditLog auditLog = new AuditLog(getString(item, ACTION_ID), getString(item, USER_ID), getString(item, ACTION),
+                getString(item, ENTITY_TYPE), getString(item, ENTITY_ID));
+        auditLog.setTimestamp(getTimestamp(item, TIMESTAMP));
+        auditLog.setDescription(getString(item, DESCRIPTION));
+        auditLog.setResult(getString(item, RESULT));
+        auditLog.setErrorMessage(getString(item, ERROR_MESSAGE));
+        auditLog.setIpAddress(getString(item, IP_ADDRESS));
+        auditLog.setUserAgent(getString(item, USER_AGENT));
+        
+        AttributeValue details = item.get(DETAILS);
+        if (details != null && details.hasM()) {
+            Map<String, Object> decoded = new LinkedHashMap<>(capacity(details.m().size()));
+            details.m().forEach((key, value) -> decoded.put(key, toObject(value)));
+            auditLog.setDetails(decoded);
+        }
+        return auditLog;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bankingsystem.codec;
+
+import com.bankingsystem.model.Customer;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.bankingsystem.codec.AttributeValues.*;
+
+@Component
+public class CustomerCodec implements ItemCodec<Customer> {
+    
+    public static final String TABLE = "BankingCustomers";
+    
+    public static final String CUSTOMER_ID = "customerId";
+    private static final String FIRST_NAME = "firstName";
+    private static final String LAST_NAME = "lastName";
+    private static final String EMAIL = "email";
+    private static final String MOBILE_NUMBER = "mobileNumber";
+    private static final String ADDRESS = "address";
+    private static final String CITY = "city";
+    private static final String STATE = "state";
+    private static final String PINCODE = "pincode";
+    private static final String CREATED_AT = "createdAt";
+    
+    private static final int CAPACITY = capacity(10);
+    
+    @Override
+    public String tableName() {
+        return TABLE;
+    }
+    
+    @Override
+    public String hashKey() {
+        return CUSTOMER_ID;
+    }
+    
+    @Override
+    public Map<String, AttributeValue> encode(Customer customer) {
+        Map<String, AttributeValue> item = new HashMap<>(CAPACITY);
+        putString(item, CUSTOMER_ID, customer.getId());
+        putString(item, FIRST_NAME, customer.getFirstName());
+        putString(item, LAST_NAME, customer.getLastName());
+        putString(item, EMAIL, customer.getEmail());
+        putString(item, MOBILE_NUMBER, customer.getMobileNumber());
+        putString(item, ADDRESS, customer.getAddress());
+        putString(item, CITY, customer.getCity());
+        putString(item, STATE, customer.getState());
+        putString(item, PINCODE, customer.getPincode());
+        putTimestamp(item, CREATED_AT, customer.getCreatedAt());
+        return item;
+    }
+    
+    @Override
+    public Customer decode(Map<String, AttributeValue> item) {
+        Customer customer = new Customer();
+        customer.setId(getString(item, CUSTOMER_ID));
+        customer.setFirstName(getString(item, FIRST_NAME));
+        customer.setLastName(getString(item, LAST_NAME));
+        customer.setEmail(getString(item, EMAIL));
+        customer.setMobileNumber(getString(item, MOBILE_NUMBER));
+        customer.setAddress(getString(item, ADDRESS));
+        customer.setCity(getString(item, CITY));
+        customer.setState(getString(item, STATE));
+        customer.setPincode(getString(item, PINCODE));
+        customer.setCreatedAt(getTimestamp(item, CREATED_AT));
+        return customer;
+    }
+}
@@ -0,0 +1,19 @@
+package com.bankingsystem.codec;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Converts a domain model to and from the item stored in its DynamoDB table
+ */
+public interface ItemCodec<T> {
+    
+    String tableName();
+    
+    String hashKey();
+    
+    Map<String, AttributeValue> encode(T value);
+    
+    T decode(Map<String, AttributeValue> item);
+}
@@ -0,0 +1,88 @@
+package com.bankingsystem.codec;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.bankingsystem.codec.AttributeValues.*;
+
+@Component
+public class TransactionCodec implements ItemCodec<Transaction> {
+    
+    public static final String TABLE = "BankingTransactions";
+    
+    public static final String TRANSACTION_ID = "transactionId";
+    private static final String TYPE = "type";
+    private static final String AMOUNT = "amount";
+    private static final String DESCRIPTION = "description";
+    private static final String STATUS = "status";
+    private static final String REFERENCE_NUMBER = "referenceNumber";
+    private static final String TRANSACTION_DATE = "transactionDate";
+    private static final String SOURCE_ACCOUNT_NUMBER = "sourceAccountNumber";
+    private static final String DESTINATION_ACCOUNT_NUMBER = "destinationAccountNumber";
+    
+    private static final int CAPACITY = capacity(9);
+    
+    private static final AttributeValue[] TYPES = enumValues(Transaction.TransactionType.class);
+    private static final AttributeValue[] STATUSES = enumValues(Transaction.TransactionStatus.class);
+    
+    @Override
+    public String tableName() {
+        return TABLE;
+    }
+    
+    @Override
+    public String hashKey() {
+        return TRANSACTION_ID;
+    }
+    
+    @Override
+    public Map<String, AttributeValue> encode(Transaction transaction) {
+        Map<String, AttributeValue> item = new HashMap<>(CAPACITY);
+        putString(item, TRANSACTION_ID, transaction.getTransactionId());
+        putEnum(item, TYPE, transaction.getType(), TYPES);
+        putNumber(item, AMOUNT, transaction.getAmount());
+        putString(item, DESCRIPTION, transaction.getDescription());
+        putEnum(item, STATUS, transaction.getStatus(), STATUSES);
+        putString(item, REFERENCE_NUMBER, transaction.getReferenceNumber());
+        putTimestamp(item, TRANSACTION_DATE, transaction.getTransactionDate());
+        if (transaction.getSourceAccount() != null) {
+            putString(item, SOURCE_ACCOUNT_NUMBER, transaction.getSourceAccount().getAccountNumber());
+        }
+        if (transaction.getDestinationAccount() != null) {
+            putString(item, DESTINATION_ACCOUNT_NUMBER, transaction.getDestinationAccount().getAccountNumber());
+        }
+        return item;
+    }
+    
+    /**
+     * Source and destination are restored as references carrying only the account number
+     */
+    @Override
+    public Transaction decode(Map<String, AttributeValue> item) {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(getString(item, TRANSACTION_ID));
+        transaction.setType(getEnum(item, TYPE, Transaction.TransactionType.class));
+        transaction.setAmount(getDecimal(item, AMOUNT));
+        transaction.setDescription(getString(item, DESCRIPTION));
+        transaction.setStatus(getEnum(item, STATUS, Transaction.TransactionStatus.class));
+        transaction.setReferenceNumber(getString(item, REFERENCE_NUMBER));
+        transaction.setTransactionDate(getTimestamp(item, TRANSACTION_DATE));
+        transaction.setSourceAccount(accountReference(getString(item, SOURCE_ACCOUNT_NUMBER)));
+        transaction.setDestinationAccount(accountReference(getString(item, DESTINATION_ACCOUNT_NUMBER)));
+        return transaction;
+    }
+    
+    private static Account accountReference(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        return account;
+    }
+}
@@ -5,15 +5,15 @@ import com.bankingsystem.model.Customer;
 import com.bankingsystem.repository.AccountRepository;
 import com.bankingsystem.repository.CustomerRepository;
 import com.bankingsystem.service.AuditService;
+import com.bankingsystem.util.AccountCache;
+import com.bankingsystem.util.IdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/accounts")
@@ -29,6 +29,12 @@ public class AccountController {
     @Autowired
     private AuditService auditService;
     
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private AccountCache accountCache;
+    
     /**
      * List all accounts
      */
@@ -47,7 +53,7 @@ public class AccountController {
             ));
         }
     }
-
+    
     /**
      * Create a new account
      */
@@ -55,11 +61,11 @@ public class AccountController {
     public ResponseEntity<?> createAccount(@Valid @RequestBody CreateAccountRequest request) {
         try {
             // Find customer
-            Customer customer = customerRepository.findById(request.getCustomerId())
+            Customer customer = accountCache.findCustomer(request.getCustomerId())
                     .orElseThrow(() -> new RuntimeException("Customer not found"));
             
             // Generate account number
-            String accountNumber = "ACC" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6);
+            String accountNumber = idGenerator.nextId(IdGenerator.ACCOUNT);
             
             // Create account
             Account account = new Account(accountNumber, customer, request.getAccountType());
@@ -94,7 +100,7 @@ public class AccountController {
     @GetMapping("/{accountNumber}")
     public ResponseEntity<?> getAccount(@PathVariable String accountNumber) {
         try {
-            Account account = accountRepository.findByAccountNumber(accountNumber)
+            Account account = accountCache.findAccount(accountNumber)
                     .orElseThrow(() -> new RuntimeException("Account not found"));
             
             return ResponseEntity.ok(Map.of(
@@ -116,7 +122,7 @@ public class AccountController {
     @GetMapping("/customer/{customerId}")
     public ResponseEntity<?> getAccountsByCustomer(@PathVariable String customerId) {
         try {
-            Customer customer = customerRepository.findById(customerId)
+            Customer customer = accountCache.findCustomer(customerId)
                     .orElseThrow(() -> new RuntimeException("Customer not found"));
             
             List<Account> accounts = accountRepository.findByCustomer(customer);
@@ -140,7 +146,7 @@ public class AccountController {
     @GetMapping("/{accountNumber}/balance")
     public ResponseEntity<?> getAccountBalance(@PathVariable String accountNumber) {
         try {
-            Account account = accountRepository.findByAccountNumber(accountNumber)
+            Account account = accountCache.findAccount(accountNumber)
                     .orElseThrow(() -> new RuntimeException("Account not found"));
             
             return ResponseEntity.ok(Map.of(
@@ -165,14 +171,14 @@ public class AccountController {
     public ResponseEntity<?> updateAccountStatus(@PathVariable String accountNumber, 
                                                @RequestBody UpdateStatusRequest request) {
         try {
-            Account account = accountRepository.findByAccountNumber(accountNumber)
-                    .orElseThrow(() -> new RuntimeException("Account not found"));
-            
-            Account.AccountStatus oldStatus = account.getStatus();
-            account.setStatus(request.getStatus());
-            account.setUpdatedAt(LocalDateTime.now());
+            Account.AccountStatus oldStatus = accountCache.findAccount(accountNumber)
+                    .orElseThrow(() -> new RuntimeException("Account not found"))
+                    .getStatus();
             
-            accountRepository.save(account);
+            // Targeted update so a concurrent balance change is never overwritten by a stale document
+            Account account = accountRepository.updateStatus(accountNumber, request.getStatus())
+                    .map(accountCache::refresh)
+                    .orElseThrow(() -> new RuntimeException("Account not found"));
             
             // Log the action
             auditService.logSuccess(request.getUserId(), "UPDATE_ACCOUNT_STATUS", "ACCOUNT", account.getId(), 
@@ -2,12 +2,16 @@ package com.bankingsystem.controller;
 
 import com.bankingsystem.model.AuditLog;
 import com.bankingsystem.service.AuditService;
+import com.bankingsystem.service.AuditStatsService;
+import com.bankingsystem.service.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +23,12 @@ public class AuditController {
     @Autowired
     private AuditService auditService;
     
+    @Autowired
+    private AuditStatsService auditStatsService;
+    
+    @Autowired
+    private ExportService exportService;
+    
     /**
      * Get all audit logs
      */
@@ -40,6 +50,40 @@ public class AuditController {
         }
     }
     
+    /**
+     * Stream audit logs as NDJSON (default) or CSV, gzipped when the client accepts it, optionally
+     * narrowed by time range, user, action and entity
+     */
+    @GetMapping("/logs/export")
+    public ResponseEntity<?> exportAuditLogs(
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType,
+            @RequestParam(required = false) String entityId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            ExportService.Format exportFormat = ExportService.Format.of(format);
+            boolean gzip = ExportService.acceptsGzip(acceptEncoding);
+            LocalDateTime start = startDate != null
+                    ? LocalDateTime.parse(startDate, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                    : null;
+            LocalDateTime end = endDate != null
+                    ? LocalDateTime.parse(endDate, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                    : null;
+            return ExportService.response(exportService.exportAuditLogs(start, end, userId, action, entityType,
+                    entityId, exportFormat, gzip), exportFormat, gzip, "audit-logs");
+            
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+    
     /**
      * Get audit logs by user ID
      */
@@ -130,37 +174,31 @@ public class AuditController {
     }
     
     /**
-     * Get audit log statistics
+     * Get audit log statistics, optionally for a time range with an hourly or daily breakdown
      */
     @GetMapping("/stats")
-    public ResponseEntity<?> getAuditStats() {
+    public ResponseEntity<?> getAuditStats(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "day") String granularity) {
         try {
-            List<AuditLog> allLogs = auditService.getAllAuditLogs();
-            
-            long totalLogs = allLogs.size();
-            long successLogs = allLogs.stream().filter(AuditLog::isSuccess).count();
-            long failureLogs = allLogs.stream().filter(AuditLog::isFailure).count();
-            
-            Map<String, Long> actionCounts = allLogs.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            AuditLog::getAction,
-                            java.util.stream.Collectors.counting()
-                    ));
-            
-            Map<String, Long> entityTypeCounts = allLogs.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            AuditLog::getEntityType,
-                            java.util.stream.Collectors.counting()
-                    ));
-            
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "totalLogs", totalLogs,
-                    "successLogs", successLogs,
-                    "failureLogs", failureLogs,
-                    "actionCounts", actionCounts,
-                    "entityTypeCounts", entityTypeCounts
-            ));
+            Map<String, Object> stats;
+            if (startDate != null || endDate != null) {
+                LocalDateTime start = startDate != null
+                        ? LocalDateTime.parse(startDate, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                        : LocalDateTime.now().minusDays(1);
+                LocalDateTime end = endDate != null
+                        ? LocalDateTime.parse(endDate, DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                        : LocalDateTime.now();
+                stats = auditStatsService.getStats(start, end, !"hour".equalsIgnoreCase(granularity));
+            } else {
+                stats = auditStatsService.getStats();
+            }
+            
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", true);
+            response.putAll(stats);
+            return ResponseEntity.ok(response);
             
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -3,6 +3,7 @@ package com.bankingsystem.controller;
 import com.bankingsystem.model.Customer;
 import com.bankingsystem.repository.CustomerRepository;
 import com.bankingsystem.service.AuditService;
+import com.bankingsystem.util.AccountCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +24,9 @@ public class CustomerController {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private AccountCache accountCache;
+
     /**
      * List all customers
      */
@@ -40,7 +44,7 @@ public class CustomerController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<?> getCustomer(@PathVariable String id) {
-        return customerRepository.findById(id)
+        return accountCache.findCustomer(id)
                 .<ResponseEntity<?>>map(customer -> ResponseEntity.ok(Map.of(
                         "success", true,
                         "customer", customer
@@ -69,6 +73,7 @@ public class CustomerController {
             );
 
             customer = customerRepository.save(customer);
+            accountCache.putCustomer(customer);
 
             // audit
             auditService.logSuccess(request.getUserId(), "CREATE_CUSTOMER", "CUSTOMER", customer.getId(),
@@ -1,7 +1,10 @@
 package com.bankingsystem.controller;
 
+import com.bankingsystem.model.SyncJob;
+import com.bankingsystem.service.ChangeStreamSyncService;
 import com.bankingsystem.service.DataSyncService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -14,31 +17,77 @@ public class DataSyncController {
     @Autowired
     private DataSyncService dataSyncService;
     
+    @Autowired
+    private ChangeStreamSyncService changeStreamSyncService;
+    
     /**
-     * Sync all MongoDB data to DynamoDB
+     * Start a background sync of all MongoDB data to DynamoDB; returns the running job if one exists
      */
     @PostMapping("/mongodb-to-dynamodb")
-    public Map<String, Object> syncMongoDBToDynamoDB() {
+    public ResponseEntity<Map<String, Object>> syncMongoDBToDynamoDB() {
         try {
-            dataSyncService.syncAllDataToDynamoDB();
+            SyncJob job = dataSyncService.submitSync();
             
-            return Map.of(
+            return ResponseEntity.accepted().body(Map.of(
                 "success", true,
-                "message", "Data synced from MongoDB to DynamoDB successfully!",
+                "message", "Sync job " + job.getJobId() + " is " + job.getStatus().name().toLowerCase(),
+                "jobId", job.getJobId(),
+                "status", job.getStatus(),
                 "timestamp", java.time.LocalDateTime.now()
-            );
+            ));
             
         } catch (Exception e) {
-            return Map.of(
+            return ResponseEntity.internalServerError().body(Map.of(
                 "success", false,
-                "message", "Error syncing data: " + e.getMessage(),
+                "message", "Error starting sync: " + e.getMessage(),
                 "timestamp", java.time.LocalDateTime.now()
-            );
+            ));
+        }
+    }
+    
+    /**
+     * List recent sync jobs
+     */
+    @GetMapping("/jobs")
+    public Map<String, Object> getSyncJobs() {
+        return Map.of(
+            "success", true,
+            "jobs", dataSyncService.getRecentJobs()
+        );
+    }
+    
+    /**
+     * Get per-collection progress, rate and ETA of a sync job
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getSyncJob(@PathVariable String jobId) {
+        return dataSyncService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(Map.<String, Object>of("success", true, "job", job)))
+                .orElseGet(() -> ResponseEntity.status(404).body(Map.of(
+                    "success", false,
+                    "message", "Sync job not found: " + jobId
+                )));
+    }
+    
+    /**
+     * Cancel a queued or running sync job
+     */
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelSyncJob(@PathVariable String jobId) {
+        if (!dataSyncService.cancel(jobId)) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", "No active sync job " + jobId
+            ));
         }
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "message", "Cancellation requested for sync job " + jobId
+        ));
     }
     
     /**
-     * Get sync status
+     * Get sync status, including change stream lag, backlog and throughput per collection
      */
     @GetMapping("/status")
     public Map<String, Object> getSyncStatus() {
@@ -47,6 +96,7 @@ public class DataSyncController {
             "message", "Data sync service is running",
             "mongodbCollections", new String[]{"customers", "accounts", "transactions", "audit_logs"},
             "dynamodbTables", new String[]{"BankingCustomers", "BankingAccounts", "BankingTransactions", "BankingAuditLogs"},
+            "changeStreams", changeStreamSyncService.getStatus(),
             "timestamp", java.time.LocalDateTime.now()
         );
     }
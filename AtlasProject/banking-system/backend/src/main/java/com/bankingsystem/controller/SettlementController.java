@@ -0,0 +1,156 @@
+package com.bankingsystem.controller;
+
+import com.bankingsystem.service.AuditService;
+import com.bankingsystem.service.SettlementRetryService;
+import com.bankingsystem.service.SettlementScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/settlement")
+@CrossOrigin(origins = "*")
+public class SettlementController {
+    
+    @Autowired
+    private SettlementScheduler settlementScheduler;
+    
+    @Autowired
+    private SettlementRetryService retryService;
+    
+    @Autowired
+    private AuditService auditService;
+    
+    /**
+     * Queue depth, scheduling mode and the last run
+     */
+    @GetMapping("/status")
+    public Map<String, Object> getStatus() {
+        return Map.of(
+            "success", true,
+            "settlement", settlementScheduler.getStatus(),
+            "timestamp", java.time.LocalDateTime.now()
+        );
+    }
+    
+    /**
+     * List recent settlement runs with duration, rate and failures
+     */
+    @GetMapping("/runs")
+    public Map<String, Object> getRuns() {
+        return Map.of(
+            "success", true,
+            "runs", settlementScheduler.getRecentRuns()
+        );
+    }
+    
+    /**
+     * Settle the queue now in the background
+     */
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> runNow() {
+        if (!settlementScheduler.triggerNow()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "message", "A settlement run is already in progress"
+            ));
+        }
+        return ResponseEntity.accepted().body(Map.of(
+            "success", true,
+            "message", "Settlement run started",
+            "timestamp", java.time.LocalDateTime.now()
+        ));
+    }
+    
+    /**
+     * List dead letters, optionally for one account or transaction
+     */
+    @GetMapping("/dead-letters")
+    public ResponseEntity<?> getDeadLetters(
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam(required = false) String transactionId,
+            @RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> page = retryService.getDeadLetters(accountNumber, transactionId,
+                Math.min(Math.max(limit, 1), 1000));
+        return ResponseEntity.ok(Map.of(
+            "success", true,
+            "total", page.get("total"),
+            "deadLetters", page.get("deadLetters")
+        ));
+    }
+    
+    /**
+     * Send the selected dead letters back to the settlement queue
+     */
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<?> replayDeadLetters(@RequestBody DeadLetterRequest request) {
+        try {
+            int replayed = retryService.replay(request.getIds(), request.getAccountNumber(),
+                    request.getTransactionId(), request.isAll());
+            auditService.logSuccess(request.getUserId(), "REPLAY_DEAD_LETTERS", "SETTLEMENT", null,
+                    "Replayed " + replayed + " settlement dead letters");
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Dead letters sent back to the settlement queue",
+                "replayed", replayed
+            ));
+        } catch (Exception e) {
+            auditService.logFailure(request.getUserId(), "REPLAY_DEAD_LETTERS", "SETTLEMENT", null,
+                    "Failed to replay settlement dead letters", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Delete the selected dead letters
+     */
+    @PostMapping("/dead-letters/purge")
+    public ResponseEntity<?> purgeDeadLetters(@RequestBody DeadLetterRequest request) {
+        try {
+            long purged = retryService.purge(request.getIds(), request.getAccountNumber(),
+                    request.getTransactionId(), request.isAll());
+            auditService.logSuccess(request.getUserId(), "PURGE_DEAD_LETTERS", "SETTLEMENT", null,
+                    "Purged " + purged + " settlement dead letters");
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Dead letters purged",
+                "purged", purged
+            ));
+        } catch (Exception e) {
+            auditService.logFailure(request.getUserId(), "PURGE_DEAD_LETTERS", "SETTLEMENT", null,
+                    "Failed to purge settlement dead letters", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+            ));
+        }
+    }
+    
+    // Inner classes for request/response
+    public static class DeadLetterRequest {
+        private List<String> ids;
+        private String accountNumber;
+        private String transactionId;
+        private boolean all;
+        private String userId;
+        
+        // Getters and setters
+        public List<String> getIds() { return ids; }
+        public void setIds(List<String> ids) { this.ids = ids; }
+        public String getAccountNumber() { return accountNumber; }
+        public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+        public String getTransactionId() { return transactionId; }
+        public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+        public boolean isAll() { return all; }
+        public void setAll(boolean all) { this.all = all; }
+        public String getUserId() { return userId; }
+        public void setUserId(String userId) { this.userId = userId; }
+    }
+}
@@ -1,17 +1,24 @@
 package com.bankingsystem.controller;
 
 import com.bankingsystem.model.Transaction;
+import com.bankingsystem.service.BatchTransactionService;
 import com.bankingsystem.service.DepositService;
+import com.bankingsystem.service.ExportService;
+import com.bankingsystem.service.ReversalService;
+import com.bankingsystem.service.TransactionHistoryService;
 import com.bankingsystem.service.WithdrawService;
 import com.bankingsystem.service.TransferService;
 import com.bankingsystem.util.UndoRedoStack;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,9 +36,21 @@ public class TransactionController {
     @Autowired
     private TransferService transferService;
     
+    @Autowired
+    private BatchTransactionService batchTransactionService;
+    
     @Autowired
     private UndoRedoStack undoRedoStack;
     
+    @Autowired
+    private ReversalService reversalService;
+    
+    @Autowired
+    private TransactionHistoryService transactionHistoryService;
+    
+    @Autowired
+    private ExportService exportService;
+    
     /**
      * Process a deposit
      */
@@ -115,17 +134,27 @@ public class TransactionController {
     }
     
     /**
-     * Get transaction history for an account
+     * Process a batch of deposits, withdrawals and transfers
      */
-    @GetMapping("/account/{accountNumber}")
-    public ResponseEntity<?> getTransactionHistory(@PathVariable String accountNumber) {
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(@RequestBody BatchRequest request) {
         try {
-            List<Transaction> transactions = transferService.getTransferHistory(accountNumber);
+            BatchTransactionService.BatchResult result = batchTransactionService.processBatch(
+                    request.getOperations(), 
+                    request.getUserId()
+            );
             
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "transactions", transactions
-            ));
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", true);
+            response.put("message", "Batch processed: " + result.getSucceeded() + " succeeded, " + result.getFailed() + " failed");
+            response.put("batchId", result.getBatchId());
+            response.put("succeeded", result.getSucceeded());
+            response.put("failed", result.getFailed());
+            response.put("results", result.getResults());
+            if (result.getRecordingError() != null) {
+                response.put("recordingError", result.getRecordingError());
+            }
+            return ResponseEntity.ok(response);
             
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -136,17 +165,45 @@ public class TransactionController {
     }
     
     /**
-     * Get deposit history for an account
+     * Get one page of transaction history for an account, newest first. Transfers unless another
+     * type is given; pass the returned nextCursor to get the following page.
      */
-    @GetMapping("/account/{accountNumber}/deposits")
-    public ResponseEntity<?> getDepositHistory(@PathVariable String accountNumber) {
+    @GetMapping("/account/{accountNumber}")
+    public ResponseEntity<?> getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
         try {
-            List<Transaction> transactions = depositService.getDepositHistory(accountNumber);
+            Transaction.TransactionType transactionType = type != null
+                    ? Transaction.TransactionType.valueOf(type.toUpperCase())
+                    : Transaction.TransactionType.TRANSFER;
+            return historyResponse(transactionHistoryService.getHistory(accountNumber, List.of(transactionType), true,
+                    parseDate(startDate), parseDate(endDate), limit, cursor));
             
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "transactions", transactions
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
             ));
+        }
+    }
+    
+    /**
+     * Get one page of deposit history for an account
+     */
+    @GetMapping("/account/{accountNumber}/deposits")
+    public ResponseEntity<?> getDepositHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
+        try {
+            return historyResponse(depositService.getDepositHistory(accountNumber,
+                    parseDate(startDate), parseDate(endDate), limit, cursor));
             
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -157,17 +214,48 @@ public class TransactionController {
     }
     
     /**
-     * Get withdrawal history for an account
+     * Get one page of withdrawal history for an account
      */
     @GetMapping("/account/{accountNumber}/withdrawals")
-    public ResponseEntity<?> getWithdrawalHistory(@PathVariable String accountNumber) {
+    public ResponseEntity<?> getWithdrawalHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor) {
         try {
-            List<Transaction> transactions = withdrawService.getWithdrawalHistory(accountNumber);
+            return historyResponse(withdrawService.getWithdrawalHistory(accountNumber,
+                    parseDate(startDate), parseDate(endDate), limit, cursor));
             
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "transactions", transactions
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
             ));
+        }
+    }
+    
+    /**
+     * Stream all of an account's transactions, sent or received, as NDJSON (default) or CSV,
+     * gzipped when the client accepts it; every type unless one is given
+     */
+    @GetMapping("/account/{accountNumber}/export")
+    public ResponseEntity<?> exportTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        try {
+            ExportService.Format exportFormat = ExportService.Format.of(format);
+            boolean gzip = ExportService.acceptsGzip(acceptEncoding);
+            List<Transaction.TransactionType> types = type != null
+                    ? List.of(Transaction.TransactionType.valueOf(type.toUpperCase()))
+                    : List.of();
+            return ExportService.response(exportService.exportTransactions(accountNumber, types,
+                    parseDate(startDate), parseDate(endDate), exportFormat, gzip),
+                    exportFormat, gzip, "transactions-" + accountNumber);
             
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -183,22 +271,13 @@ public class TransactionController {
     @PostMapping("/undo/{accountId}")
     public ResponseEntity<?> undoTransaction(@PathVariable String accountId, @RequestBody UndoRequest request) {
         try {
-            if (!undoRedoStack.canUndo(accountId)) {
-                return ResponseEntity.badRequest().body(Map.of(
-                        "success", false,
-                        "message", "No transactions available to undo"
-                ));
-            }
-            
-            Transaction transaction = undoRedoStack.popUndo(accountId);
-            
-            // Here you would implement the actual reversal logic
-            // For now, we'll just return the transaction that was undone
+            Transaction reversal = reversalService.undoLast(accountId, request.getUserId());
             
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Transaction undone successfully",
-                    "undoneTransaction", transaction
+                    "undoneTransactionId", reversal.getReversalOf(),
+                    "reversal", reversal
             ));
             
         } catch (Exception e) {
@@ -215,22 +294,37 @@ public class TransactionController {
     @PostMapping("/redo/{accountId}")
     public ResponseEntity<?> redoTransaction(@PathVariable String accountId, @RequestBody RedoRequest request) {
         try {
-            if (!undoRedoStack.canRedo(accountId)) {
-                return ResponseEntity.badRequest().body(Map.of(
-                        "success", false,
-                        "message", "No transactions available to redo"
-                ));
-            }
+            Transaction redo = reversalService.redoLast(accountId, request.getUserId());
             
-            Transaction transaction = undoRedoStack.popRedo(accountId);
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "message", "Transaction redone successfully",
+                    "redo", redo
+            ));
             
-            // Here you would implement the actual re-execution logic
-            // For now, we'll just return the transaction that was redone
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Reverse several transactions by ID, for bulk error correction
+     */
+    @PostMapping("/reversals")
+    public ResponseEntity<?> reverseTransactions(@RequestBody ReversalRequest request) {
+        try {
+            if (request.getTransactionIds() == null || request.getTransactionIds().isEmpty()) {
+                throw new RuntimeException("At least one transaction ID is required");
+            }
+            Map<String, Object> result = reversalService.reverseAll(request.getTransactionIds(), request.getUserId());
             
             return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "message", "Transaction redone successfully",
-                    "redoneTransaction", transaction
+                    "message", "Reversal batch processed",
+                    "result", result
             ));
             
         } catch (Exception e) {
@@ -268,6 +362,17 @@ public class TransactionController {
         }
     }
     
+    private static ResponseEntity<?> historyResponse(Map<String, Object> page) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.putAll(page);
+        return ResponseEntity.ok(response);
+    }
+    
+    private static LocalDateTime parseDate(String date) {
+        return date != null ? LocalDateTime.parse(date, DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+    }
+    
     // Inner classes for request/response
     public static class DepositRequest {
         private String accountNumber;
@@ -323,6 +428,17 @@ public class TransactionController {
         public void setUserId(String userId) { this.userId = userId; }
     }
     
+    public static class BatchRequest {
+        private List<BatchTransactionService.BatchOperation> operations;
+        private String userId;
+        
+        // Getters and setters
+        public List<BatchTransactionService.BatchOperation> getOperations() { return operations; }
+        public void setOperations(List<BatchTransactionService.BatchOperation> operations) { this.operations = operations; }
+        public String getUserId() { return userId; }
+        public void setUserId(String userId) { this.userId = userId; }
+    }
+    
     public static class UndoRequest {
         private String userId;
         
@@ -336,4 +452,14 @@ public class TransactionController {
         public String getUserId() { return userId; }
         public void setUserId(String userId) { this.userId = userId; }
     }
+    
+    public static class ReversalRequest {
+        private List<String> transactionIds;
+        private String userId;
+        
+        public List<String> getTransactionIds() { return transactionIds; }
+        public void setTransactionIds(List<String> transactionIds) { this.transactionIds = transactionIds; }
+        public String getUserId() { return userId; }
+        public void setUserId(String userId) { this.userId = userId; }
+    }
 }
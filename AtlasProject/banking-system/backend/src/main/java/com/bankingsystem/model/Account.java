@@ -3,6 +3,8 @@ package com.bankingsystem.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DocumentReference;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import jakarta.validation.constraints.NotBlank;
@@ -29,6 +31,7 @@ public class Account {
     private AccountType accountType;
     
     @DecimalMin(value = "0.0", message = "Balance cannot be negative")
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal balance;
     
     private Currency currency;
@@ -37,6 +40,12 @@ public class Account {
     private LocalDateTime updatedAt;
     private LocalDateTime lastTransactionDate;
     
+    // Incremented by every atomic balance update in AccountRepository
+    private Long version;
+    
+    // Marker of the last batch upload that moved this balance, used to confirm bulk updates
+    private String lastBatchId;
+    
     // Constructors
     public Account() {
         this.balance = BigDecimal.ZERO;
@@ -169,7 +178,27 @@ public class Account {
         this.lastTransactionDate = lastTransactionDate;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public String getLastBatchId() {
+        return lastBatchId;
+    }
+    
+    public void setLastBatchId(String lastBatchId) {
+        this.lastBatchId = lastBatchId;
+    }
+    
     // Business methods
+    /**
+     * In-memory form of the withdrawal guard; the authoritative check runs
+     * server-side in AccountRepository#debitBalance
+     */
     public boolean canWithdraw(BigDecimal amount) {
         return status == AccountStatus.ACTIVE && 
                balance.compareTo(amount) >= 0 && 
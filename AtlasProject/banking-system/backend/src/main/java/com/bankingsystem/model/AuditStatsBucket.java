@@ -0,0 +1,88 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Document(collection = "audit_stats")
+public class AuditStatsBucket {
+    // Hours since the Unix epoch
+    @Id
+    private Long hour;
+    
+    private LocalDateTime hourStart;
+    private long total;
+    private long success;
+    private long failure;
+    private Map<String, Long> actions = new HashMap<>();
+    private Map<String, Long> entityTypes = new HashMap<>();
+    private LocalDateTime flushedAt;
+    
+    // Getters and Setters
+    public Long getHour() {
+        return hour;
+    }
+    
+    public void setHour(Long hour) {
+        this.hour = hour;
+    }
+    
+    public LocalDateTime getHourStart() {
+        return hourStart;
+    }
+    
+    public void setHourStart(LocalDateTime hourStart) {
+        this.hourStart = hourStart;
+    }
+    
+    public long getTotal() {
+        return total;
+    }
+    
+    public void setTotal(long total) {
+        this.total = total;
+    }
+    
+    public long getSuccess() {
+        return success;
+    }
+    
+    public void setSuccess(long success) {
+        this.success = success;
+    }
+    
+    public long getFailure() {
+        return failure;
+    }
+    
+    public void setFailure(long failure) {
+        this.failure = failure;
+    }
+    
+    public Map<String, Long> getActions() {
+        return actions;
+    }
+    
+    public void setActions(Map<String, Long> actions) {
+        this.actions = actions;
+    }
+    
+    public Map<String, Long> getEntityTypes() {
+        return entityTypes;
+    }
+    
+    public void setEntityTypes(Map<String, Long> entityTypes) {
+        this.entityTypes = entityTypes;
+    }
+    
+    public LocalDateTime getFlushedAt() {
+        return flushedAt;
+    }
+    
+    public void setFlushedAt(LocalDateTime flushedAt) {
+        this.flushedAt = flushedAt;
+    }
+}
@@ -0,0 +1,64 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Document(collection = "limit_checkpoints")
+public class LimitCheckpoint {
+    @Id
+    private String accountNumber;
+    
+    // Parallel lists: start of each window bucket (epoch minutes) and its debit total in paise
+    private List<Long> bucketStarts;
+    private List<Long> bucketTotals;
+    
+    @Indexed
+    private LocalDateTime checkpointedAt;
+    
+    // Constructors
+    public LimitCheckpoint() {}
+    
+    public LimitCheckpoint(String accountNumber, List<Long> bucketStarts, List<Long> bucketTotals, LocalDateTime checkpointedAt) {
+        this.accountNumber = accountNumber;
+        this.bucketStarts = bucketStarts;
+        this.bucketTotals = bucketTotals;
+        this.checkpointedAt = checkpointedAt;
+    }
+    
+    // Getters and Setters
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public List<Long> getBucketStarts() {
+        return bucketStarts;
+    }
+    
+    public void setBucketStarts(List<Long> bucketStarts) {
+        this.bucketStarts = bucketStarts;
+    }
+    
+    public List<Long> getBucketTotals() {
+        return bucketTotals;
+    }
+    
+    public void setBucketTotals(List<Long> bucketTotals) {
+        this.bucketTotals = bucketTotals;
+    }
+    
+    public LocalDateTime getCheckpointedAt() {
+        return checkpointedAt;
+    }
+    
+    public void setCheckpointedAt(LocalDateTime checkpointedAt) {
+        this.checkpointedAt = checkpointedAt;
+    }
+}
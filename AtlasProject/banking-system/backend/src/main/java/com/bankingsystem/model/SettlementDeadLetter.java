@@ -0,0 +1,143 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Settlement entry that failed on every attempt, moved out of the queue until an operator
+ * replays or purges it
+ */
+@Document(collection = "settlement_dead_letters")
+public class SettlementDeadLetter {
+    // Same ID as the queue entry it was moved from
+    @Id
+    private String id;
+    
+    @Indexed
+    private String transactionId;
+    
+    private Transaction.TransactionType type;
+    private SettlementEntry.Leg leg;
+    
+    @Indexed
+    private String accountNumber;
+    
+    private String counterpartyAccountNumber;
+    private BigDecimal amount;
+    private int attempts;
+    private String lastError;
+    private LocalDateTime enqueuedAt;
+    
+    @Indexed
+    private LocalDateTime deadAt;
+    
+    // Constructors
+    public SettlementDeadLetter() {}
+    
+    public SettlementDeadLetter(SettlementEntry entry, String lastError) {
+        this.id = entry.getId();
+        this.transactionId = entry.getTransactionId();
+        this.type = entry.getType();
+        this.leg = entry.getLeg();
+        this.accountNumber = entry.getAccountNumber();
+        this.counterpartyAccountNumber = entry.getCounterpartyAccountNumber();
+        this.amount = entry.getAmount();
+        this.attempts = entry.getAttempts();
+        this.lastError = lastError;
+        this.enqueuedAt = entry.getEnqueuedAt();
+        this.deadAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getTransactionId() {
+        return transactionId;
+    }
+    
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+    
+    public Transaction.TransactionType getType() {
+        return type;
+    }
+    
+    public void setType(Transaction.TransactionType type) {
+        this.type = type;
+    }
+    
+    public SettlementEntry.Leg getLeg() {
+        return leg;
+    }
+    
+    public void setLeg(SettlementEntry.Leg leg) {
+        this.leg = leg;
+    }
+    
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public String getCounterpartyAccountNumber() {
+        return counterpartyAccountNumber;
+    }
+    
+    public void setCounterpartyAccountNumber(String counterpartyAccountNumber) {
+        this.counterpartyAccountNumber = counterpartyAccountNumber;
+    }
+    
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+    
+    public LocalDateTime getEnqueuedAt() {
+        return enqueuedAt;
+    }
+    
+    public void setEnqueuedAt(LocalDateTime enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+    
+    public LocalDateTime getDeadAt() {
+        return deadAt;
+    }
+    
+    public void setDeadAt(LocalDateTime deadAt) {
+        this.deadAt = deadAt;
+    }
+}
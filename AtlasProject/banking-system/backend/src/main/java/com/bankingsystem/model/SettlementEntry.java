@@ -0,0 +1,250 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One account's side of a transaction waiting for settlement. A transfer enqueues a DEBIT entry
+ * for the source and a CREDIT entry for the destination, so each entry touches exactly one
+ * account and belongs to that account's settlement partition.
+ */
+@Document(collection = "settlement_queue")
+public class SettlementEntry {
+    // Transaction ID and leg, so enqueueing the same transaction twice keeps one entry per leg
+    @Id
+    private String id;
+    
+    private String transactionId;
+    
+    // Raw k-sorted ID shared by the legs of a transaction; consumers claim entries in this order
+    private long seq;
+    
+    private Transaction.TransactionType type;
+    private Leg leg;
+    private String accountNumber;
+    
+    // Other side of a transfer, kept for pair netting
+    private String counterpartyAccountNumber;
+    
+    private BigDecimal amount;
+    private int partition;
+    private EntryStatus status;
+    private int attempts;
+    
+    // Instance holding the claim, the claim batch it belongs to, the partition lease token it was
+    // claimed under and when it may be taken over
+    private String claimedBy;
+    private String claimToken;
+    private long fence;
+    private LocalDateTime leaseUntil;
+    
+    // When a failed entry waiting in RETRY becomes claimable again
+    private LocalDateTime retryAt;
+    
+    private LocalDateTime enqueuedAt;
+    private LocalDateTime settledAt;
+    private String lastError;
+    
+    // Constructors
+    public SettlementEntry() {}
+    
+    public SettlementEntry(Transaction transaction, Leg leg, String accountNumber, String counterpartyAccountNumber,
+                           long seq, int partition) {
+        this.id = transaction.getTransactionId() + ":" + leg.name();
+        this.transactionId = transaction.getTransactionId();
+        this.seq = seq;
+        this.type = transaction.getType();
+        this.leg = leg;
+        this.accountNumber = accountNumber;
+        this.counterpartyAccountNumber = counterpartyAccountNumber;
+        this.amount = transaction.getAmount();
+        this.partition = partition;
+        this.status = EntryStatus.QUEUED;
+        this.enqueuedAt = LocalDateTime.now();
+    }
+    
+    public SettlementEntry(SettlementDeadLetter deadLetter, long seq, int partition) {
+        this.id = deadLetter.getId();
+        this.transactionId = deadLetter.getTransactionId();
+        this.seq = seq;
+        this.type = deadLetter.getType();
+        this.leg = deadLetter.getLeg();
+        this.accountNumber = deadLetter.getAccountNumber();
+        this.counterpartyAccountNumber = deadLetter.getCounterpartyAccountNumber();
+        this.amount = deadLetter.getAmount();
+        this.partition = partition;
+        this.status = EntryStatus.QUEUED;
+        this.enqueuedAt = deadLetter.getEnqueuedAt();
+    }
+    
+    // Enums
+    public enum Leg {
+        DEBIT,
+        CREDIT
+    }
+    
+    public enum EntryStatus {
+        QUEUED,
+        CLAIMED,
+        RETRY,
+        SETTLED,
+        // Out of attempts before the dead-letter store existed; moved there on startup
+        FAILED
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getTransactionId() {
+        return transactionId;
+    }
+    
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+    
+    public long getSeq() {
+        return seq;
+    }
+    
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+    
+    public Transaction.TransactionType getType() {
+        return type;
+    }
+    
+    public void setType(Transaction.TransactionType type) {
+        this.type = type;
+    }
+    
+    public Leg getLeg() {
+        return leg;
+    }
+    
+    public void setLeg(Leg leg) {
+        this.leg = leg;
+    }
+    
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public String getCounterpartyAccountNumber() {
+        return counterpartyAccountNumber;
+    }
+    
+    public void setCounterpartyAccountNumber(String counterpartyAccountNumber) {
+        this.counterpartyAccountNumber = counterpartyAccountNumber;
+    }
+    
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+    
+    public int getPartition() {
+        return partition;
+    }
+    
+    public void setPartition(int partition) {
+        this.partition = partition;
+    }
+    
+    public EntryStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(EntryStatus status) {
+        this.status = status;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+    
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+    
+    public String getClaimToken() {
+        return claimToken;
+    }
+    
+    public void setClaimToken(String claimToken) {
+        this.claimToken = claimToken;
+    }
+    
+    public long getFence() {
+        return fence;
+    }
+    
+    public void setFence(long fence) {
+        this.fence = fence;
+    }
+    
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+    
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+    
+    public LocalDateTime getRetryAt() {
+        return retryAt;
+    }
+    
+    public void setRetryAt(LocalDateTime retryAt) {
+        this.retryAt = retryAt;
+    }
+    
+    public LocalDateTime getEnqueuedAt() {
+        return enqueuedAt;
+    }
+    
+    public void setEnqueuedAt(LocalDateTime enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+    
+    public LocalDateTime getSettledAt() {
+        return settledAt;
+    }
+    
+    public void setSettledAt(LocalDateTime settledAt) {
+        this.settledAt = settledAt;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
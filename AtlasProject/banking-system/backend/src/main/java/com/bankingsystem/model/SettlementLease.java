@@ -0,0 +1,63 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "settlement_leases")
+public class SettlementLease {
+    @Id
+    private Integer partition;
+    
+    private String owner;
+    
+    // Fencing token, incremented on every change of owner; never reset because lease documents are kept
+    private long token;
+    
+    private LocalDateTime acquiredAt;
+    
+    // The lease is free once this passes, even if owner is still set
+    private LocalDateTime expiresAt;
+    
+    // Getters and Setters
+    public Integer getPartition() {
+        return partition;
+    }
+    
+    public void setPartition(Integer partition) {
+        this.partition = partition;
+    }
+    
+    public String getOwner() {
+        return owner;
+    }
+    
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+    
+    public long getToken() {
+        return token;
+    }
+    
+    public void setToken(long token) {
+        this.token = token;
+    }
+    
+    public LocalDateTime getAcquiredAt() {
+        return acquiredAt;
+    }
+    
+    public void setAcquiredAt(LocalDateTime acquiredAt) {
+        this.acquiredAt = acquiredAt;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,136 @@
+package com.bankingsystem.model;
+
+import com.bankingsystem.util.NettingBook;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What one settlement batch netted into: one position update per account, each linked
+ * back to the transactions it covers
+ */
+@Document(collection = "settlement_netting_reports")
+public class SettlementNettingReport {
+    @Id
+    private String batchId;
+    
+    private LocalDateTime createdAt;
+    private int entries;
+    private int legs;
+    
+    // Position updates actually written; legs minus this is what netting saved
+    private int positionWrites;
+    
+    private List<AccountNet> accounts = new ArrayList<>();
+    private List<NettingBook.PairPosition> pairs = new ArrayList<>();
+    
+    // Constructors
+    public SettlementNettingReport() {}
+    
+    public SettlementNettingReport(String batchId) {
+        this.batchId = batchId;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getBatchId() {
+        return batchId;
+    }
+    
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public int getEntries() {
+        return entries;
+    }
+    
+    public void setEntries(int entries) {
+        this.entries = entries;
+    }
+    
+    public int getLegs() {
+        return legs;
+    }
+    
+    public void setLegs(int legs) {
+        this.legs = legs;
+    }
+    
+    public int getPositionWrites() {
+        return positionWrites;
+    }
+    
+    public void setPositionWrites(int positionWrites) {
+        this.positionWrites = positionWrites;
+    }
+    
+    public List<AccountNet> getAccounts() {
+        return accounts;
+    }
+    
+    public void setAccounts(List<AccountNet> accounts) {
+        this.accounts = accounts;
+    }
+    
+    public List<NettingBook.PairPosition> getPairs() {
+        return pairs;
+    }
+    
+    public void setPairs(List<NettingBook.PairPosition> pairs) {
+        this.pairs = pairs;
+    }
+    
+    /**
+     * Net settled for one account in this batch
+     */
+    public static class AccountNet {
+        private String accountNumber;
+        
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal credits;
+        
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal debits;
+        
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal net;
+        
+        private List<String> transactionIds;
+        
+        public AccountNet() {}
+        
+        public AccountNet(String accountNumber, BigDecimal credits, BigDecimal debits, List<String> transactionIds) {
+            this.accountNumber = accountNumber;
+            this.credits = credits;
+            this.debits = debits;
+            this.net = credits.subtract(debits);
+            this.transactionIds = transactionIds;
+        }
+        
+        public String getAccountNumber() { return accountNumber; }
+        public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+        public BigDecimal getCredits() { return credits; }
+        public void setCredits(BigDecimal credits) { this.credits = credits; }
+        public BigDecimal getDebits() { return debits; }
+        public void setDebits(BigDecimal debits) { this.debits = debits; }
+        public BigDecimal getNet() { return net; }
+        public void setNet(BigDecimal net) { this.net = net; }
+        public List<String> getTransactionIds() { return transactionIds; }
+        public void setTransactionIds(List<String> transactionIds) { this.transactionIds = transactionIds; }
+    }
+}
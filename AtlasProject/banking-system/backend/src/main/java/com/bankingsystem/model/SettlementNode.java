@@ -0,0 +1,55 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Document(collection = "settlement_nodes")
+public class SettlementNode {
+    @Id
+    private String nodeId;
+    
+    private LocalDateTime heartbeatAt;
+    
+    // Removed by a TTL index once the node stops heartbeating
+    private LocalDateTime expiresAt;
+    
+    // Partitions held at the last heartbeat
+    private List<Integer> partitions = new ArrayList<>();
+    
+    // Getters and Setters
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+    
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+    
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+    
+    public List<Integer> getPartitions() {
+        return partitions;
+    }
+    
+    public void setPartitions(List<Integer> partitions) {
+        this.partitions = partitions;
+    }
+}
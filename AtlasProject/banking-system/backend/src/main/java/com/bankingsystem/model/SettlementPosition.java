@@ -0,0 +1,92 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Document(collection = "settlement_positions")
+public class SettlementPosition {
+    @Id
+    private String accountNumber;
+    
+    // Running totals of settled legs, incremented in place
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal settledCredits;
+    
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal settledDebits;
+    
+    private long settledCount;
+    
+    // Queue entries already added to the totals but not yet acknowledged; a re-claimed entry found
+    // here is settled, anything else is not. Entries are removed once their acknowledgement lands.
+    private List<String> appliedEntryIds = new ArrayList<>();
+    
+    // Lease token of the partition holder that last wrote the position; older holders are refused
+    private long fence;
+    
+    private LocalDateTime updatedAt;
+    
+    // Getters and Setters
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public BigDecimal getSettledCredits() {
+        return settledCredits;
+    }
+    
+    public void setSettledCredits(BigDecimal settledCredits) {
+        this.settledCredits = settledCredits;
+    }
+    
+    public BigDecimal getSettledDebits() {
+        return settledDebits;
+    }
+    
+    public void setSettledDebits(BigDecimal settledDebits) {
+        this.settledDebits = settledDebits;
+    }
+    
+    public long getSettledCount() {
+        return settledCount;
+    }
+    
+    public void setSettledCount(long settledCount) {
+        this.settledCount = settledCount;
+    }
+    
+    public List<String> getAppliedEntryIds() {
+        return appliedEntryIds;
+    }
+    
+    public void setAppliedEntryIds(List<String> appliedEntryIds) {
+        this.appliedEntryIds = appliedEntryIds;
+    }
+    
+    public long getFence() {
+        return fence;
+    }
+    
+    public void setFence(long fence) {
+        this.fence = fence;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
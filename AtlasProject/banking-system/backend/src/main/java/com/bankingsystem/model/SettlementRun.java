@@ -0,0 +1,173 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "settlement_runs")
+public class SettlementRun {
+    @Id
+    private String runId;
+    
+    private Trigger trigger;
+    
+    // Process that executed the run
+    private String node;
+    
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long durationMillis;
+    private long settled;
+    private long failed;
+    private long requeued;
+    private long legs;
+    private long positionWrites;
+    private double itemsPerSecond;
+    private boolean timedOut;
+    
+    // Entries still queued when the run ended
+    private long remaining;
+    
+    private String error;
+    
+    // Constructors
+    public SettlementRun() {}
+    
+    public SettlementRun(String runId, Trigger trigger, String node) {
+        this.runId = runId;
+        this.trigger = trigger;
+        this.node = node;
+        this.startedAt = LocalDateTime.now();
+    }
+    
+    // Enums
+    public enum Trigger {
+        CRON,
+        INTERVAL,
+        THRESHOLD,
+        MANUAL,
+        SCRIPT
+    }
+    
+    // Getters and Setters
+    public String getRunId() {
+        return runId;
+    }
+    
+    public void setRunId(String runId) {
+        this.runId = runId;
+    }
+    
+    public Trigger getTrigger() {
+        return trigger;
+    }
+    
+    public void setTrigger(Trigger trigger) {
+        this.trigger = trigger;
+    }
+    
+    public String getNode() {
+        return node;
+    }
+    
+    public void setNode(String node) {
+        this.node = node;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+    
+    public long getSettled() {
+        return settled;
+    }
+    
+    public void setSettled(long settled) {
+        this.settled = settled;
+    }
+    
+    public long getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+    
+    public long getRequeued() {
+        return requeued;
+    }
+    
+    public void setRequeued(long requeued) {
+        this.requeued = requeued;
+    }
+    
+    public long getLegs() {
+        return legs;
+    }
+    
+    public void setLegs(long legs) {
+        this.legs = legs;
+    }
+    
+    public long getPositionWrites() {
+        return positionWrites;
+    }
+    
+    public void setPositionWrites(long positionWrites) {
+        this.positionWrites = positionWrites;
+    }
+    
+    public double getItemsPerSecond() {
+        return itemsPerSecond;
+    }
+    
+    public void setItemsPerSecond(double itemsPerSecond) {
+        this.itemsPerSecond = itemsPerSecond;
+    }
+    
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+    
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+    
+    public long getRemaining() {
+        return remaining;
+    }
+    
+    public void setRemaining(long remaining) {
+        this.remaining = remaining;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,73 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Document(collection = "sync_checkpoints")
+public class SyncCheckpoint {
+    // Name of the MongoDB collection being synced
+    @Id
+    private String collection;
+    
+    // Change stream resume token as extended JSON
+    private String resumeToken;
+    
+    private LocalDateTime lastEventAt;
+    private LocalDateTime updatedAt;
+    
+    // When the stream lost changes it could not resume past; cleared by the next full sync started after it
+    private LocalDateTime fullSyncRequiredSince;
+    
+    // Constructors
+    public SyncCheckpoint() {}
+    
+    public SyncCheckpoint(String collection, String resumeToken, LocalDateTime lastEventAt) {
+        this.collection = collection;
+        this.resumeToken = resumeToken;
+        this.lastEventAt = lastEventAt;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getCollection() {
+        return collection;
+    }
+    
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+    
+    public String getResumeToken() {
+        return resumeToken;
+    }
+    
+    public void setResumeToken(String resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+    
+    public LocalDateTime getLastEventAt() {
+        return lastEventAt;
+    }
+    
+    public void setLastEventAt(LocalDateTime lastEventAt) {
+        this.lastEventAt = lastEventAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public LocalDateTime getFullSyncRequiredSince() {
+        return fullSyncRequiredSince;
+    }
+    
+    public void setFullSyncRequiredSince(LocalDateTime fullSyncRequiredSince) {
+        this.fullSyncRequiredSince = fullSyncRequiredSince;
+    }
+}
@@ -0,0 +1,164 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Document(collection = "sync_jobs")
+public class SyncJob {
+    @Id
+    private String jobId;
+    
+    @Indexed
+    private JobStatus status;
+    
+    private List<TargetState> targets = new ArrayList<>();
+    private boolean cancelRequested;
+    private String errorMessage;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    
+    // Heartbeat written with every checkpoint; a running job whose heartbeat stops is resumed
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public SyncJob() {}
+    
+    public SyncJob(String jobId, List<TargetState> targets) {
+        this.jobId = jobId;
+        this.targets = targets;
+        this.status = JobStatus.QUEUED;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = createdAt;
+    }
+    
+    public boolean isActive() {
+        return status == JobStatus.QUEUED || status == JobStatus.RUNNING;
+    }
+    
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+    
+    public JobStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+    
+    public List<TargetState> getTargets() {
+        return targets;
+    }
+    
+    public void setTargets(List<TargetState> targets) {
+        this.targets = targets;
+    }
+    
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+    
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+    
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+    
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+    
+    /**
+     * Checkpointed progress of one synced table
+     */
+    public static class TargetState {
+        private String target;
+        private String collection;
+        
+        // Every document up to this _id of the collection has been written
+        private Object watermark;
+        
+        private long total;
+        private long read;
+        private long written;
+        private long failed;
+        private boolean done;
+        private String lastError;
+        
+        public TargetState() {}
+        
+        public TargetState(String target, long total) {
+            this.target = target;
+            this.total = total;
+        }
+        
+        public String getTarget() { return target; }
+        public void setTarget(String target) { this.target = target; }
+        public String getCollection() { return collection; }
+        public void setCollection(String collection) { this.collection = collection; }
+        public Object getWatermark() { return watermark; }
+        public void setWatermark(Object watermark) { this.watermark = watermark; }
+        public long getTotal() { return total; }
+        public void setTotal(long total) { this.total = total; }
+        public long getRead() { return read; }
+        public void setRead(long read) { this.read = read; }
+        public long getWritten() { return written; }
+        public void setWritten(long written) { this.written = written; }
+        public long getFailed() { return failed; }
+        public void setFailed(long failed) { this.failed = failed; }
+        public boolean isDone() { return done; }
+        public void setDone(boolean done) { this.done = done; }
+        public String getLastError() { return lastError; }
+        public void setLastError(String lastError) { this.lastError = lastError; }
+    }
+}
@@ -3,6 +3,8 @@ package com.bankingsystem.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DocumentReference;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import jakarta.validation.constraints.NotBlank;
@@ -13,6 +15,13 @@ import java.time.LocalDateTime;
 import java.util.Currency;
 
 @Document(collection = "transactions")
+// Account history pages: equality on account and type, newest first, ties broken by transaction ID
+@CompoundIndexes({
+    @CompoundIndex(name = "source_type_date",
+            def = "{'sourceAccount': 1, 'type': 1, 'transactionDate': -1, 'transactionId': -1}"),
+    @CompoundIndex(name = "destination_type_date",
+            def = "{'destinationAccount': 1, 'type': 1, 'transactionDate': -1, 'transactionId': -1}")
+})
 public class Transaction {
     @Id
     private String id;
@@ -42,6 +51,16 @@ public class Transaction {
     private TransactionStatus status;
     private String referenceNumber;
     private String remarks;
+    
+    // Transaction this one compensates, set on undo and redo postings
+    @Indexed(sparse = true)
+    private String reversalOf;
+    
+    // Saved as true with the transaction and removed once its settlement entries are queued;
+    // transactions still carrying it are enqueued by the settlement outbox sweep
+    @Indexed(sparse = true)
+    private Boolean settlementPending;
+    
     private LocalDateTime transactionDate;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -198,6 +217,22 @@ public class Transaction {
         this.remarks = remarks;
     }
     
+    public Boolean getSettlementPending() {
+        return settlementPending;
+    }
+    
+    public void setSettlementPending(Boolean settlementPending) {
+        this.settlementPending = settlementPending;
+    }
+    
+    public String getReversalOf() {
+        return reversalOf;
+    }
+    
+    public void setReversalOf(String reversalOf) {
+        this.reversalOf = reversalOf;
+    }
+    
     public LocalDateTime getTransactionDate() {
         return transactionDate;
     }
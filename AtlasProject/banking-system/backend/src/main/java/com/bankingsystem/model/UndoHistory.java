@@ -0,0 +1,102 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Undo and redo history of one account, shared by every instance. Both lists are oldest first
+ * and capped at the configured depth.
+ */
+@Document(collection = "undo_histories")
+public class UndoHistory {
+    // Account ID
+    @Id
+    private String accountId;
+    
+    private List<Entry> undo = new ArrayList<>();
+    private List<Entry> redo = new ArrayList<>();
+    
+    // Bumped on every change
+    private long version;
+    
+    // Removed by a TTL index once the account has been idle for the retention period
+    private LocalDateTime updatedAt;
+    
+    // Getters and Setters
+    public String getAccountId() {
+        return accountId;
+    }
+    
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+    
+    public List<Entry> getUndo() {
+        return undo;
+    }
+    
+    public void setUndo(List<Entry> undo) {
+        this.undo = undo;
+    }
+    
+    public List<Entry> getRedo() {
+        return redo;
+    }
+    
+    public void setRedo(List<Entry> redo) {
+        this.redo = redo;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    /**
+     * One transaction in the history, kept compact: no account or customer references
+     */
+    public static class Entry {
+        private String transactionId;
+        private Transaction.TransactionType type;
+        private long amountPaise;
+        private long timestampMillis;
+        
+        public Entry() {}
+        
+        public Entry(String transactionId, Transaction.TransactionType type, long amountPaise, long timestampMillis) {
+            this.transactionId = transactionId;
+            this.type = type;
+            this.amountPaise = amountPaise;
+            this.timestampMillis = timestampMillis;
+        }
+        
+        public String getTransactionId() { return transactionId; }
+        public void setTransactionId(String transactionId) { this.transactionId = transactionId; }
+        public Transaction.TransactionType getType() { return type; }
+        public void setType(Transaction.TransactionType type) { this.type = type; }
+        public long getAmountPaise() { return amountPaise; }
+        public void setAmountPaise(long amountPaise) { this.amountPaise = amountPaise; }
+        public long getTimestampMillis() { return timestampMillis; }
+        public void setTimestampMillis(long timestampMillis) { this.timestampMillis = timestampMillis; }
+        
+        public BigDecimal getAmount() {
+            return BigDecimal.valueOf(amountPaise, 2);
+        }
+    }
+}
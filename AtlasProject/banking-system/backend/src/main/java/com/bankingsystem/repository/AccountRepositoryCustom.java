@@ -0,0 +1,48 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Atomic, single round-trip balance updates that replace load-modify-save of Account.
+ * Returned accounts carry the post-update balance and version but not the customer reference.
+ */
+public interface AccountRepositoryCustom {
+    
+    /**
+     * Credit an ACTIVE account; empty if the account is missing or not active
+     */
+    Optional<Account> creditBalance(String accountNumber, BigDecimal amount);
+    
+    /**
+     * Debit an ACTIVE account only if its balance covers the amount; empty otherwise
+     */
+    Optional<Account> debitBalance(String accountNumber, BigDecimal amount);
+    
+    /**
+     * Apply a signed adjustment regardless of status, used for compensating postings
+     */
+    Optional<Account> adjustBalance(String accountNumber, BigDecimal delta);
+    
+    /**
+     * Change the account status without rewriting the balance
+     */
+    Optional<Account> updateStatus(String accountNumber, Account.AccountStatus status);
+    
+    /**
+     * Load accounts by number without resolving their customer reference
+     */
+    List<Account> findSnapshots(Collection<String> accountNumbers);
+    
+    /**
+     * Apply net balance deltas with ordered bulk writes, each guarded by the snapshot version.
+     * Returns the account numbers whose update was applied; the rest changed concurrently.
+     */
+    Set<String> applyVersionedDeltas(Map<Account, BigDecimal> deltas, String batchMarker);
+}
@@ -0,0 +1,157 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class AccountRepositoryImpl implements AccountRepositoryCustom {
+    
+    private static final FindOneAndUpdateOptions RETURN_UPDATED = new FindOneAndUpdateOptions()
+            .returnDocument(ReturnDocument.AFTER)
+            .projection(Projections.exclude("customer"));
+    
+    private static final BulkWriteOptions ORDERED = new BulkWriteOptions().ordered(true);
+    
+    private static final int BULK_CHUNK_SIZE = 500;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public Optional<Account> creditBalance(String accountNumber, BigDecimal amount) {
+        return findAndIncrement(activeAccount(accountNumber), amount);
+    }
+    
+    @Override
+    public Optional<Account> debitBalance(String accountNumber, BigDecimal amount) {
+        Document filter = activeAccount(accountNumber)
+                .append("$expr", new Document("$gte", List.of(balanceAsDecimal(), new Decimal128(amount))));
+        return findAndIncrement(filter, amount.negate());
+    }
+    
+    @Override
+    public Optional<Account> adjustBalance(String accountNumber, BigDecimal delta) {
+        return findAndIncrement(new Document("accountNumber", accountNumber), delta);
+    }
+    
+    @Override
+    public Optional<Account> updateStatus(String accountNumber, Account.AccountStatus status) {
+        List<Bson> update = List.of(new Document("$set", new Document("status", status.name())
+                .append("version", nextVersion())
+                .append("updatedAt", "$$NOW")));
+        return findAndModify(new Document("accountNumber", accountNumber), update);
+    }
+    
+    @Override
+    public List<Account> findSnapshots(Collection<String> accountNumbers) {
+        Query query = new Query(Criteria.where("accountNumber").in(accountNumbers));
+        query.fields().exclude("customer");
+        return mongoTemplate.find(query, Account.class);
+    }
+    
+    @Override
+    public Set<String> applyVersionedDeltas(Map<Account, BigDecimal> deltas, String batchMarker) {
+        MongoCollection<Document> accounts = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Account.class));
+        Set<String> applied = new HashSet<>();
+        
+        List<Account> chunk = new ArrayList<>(BULK_CHUNK_SIZE);
+        for (Account account : deltas.keySet()) {
+            chunk.add(account);
+            if (chunk.size() == BULK_CHUNK_SIZE) {
+                applied.addAll(applyChunk(accounts, chunk, deltas, batchMarker));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applied.addAll(applyChunk(accounts, chunk, deltas, batchMarker));
+        }
+        return applied;
+    }
+    
+    private Set<String> applyChunk(MongoCollection<Document> accounts, List<Account> chunk,
+                                   Map<Account, BigDecimal> deltas, String batchMarker) {
+        List<WriteModel<Document>> writes = new ArrayList<>(chunk.size());
+        Set<String> accountNumbers = new HashSet<>();
+        
+        for (Account account : chunk) {
+            Document filter = new Document("accountNumber", account.getAccountNumber())
+                    .append("version", account.getVersion());
+            List<Bson> update = List.of(new Document("$set", new Document()
+                    .append("balance", new Document("$add", List.of(balanceAsDecimal(), new Decimal128(deltas.get(account)))))
+                    .append("version", nextVersion())
+                    .append("updatedAt", "$$NOW")
+                    .append("lastTransactionDate", "$$NOW")
+                    .append("lastBatchId", batchMarker)));
+            writes.add(new UpdateOneModel<>(filter, update));
+            accountNumbers.add(account.getAccountNumber());
+        }
+        
+        BulkWriteResult result = accounts.bulkWrite(writes, ORDERED);
+        if (result.getMatchedCount() == writes.size()) {
+            return accountNumbers;
+        }
+        
+        // Some versions moved under us; the marker identifies exactly which updates landed
+        Set<String> applied = new HashSet<>();
+        accounts.find(new Document("accountNumber", new Document("$in", accountNumbers))
+                        .append("lastBatchId", batchMarker))
+                .projection(Projections.include("accountNumber"))
+                .forEach(document -> applied.add(document.getString("accountNumber")));
+        return applied;
+    }
+    
+    /**
+     * Server-side equivalent of the ACTIVE half of Account#canWithdraw
+     */
+    private Document activeAccount(String accountNumber) {
+        return new Document("accountNumber", accountNumber)
+                .append("status", Account.AccountStatus.ACTIVE.name());
+    }
+    
+    private Optional<Account> findAndIncrement(Document filter, BigDecimal delta) {
+        // Pipeline update so legacy string-encoded balances are normalized to Decimal128 in place
+        List<Bson> update = List.of(new Document("$set", new Document()
+                .append("balance", new Document("$add", List.of(balanceAsDecimal(), new Decimal128(delta))))
+                .append("version", nextVersion())
+                .append("updatedAt", "$$NOW")
+                .append("lastTransactionDate", "$$NOW")));
+        return findAndModify(filter, update);
+    }
+    
+    private Optional<Account> findAndModify(Document filter, List<Bson> update) {
+        Document updated = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Account.class))
+                .findOneAndUpdate(filter, update, RETURN_UPDATED);
+        return Optional.ofNullable(updated)
+                .map(document -> mongoTemplate.getConverter().read(Account.class, document));
+    }
+    
+    private static Document balanceAsDecimal() {
+        return new Document("$toDecimal", "$balance");
+    }
+    
+    private static Document nextVersion() {
+        return new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L));
+    }
+}
@@ -0,0 +1,42 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.AuditLog;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Audit log queries over the monthly partitions.
+ * Range queries only touch the partitions overlapping the range; the others fan out over all of them.
+ */
+public interface AuditLogRepositoryCustom {
+    
+    Optional<AuditLog> findByActionId(String actionId);
+    
+    List<AuditLog> findByUserId(String userId);
+    
+    List<AuditLog> findByAction(String action);
+    
+    List<AuditLog> findByEntityType(String entityType);
+    
+    List<AuditLog> findByEntityId(String entityId);
+    
+    List<AuditLog> findByResult(String result);
+    
+    List<AuditLog> findByTimestampBetween(LocalDateTime startDate, LocalDateTime endDate);
+    
+    List<AuditLog> findByUserIdAndTimestampBetween(String userId, LocalDateTime startDate, LocalDateTime endDate);
+    
+    List<AuditLog> findByEntityAndTimestampBetween(String entityType, String entityId, LocalDateTime startDate, LocalDateTime endDate);
+    
+    List<AuditLog> findByEntityTypeAndEntityId(String entityType, String entityId);
+    
+    List<AuditLog> findByActionAndTimestampBetween(String action, LocalDateTime startDate, LocalDateTime endDate);
+    
+    boolean existsByActionId(String actionId);
+    
+    List<AuditLog> findAll();
+    
+    long count();
+}
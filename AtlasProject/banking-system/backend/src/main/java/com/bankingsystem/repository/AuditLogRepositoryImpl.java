@@ -0,0 +1,140 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.util.AuditPartitions;
+import com.bankingsystem.util.IdGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class AuditLogRepositoryImpl implements AuditLogRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private AuditPartitions auditPartitions;
+    
+    @Override
+    public Optional<AuditLog> findByActionId(String actionId) {
+        Query query = new Query(Criteria.where("actionId").is(actionId));
+        
+        // Time-ordered IDs name their month, so the lookup normally touches a single partition
+        long id = IdGenerator.parse(actionId);
+        if (id >= 0) {
+            LocalDateTime issuedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(IdGenerator.timestampMillis(id)), ZoneId.systemDefault());
+            AuditLog found = mongoTemplate.findOne(query, AuditLog.class, AuditPartitions.partitionFor(issuedAt));
+            if (found != null) {
+                return Optional.of(found);
+            }
+        }
+        for (String collection : auditPartitions.allCollections()) {
+            AuditLog found = mongoTemplate.findOne(query, AuditLog.class, collection);
+            if (found != null) {
+                return Optional.of(found);
+            }
+        }
+        return Optional.empty();
+    }
+    
+    @Override
+    public List<AuditLog> findByUserId(String userId) {
+        return findEverywhere(new Query(Criteria.where("userId").is(userId)));
+    }
+    
+    @Override
+    public List<AuditLog> findByAction(String action) {
+        return findEverywhere(new Query(Criteria.where("action").is(action)));
+    }
+    
+    @Override
+    public List<AuditLog> findByEntityType(String entityType) {
+        return findEverywhere(new Query(Criteria.where("entityType").is(entityType)));
+    }
+    
+    @Override
+    public List<AuditLog> findByEntityId(String entityId) {
+        return findEverywhere(new Query(Criteria.where("entityId").is(entityId)));
+    }
+    
+    @Override
+    public List<AuditLog> findByResult(String result) {
+        return findEverywhere(new Query(Criteria.where("result").is(result)));
+    }
+    
+    @Override
+    public List<AuditLog> findByTimestampBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        return findBetween(null, startDate, endDate);
+    }
+    
+    @Override
+    public List<AuditLog> findByUserIdAndTimestampBetween(String userId, LocalDateTime startDate, LocalDateTime endDate) {
+        return findBetween(Criteria.where("userId").is(userId), startDate, endDate);
+    }
+    
+    @Override
+    public List<AuditLog> findByEntityAndTimestampBetween(String entityType, String entityId,
+                                                          LocalDateTime startDate, LocalDateTime endDate) {
+        return findBetween(Criteria.where("entityType").is(entityType).and("entityId").is(entityId), startDate, endDate);
+    }
+    
+    @Override
+    public List<AuditLog> findByEntityTypeAndEntityId(String entityType, String entityId) {
+        return findEverywhere(new Query(Criteria.where("entityType").is(entityType).and("entityId").is(entityId)));
+    }
+    
+    @Override
+    public List<AuditLog> findByActionAndTimestampBetween(String action, LocalDateTime startDate, LocalDateTime endDate) {
+        return findBetween(Criteria.where("action").is(action), startDate, endDate);
+    }
+    
+    @Override
+    public boolean existsByActionId(String actionId) {
+        return findByActionId(actionId).isPresent();
+    }
+    
+    @Override
+    public List<AuditLog> findAll() {
+        return findEverywhere(new Query());
+    }
+    
+    @Override
+    public long count() {
+        long count = 0;
+        for (String collection : auditPartitions.allCollections()) {
+            count += mongoTemplate.getCollection(collection).estimatedDocumentCount();
+        }
+        return count;
+    }
+    
+    /**
+     * Query only the partitions whose month overlaps the range; the timestamp index does the rest
+     */
+    private List<AuditLog> findBetween(Criteria criteria, LocalDateTime startDate, LocalDateTime endDate) {
+        Query query = new Query(Criteria.where("timestamp").gte(startDate).lte(endDate));
+        if (criteria != null) {
+            query.addCriteria(criteria);
+        }
+        List<AuditLog> results = new ArrayList<>();
+        for (String collection : auditPartitions.collectionsBetween(startDate, endDate)) {
+            results.addAll(mongoTemplate.find(query, AuditLog.class, collection));
+        }
+        return results;
+    }
+    
+    private List<AuditLog> findEverywhere(Query query) {
+        List<AuditLog> results = new ArrayList<>();
+        for (String collection : auditPartitions.allCollections()) {
+            results.addAll(mongoTemplate.find(query, AuditLog.class, collection));
+        }
+        return results;
+    }
+}
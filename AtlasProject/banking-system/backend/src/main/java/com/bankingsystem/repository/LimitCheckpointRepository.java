@@ -0,0 +1,16 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.LimitCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LimitCheckpointRepository extends MongoRepository<LimitCheckpoint, String> {
+    
+    List<LimitCheckpoint> findByCheckpointedAtAfter(LocalDateTime since);
+    
+    void deleteByCheckpointedAtBefore(LocalDateTime cutoff);
+}
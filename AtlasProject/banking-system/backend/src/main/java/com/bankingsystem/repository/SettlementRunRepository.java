@@ -0,0 +1,16 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.SettlementRun;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SettlementRunRepository extends MongoRepository<SettlementRun, String> {
+    
+    List<SettlementRun> findTop20ByOrderByStartedAtDesc();
+    
+    Optional<SettlementRun> findFirstByOrderByStartedAtDesc();
+}
@@ -0,0 +1,16 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.SyncJob;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SyncJobRepository extends MongoRepository<SyncJob, String> {
+    
+    List<SyncJob> findByStatusIn(Collection<SyncJob.JobStatus> statuses);
+    
+    List<SyncJob> findTop20ByOrderByCreatedAtDesc();
+}
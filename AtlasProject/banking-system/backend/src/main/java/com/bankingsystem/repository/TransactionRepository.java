@@ -11,7 +11,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends MongoRepository<Transaction, String> {
+public interface TransactionRepository extends MongoRepository<Transaction, String>, TransactionRepositoryCustom {
     
     Optional<Transaction> findByTransactionId(String transactionId);
     
@@ -19,6 +19,10 @@ public interface TransactionRepository extends MongoRepository<Transaction, Stri
     
     List<Transaction> findByDestinationAccount(Account destinationAccount);
     
+    List<Transaction> findBySourceAccountAndType(Account sourceAccount, Transaction.TransactionType type);
+    
+    List<Transaction> findByDestinationAccountAndType(Account destinationAccount, Transaction.TransactionType type);
+    
     List<Transaction> findBySourceAccountOrDestinationAccount(Account sourceAccount, Account destinationAccount);
     
     List<Transaction> findByType(Transaction.TransactionType type);
@@ -37,4 +41,8 @@ public interface TransactionRepository extends MongoRepository<Transaction, Stri
     List<Transaction> findAccountTransactionsByDateRange(Account account, LocalDateTime startDate, LocalDateTime endDate);
     
     boolean existsByTransactionId(String transactionId);
+    
+    List<Transaction> findByTransactionIdIn(List<String> transactionIds);
+    
+    Optional<Transaction> findFirstByReversalOfAndStatus(String reversalOf, Transaction.TransactionStatus status);
 }
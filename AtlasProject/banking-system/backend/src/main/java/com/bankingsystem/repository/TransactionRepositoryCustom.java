@@ -0,0 +1,30 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.HistoryCursor;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Conditional status changes that let exactly one caller move a transaction between states,
+ * and keyset-paged history reads
+ */
+public interface TransactionRepositoryCustom {
+    
+    /**
+     * Set the status only if it is still the expected one; false if another caller changed it first
+     */
+    boolean compareAndSetStatus(String transactionId, Transaction.TransactionStatus expected,
+                                Transaction.TransactionStatus status, String remarks);
+    
+    /**
+     * Up to limit transactions of the given types made by the account, and received by it if
+     * includeIncoming, newest first, within the optional date range and after the optional cursor
+     */
+    List<Transaction> findHistoryPage(Account account, boolean includeIncoming,
+                                      Collection<Transaction.TransactionType> types, LocalDateTime startDate,
+                                      LocalDateTime endDate, HistoryCursor after, int limit);
+}
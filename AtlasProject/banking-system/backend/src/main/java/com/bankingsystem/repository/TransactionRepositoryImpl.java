@@ -0,0 +1,83 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.HistoryCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public boolean compareAndSetStatus(String transactionId, Transaction.TransactionStatus expected,
+                                       Transaction.TransactionStatus status, String remarks) {
+        Query query = new Query(Criteria.where("transactionId").is(transactionId).and("status").is(expected));
+        Update update = new Update()
+                .set("status", status)
+                .set("updatedAt", LocalDateTime.now());
+        if (remarks != null) {
+            update.set("remarks", remarks);
+        } else {
+            update.unset("remarks");
+        }
+        return mongoTemplate.updateFirst(query, update, Transaction.class).getMatchedCount() > 0;
+    }
+    
+    @Override
+    public List<Transaction> findHistoryPage(Account account, boolean includeIncoming,
+                                             Collection<Transaction.TransactionType> types, LocalDateTime startDate,
+                                             LocalDateTime endDate, HistoryCursor after, int limit) {
+        List<Criteria> sides = new ArrayList<>(2);
+        sides.add(historySide("sourceAccount", account, types, startDate, endDate, after));
+        if (includeIncoming) {
+            sides.add(historySide("destinationAccount", account, types, startDate, endDate, after));
+        }
+        
+        List<Criteria> filters = new ArrayList<>(2);
+        filters.add(sides.size() == 1 ? sides.get(0) : new Criteria().orOperator(sides));
+        if (after != null) {
+            // The date bound keeps the cursor's own date; drop the entries up to and including the cursor there
+            filters.add(new Criteria().norOperator(Criteria.where("transactionDate").is(after.getTransactionDate())
+                    .and("transactionId").gte(after.getTransactionId())));
+        }
+        Query query = new Query(new Criteria().andOperator(filters))
+                .with(Sort.by(Sort.Direction.DESC, "transactionDate", "transactionId"))
+                .limit(limit);
+        return mongoTemplate.find(query, Transaction.class);
+    }
+    
+    /**
+     * One side of the account, shaped to match the account + type + transactionDate index so each
+     * side reads only the index range it returns
+     */
+    private static Criteria historySide(String side, Account account, Collection<Transaction.TransactionType> types,
+                                        LocalDateTime startDate, LocalDateTime endDate, HistoryCursor after) {
+        Criteria criteria = Criteria.where(side).is(account).and("type").in(types);
+        LocalDateTime upper = endDate;
+        if (after != null && (upper == null || after.getTransactionDate().isBefore(upper))) {
+            upper = after.getTransactionDate();
+        }
+        if (startDate != null || upper != null) {
+            Criteria date = criteria.and("transactionDate");
+            if (startDate != null) {
+                date.gte(startDate);
+            }
+            if (upper != null) {
+                date.lte(upper);
+            }
+        }
+        return criteria;
+    }
+}
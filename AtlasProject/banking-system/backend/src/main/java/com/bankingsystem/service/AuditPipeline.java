@@ -0,0 +1,291 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.codec.AuditLogCodec;
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.util.AuditPartitions;
+import com.bankingsystem.util.AuditSpool;
+import com.bankingsystem.util.DynamoBatchWriter;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves audit records off the request path.
+ * Producers enqueue into a bounded queue; a single flusher thread drains up to
+ * banking.audit.batch-size records at a time and writes them with one unordered MongoDB
+ * insert and 25-item DynamoDB batch writes. When the queue is full the overflow policy decides
+ * whether the producer waits, writes inline, or drops the record.
+ */
+@Component
+public class AuditPipeline {
+    
+    public enum OverflowPolicy {
+        BLOCK,
+        CALLER_RUNS,
+        DROP
+    }
+    
+    private static final int MAX_MONGO_ATTEMPTS = 3;
+    private static final int DUPLICATE_KEY = 11000;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private AuditPartitions auditPartitions;
+    
+    @Autowired
+    private DynamoBatchWriter dynamoBatchWriter;
+    
+    @Autowired
+    private AuditSpool auditSpool;
+    
+    @Autowired
+    private AuditLogCodec auditLogCodec;
+    
+    @Autowired
+    private AuditStatsService auditStatsService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.audit.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${banking.audit.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${banking.audit.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+    
+    @Value("${banking.audit.block-timeout-ms:500}")
+    private long blockTimeoutMillis;
+    
+    @Value("${banking.audit.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+    
+    private BlockingQueue<AuditLog> queue;
+    private Thread flusher;
+    private volatile boolean running;
+    
+    private Counter droppedCounter;
+    private Counter inlineCounter;
+    private Counter mongoWritten;
+    private Counter mongoFailed;
+    private Counter dynamoWritten;
+    private Counter dynamoFailed;
+    private Counter dynamoSpooled;
+    private Timer flushTimer;
+    
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        
+        Gauge.builder("banking.audit.queue.depth", queue, BlockingQueue::size)
+                .description("Audit records waiting to be flushed")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("banking.audit.dropped")
+                .description("Audit records discarded because the queue was full")
+                .register(meterRegistry);
+        inlineCounter = Counter.builder("banking.audit.inline")
+                .description("Audit records written on the caller thread because the queue was full")
+                .register(meterRegistry);
+        mongoWritten = Counter.builder("banking.audit.written").tag("store", "mongodb").register(meterRegistry);
+        mongoFailed = Counter.builder("banking.audit.failed").tag("store", "mongodb").register(meterRegistry);
+        dynamoWritten = Counter.builder("banking.audit.written").tag("store", "dynamodb").register(meterRegistry);
+        dynamoFailed = Counter.builder("banking.audit.failed").tag("store", "dynamodb").register(meterRegistry);
+        dynamoSpooled = Counter.builder("banking.audit.spooled")
+                .description("Audit records diverted to the local spool for later DynamoDB delivery")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("banking.audit.flush")
+                .description("Time to write one batch of audit records to both stores")
+                .register(meterRegistry);
+        
+        running = true;
+        flusher = new Thread(this::runFlusher, "audit-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        // The flusher notices within one poll interval and drains what is left before exiting
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Hand a record to the pipeline; never performs I/O unless the queue is full and the policy says so
+     */
+    public void submit(AuditLog auditLog) {
+        if (queue.offer(auditLog)) {
+            return;
+        }
+        
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (queue.offer(auditLog, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                writeInline(auditLog);
+                break;
+            case CALLER_RUNS:
+                writeInline(auditLog);
+                break;
+            default:
+                droppedCounter.increment();
+                System.err.println("❌ Audit queue full, dropped " + auditLog.getActionId());
+        }
+    }
+    
+    /**
+     * Get the number of records waiting to be flushed
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+    
+    private void writeInline(AuditLog auditLog) {
+        inlineCounter.increment();
+        write(List.of(auditLog));
+    }
+    
+    private void runFlusher() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = running ? queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS) : queue.poll();
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("❌ Audit flush failed: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void write(List<AuditLog> batch) {
+        flushTimer.record(() -> {
+            writeToMongo(batch);
+            writeToDynamo(batch);
+        });
+    }
+    
+    /**
+     * Split the batch by monthly partition; a batch normally falls into a single month
+     */
+    private void writeToMongo(List<AuditLog> batch) {
+        Map<String, List<AuditLog>> byPartition = new HashMap<>();
+        for (AuditLog auditLog : batch) {
+            byPartition.computeIfAbsent(auditPartitions.ensurePartition(auditLog.getTimestamp()), k -> new ArrayList<>())
+                    .add(auditLog);
+        }
+        byPartition.forEach(this::writeToPartition);
+    }
+    
+    /**
+     * Unordered bulk insert; only the records that failed for reasons other than already existing are retried.
+     * Records that land are counted in the audit statistics.
+     */
+    private void writeToPartition(String collection, List<AuditLog> batch) {
+        List<AuditLog> pending = batch;
+        for (int attempt = 1; attempt <= MAX_MONGO_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AuditLog.class, collection)
+                        .insert(pending)
+                        .execute();
+                mongoWritten.increment(pending.size());
+                pending.forEach(auditStatsService::record);
+                return;
+            } catch (BulkOperationException e) {
+                Set<Integer> failedIndexes = new HashSet<>();
+                List<AuditLog> retry = new ArrayList<>();
+                for (BulkWriteError error : e.getErrors()) {
+                    failedIndexes.add(error.getIndex());
+                    if (error.getCode() != DUPLICATE_KEY) {
+                        retry.add(pending.get(error.getIndex()));
+                    }
+                }
+                for (int i = 0; i < pending.size(); i++) {
+                    if (!failedIndexes.contains(i)) {
+                        auditStatsService.record(pending.get(i));
+                    }
+                }
+                mongoWritten.increment(pending.size() - retry.size());
+                pending = retry;
+            } catch (DataAccessException e) {
+                System.err.println("❌ Audit insert attempt " + attempt + " failed: " + e.getMessage());
+            }
+        }
+        if (!pending.isEmpty()) {
+            mongoFailed.increment(pending.size());
+            System.err.println("❌ Failed to save " + pending.size() + " audit logs to " + collection);
+        }
+    }
+    
+    /**
+     * Batch write to DynamoDB; anything that cannot be delivered goes to the spool.
+     * While the spool has a backlog the endpoint is treated as down and records are spooled directly,
+     * which keeps their order and keeps DynamoDB retries off the flusher.
+     */
+    private void writeToDynamo(List<AuditLog> batch) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(batch.size());
+        for (AuditLog auditLog : batch) {
+            items.add(auditLogCodec.encode(auditLog));
+        }
+        
+        List<Map<String, AttributeValue>> undelivered = auditSpool.hasPending()
+                ? items
+                : dynamoBatchWriter.putAll(AuditLogCodec.TABLE, items);
+        dynamoWritten.increment(items.size() - undelivered.size());
+        if (undelivered.isEmpty()) {
+            return;
+        }
+        
+        try {
+            auditSpool.append(undelivered);
+            dynamoSpooled.increment(undelivered.size());
+        } catch (Exception e) {
+            dynamoFailed.increment(undelivered.size());
+            System.err.println("❌ Failed to spool " + undelivered.size() + " audit logs for DynamoDB: " + e.getMessage());
+        }
+    }
+}
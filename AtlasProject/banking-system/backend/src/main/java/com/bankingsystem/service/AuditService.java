@@ -2,20 +2,14 @@ package com.bankingsystem.service;
 
 import com.bankingsystem.model.AuditLog;
 import com.bankingsystem.repository.AuditLogRepository;
+import com.bankingsystem.util.IdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
-import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 @Service
 public class AuditService {
@@ -24,17 +18,24 @@ public class AuditService {
     private AuditLogRepository auditLogRepository;
     
     @Autowired
-    private DynamoDbClient dynamoDbClient;
+    private AuditPipeline auditPipeline;
     
-    private static final String DYNAMODB_TABLE_NAME = "BankingAuditLogs";
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Value("${banking.audit.enabled:true}")
+    private boolean auditEnabled;
     
     /**
-     * Log an action to both MongoDB and DynamoDB
+     * Log an action to both MongoDB and DynamoDB via the audit pipeline
      */
     public void logAction(String userId, String action, String entityType, String entityId, 
                          String description, Map<String, Object> details, String ipAddress, String userAgent) {
+        if (!auditEnabled) {
+            return;
+        }
         
-        String actionId = UUID.randomUUID().toString();
+        String actionId = idGenerator.nextId(IdGenerator.AUDIT);
         AuditLog auditLog = new AuditLog(actionId, userId, action, entityType, entityId);
         auditLog.setDescription(description);
         auditLog.setDetails(details);
@@ -42,11 +43,8 @@ public class AuditService {
         auditLog.setUserAgent(userAgent);
         auditLog.markAsSuccess(description);
         
-        // Save to MongoDB
-        auditLogRepository.save(auditLog);
-        
-        // Save to DynamoDB asynchronously
-        saveToDynamoDBAsync(auditLog);
+        // Persisted in batches off the request thread
+        auditPipeline.submit(auditLog);
     }
     
     /**
@@ -61,16 +59,17 @@ public class AuditService {
      */
     public void logFailure(String userId, String action, String entityType, String entityId, 
                           String description, String errorMessage) {
-        String actionId = UUID.randomUUID().toString();
+        if (!auditEnabled) {
+            return;
+        }
+        
+        String actionId = idGenerator.nextId(IdGenerator.AUDIT);
         AuditLog auditLog = new AuditLog(actionId, userId, action, entityType, entityId);
         auditLog.setDescription(description);
         auditLog.markAsFailure(errorMessage);
         
-        // Save to MongoDB
-        auditLogRepository.save(auditLog);
-        
-        // Save to DynamoDB asynchronously
-        saveToDynamoDBAsync(auditLog);
+        // Persisted in batches off the request thread
+        auditPipeline.submit(auditLog);
     }
     
     /**
@@ -107,41 +106,4 @@ public class AuditService {
     public List<AuditLog> getAllAuditLogs() {
         return auditLogRepository.findAll();
     }
-    
-    /**
-     * Save audit log to DynamoDB asynchronously
-     */
-    private void saveToDynamoDBAsync(AuditLog auditLog) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                Map<String, AttributeValue> item = new HashMap<>();
-                item.put("ActionID", AttributeValue.builder().s(auditLog.getActionId()).build());
-                item.put("Timestamp", AttributeValue.builder().s(auditLog.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build());
-                item.put("UserId", AttributeValue.builder().s(auditLog.getUserId()).build());
-                item.put("Action", AttributeValue.builder().s(auditLog.getAction()).build());
-                item.put("EntityType", AttributeValue.builder().s(auditLog.getEntityType()).build());
-                item.put("EntityId", AttributeValue.builder().s(auditLog.getEntityId() != null ? auditLog.getEntityId() : "").build());
-                item.put("Description", AttributeValue.builder().s(auditLog.getDescription() != null ? auditLog.getDescription() : "").build());
-                item.put("Result", AttributeValue.builder().s(auditLog.getResult() != null ? auditLog.getResult() : "").build());
-                item.put("ErrorMessage", AttributeValue.builder().s(auditLog.getErrorMessage() != null ? auditLog.getErrorMessage() : "").build());
-                item.put("IpAddress", AttributeValue.builder().s(auditLog.getIpAddress() != null ? auditLog.getIpAddress() : "").build());
-                item.put("UserAgent", AttributeValue.builder().s(auditLog.getUserAgent() != null ? auditLog.getUserAgent() : "").build());
-                
-                if (auditLog.getDetails() != null) {
-                    item.put("Details", AttributeValue.builder().s(auditLog.getDetails().toString()).build());
-                }
-                
-                PutItemRequest putItemRequest = PutItemRequest.builder()
-                        .tableName(DYNAMODB_TABLE_NAME)
-                        .item(item)
-                        .build();
-                
-                PutItemResponse response = dynamoDbClient.putItem(putItemRequest);
-                System.out.println("Audit log saved to DynamoDB: " + response.toString());
-                
-            } catch (Exception e) {
-                System.err.println("Failed to save audit log to DynamoDB: " + e.getMessage());
-            }
-        });
-    }
 }
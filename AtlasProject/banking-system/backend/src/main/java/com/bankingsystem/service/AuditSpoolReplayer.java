@@ -0,0 +1,127 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.codec.AuditLogCodec;
+import com.bankingsystem.util.AuditSpool;
+import com.bankingsystem.util.DynamoBatchWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the audit spool into DynamoDB once the endpoint is reachable again.
+ * Replay is rate limited so a recovering endpoint is not flooded; a batch is only committed
+ * after every item in it was written, and re-sending a batch is harmless because puts are idempotent.
+ */
+@Component
+public class AuditSpoolReplayer {
+    
+    @Autowired
+    private AuditSpool auditSpool;
+    
+    @Autowired
+    private DynamoBatchWriter dynamoBatchWriter;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.audit.spool.replay-rate:100}")
+    private int replayRatePerSecond;
+    
+    @Value("${banking.audit.spool.replay-batch-size:100}")
+    private int replayBatchSize;
+    
+    @Value("${banking.audit.spool.idle-interval-ms:1000}")
+    private long idleIntervalMillis;
+    
+    @Value("${banking.audit.spool.max-backoff-ms:30000}")
+    private long maxBackoffMillis;
+    
+    private Thread replayer;
+    private volatile boolean running;
+    
+    private Counter replayedCounter;
+    private Timer replayTimer;
+    
+    @PostConstruct
+    public void start() {
+        replayedCounter = Counter.builder("banking.audit.spool.replayed")
+                .description("Spooled audit items delivered to DynamoDB")
+                .register(meterRegistry);
+        replayTimer = Timer.builder("banking.audit.spool.replay")
+                .description("Time to deliver one spooled batch")
+                .register(meterRegistry);
+        
+        running = true;
+        replayer = new Thread(this::run, "audit-spool-replayer");
+        replayer.setDaemon(true);
+        replayer.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        replayer.interrupt();
+    }
+    
+    private void run() {
+        long backoffMillis = idleIntervalMillis;
+        while (running) {
+            try {
+                AuditSpool.Batch batch = auditSpool.peek(replayBatchSize);
+                if (batch.isEmpty()) {
+                    if (auditSpool.hasPending()) {
+                        // Only consumed segment tails were skipped; record the new position
+                        auditSpool.commit(batch);
+                    }
+                    Thread.sleep(idleIntervalMillis);
+                    continue;
+                }
+                
+                long started = System.nanoTime();
+                List<Map<String, AttributeValue>> failed =
+                        dynamoBatchWriter.putAll(AuditLogCodec.TABLE, batch.getItems());
+                if (!failed.isEmpty()) {
+                    // Endpoint still unavailable; keep the batch and back off
+                    Thread.sleep(backoffMillis);
+                    backoffMillis = Math.min(backoffMillis * 2, maxBackoffMillis);
+                    continue;
+                }
+                
+                auditSpool.commit(batch);
+                long elapsedNanos = System.nanoTime() - started;
+                replayTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+                replayedCounter.increment(batch.getItems().size());
+                backoffMillis = idleIntervalMillis;
+                
+                // Keep below the configured replay rate
+                long minimumMillis = batch.getItems().size() * 1000L / Math.max(1, replayRatePerSecond);
+                long remainingMillis = minimumMillis - TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+                if (remainingMillis > 0) {
+                    Thread.sleep(remainingMillis);
+                }
+                
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("❌ Audit spool replay failed: " + e.getMessage());
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.model.AuditStatsBucket;
+import com.bankingsystem.util.AuditPartitions;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Audit statistics maintained as counters instead of scans over the audit log.
+ * Every record persisted by the audit pipeline bumps the global counters and its hour bucket.
+ * Hour deltas are flushed to audit_stats with $inc, and on startup the hours since the last
+ * flush are recomputed from the audit log with one aggregation, so a crash loses nothing.
+ */
+@Service
+public class AuditStatsService {
+    
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private AuditPartitions auditPartitions;
+    
+    private final Counts global = new Counts();
+    private final ConcurrentSkipListMap<Long, HourBucket> hours = new ConcurrentSkipListMap<>();
+    
+    /**
+     * Load persisted hour buckets and rebuild the ones that may be missing unflushed counts
+     */
+    @PostConstruct
+    public void reconcile() {
+        try {
+            List<AuditStatsBucket> stored = mongoTemplate.findAll(AuditStatsBucket.class);
+            LocalDateTime lastFlush = stored.stream()
+                    .map(AuditStatsBucket::getFlushedAt)
+                    .filter(flushedAt -> flushedAt != null)
+                    .max(LocalDateTime::compareTo)
+                    .orElse(null);
+            Long fromHour = lastFlush != null ? hourOf(lastFlush) : null;
+            
+            for (AuditStatsBucket bucket : stored) {
+                if (fromHour == null || bucket.getHour() < fromHour) {
+                    hours.put(bucket.getHour(), HourBucket.from(bucket));
+                }
+            }
+            
+            Map<Long, HourBucket> recomputed = aggregateHours(fromHour);
+            hours.putAll(recomputed);
+            replaceStoredHours(fromHour, recomputed);
+            
+            hours.values().forEach(bucket -> global.addAll(bucket.counts));
+            System.out.println("✅ Audit stats reconciled: " + global.total.sum() + " logs across " + hours.size() + " hours");
+            
+        } catch (Exception e) {
+            System.err.println("❌ Failed to reconcile audit stats: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Count a record that has been persisted
+     */
+    public void record(AuditLog auditLog) {
+        HourBucket bucket = hours.computeIfAbsent(hourOf(auditLog.getTimestamp()), hour -> new HourBucket());
+        global.add(auditLog.getResult(), auditLog.getAction(), auditLog.getEntityType(), 1);
+        bucket.counts.add(auditLog.getResult(), auditLog.getAction(), auditLog.getEntityType(), 1);
+        bucket.unflushed.add(auditLog.getResult(), auditLog.getAction(), auditLog.getEntityType(), 1);
+    }
+    
+    /**
+     * Get all-time statistics
+     */
+    public Map<String, Object> getStats() {
+        return global.toMap();
+    }
+    
+    /**
+     * Get statistics for a time range with an hourly or daily breakdown
+     */
+    public Map<String, Object> getStats(LocalDateTime from, LocalDateTime to, boolean daily) {
+        Counts range = new Counts();
+        Map<LocalDateTime, Counts> breakdown = new LinkedHashMap<>();
+        
+        for (Map.Entry<Long, HourBucket> entry : hours.subMap(hourOf(from), true, hourOf(to), true).entrySet()) {
+            LocalDateTime hourStart = startOf(entry.getKey());
+            LocalDateTime key = daily ? hourStart.truncatedTo(ChronoUnit.DAYS) : hourStart;
+            range.addAll(entry.getValue().counts);
+            breakdown.computeIfAbsent(key, k -> new Counts()).addAll(entry.getValue().counts);
+        }
+        
+        List<Map<String, Object>> series = new ArrayList<>();
+        breakdown.forEach((start, counts) -> {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("start", start);
+            point.put("totalLogs", counts.total.sum());
+            point.put("successLogs", counts.success.sum());
+            point.put("failureLogs", counts.failure.sum());
+            series.add(point);
+        });
+        
+        Map<String, Object> stats = range.toMap();
+        stats.put("from", from);
+        stats.put("to", to);
+        stats.put("granularity", daily ? "day" : "hour");
+        stats.put("breakdown", series);
+        return stats;
+    }
+    
+    /**
+     * Push unflushed hour deltas to audit_stats; concurrent instances add up because every write is an $inc
+     */
+    @Scheduled(fixedDelayString = "${banking.audit.stats.flush-interval:30000}")
+    public void flush() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Counts> deltas = new HashMap<>();
+        hours.forEach((hour, bucket) -> {
+            if (bucket.unflushed.total.sum() > 0) {
+                deltas.put(hour, bucket.unflushed.drain());
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, AuditStatsBucket.class);
+            deltas.forEach((hour, delta) -> {
+                Update update = new Update()
+                        .setOnInsert("hourStart", startOf(hour))
+                        .set("flushedAt", now)
+                        .inc("total", delta.total.sum())
+                        .inc("success", delta.success.sum())
+                        .inc("failure", delta.failure.sum());
+                delta.actions.forEach((action, count) -> update.inc("actions." + fieldKey(action), count.sum()));
+                delta.entityTypes.forEach((entityType, count) -> update.inc("entityTypes." + fieldKey(entityType), count.sum()));
+                bulk.upsert(new Query(Criteria.where("_id").is(hour)), update);
+            });
+            bulk.execute();
+            
+        } catch (Exception e) {
+            // Put the deltas back so the next run retries them
+            deltas.forEach((hour, delta) -> hours.get(hour).unflushed.addAll(delta));
+            System.err.println("❌ Failed to persist audit stats: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Group audit records by hour, result, action and entity type, from the given hour onwards or over everything.
+     * Only the partitions that can hold such records are aggregated.
+     */
+    private Map<Long, HourBucket> aggregateHours(Long fromHour) {
+        List<Document> pipeline = new ArrayList<>();
+        if (fromHour != null) {
+            pipeline.add(new Document("$match", new Document("timestamp",
+                    new Document("$gte", Date.from(startOf(fromHour).atZone(ZoneId.systemDefault()).toInstant())))));
+        }
+        pipeline.add(new Document("$group", new Document("_id", new Document()
+                .append("hour", new Document("$floor", new Document("$divide",
+                        List.of(new Document("$toLong", "$timestamp"), MILLIS_PER_HOUR))))
+                .append("result", "$result")
+                .append("action", "$action")
+                .append("entityType", "$entityType"))
+                .append("count", new Document("$sum", 1))));
+        
+        Map<Long, HourBucket> recomputed = new HashMap<>();
+        for (String collection : auditPartitions.collectionsBetween(fromHour != null ? startOf(fromHour) : null, null)) {
+            mongoTemplate.getCollection(collection)
+                    .aggregate(pipeline)
+                    .allowDiskUse(true)
+                    .forEach(row -> {
+                        Document key = row.get("_id", Document.class);
+                        long hour = ((Number) key.get("hour")).longValue();
+                        recomputed.computeIfAbsent(hour, h -> new HourBucket()).counts.add(key.getString("result"),
+                                key.getString("action"), key.getString("entityType"), ((Number) row.get("count")).longValue());
+                    });
+        }
+        return recomputed;
+    }
+    
+    private void replaceStoredHours(Long fromHour, Map<Long, HourBucket> recomputed) {
+        Query stale = fromHour != null ? new Query(Criteria.where("_id").gte(fromHour)) : new Query();
+        mongoTemplate.remove(stale, AuditStatsBucket.class);
+        if (recomputed.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<AuditStatsBucket> documents = new ArrayList<>();
+        recomputed.forEach((hour, bucket) -> documents.add(bucket.counts.toDocument(hour, startOf(hour), now)));
+        mongoTemplate.insert(documents, AuditStatsBucket.class);
+    }
+    
+    private static long hourOf(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / MILLIS_PER_HOUR;
+    }
+    
+    private static LocalDateTime startOf(long hour) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(hour * MILLIS_PER_HOUR), ZoneId.systemDefault());
+    }
+    
+    // Field names in audit_stats cannot contain dots or start with '$'
+    private static String fieldKey(String name) {
+        return name.replace('.', '_').replace('$', '_');
+    }
+    
+    private static class HourBucket {
+        private final Counts counts = new Counts();
+        private final Counts unflushed = new Counts();
+        
+        private static HourBucket from(AuditStatsBucket stored) {
+            HourBucket bucket = new HourBucket();
+            bucket.counts.total.add(stored.getTotal());
+            bucket.counts.success.add(stored.getSuccess());
+            bucket.counts.failure.add(stored.getFailure());
+            stored.getActions().forEach((action, count) -> bucket.counts.counter(bucket.counts.actions, action).add(count));
+            stored.getEntityTypes().forEach((entityType, count) -> bucket.counts.counter(bucket.counts.entityTypes, entityType).add(count));
+            return bucket;
+        }
+    }
+    
+    private static class Counts {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder success = new LongAdder();
+        private final LongAdder failure = new LongAdder();
+        private final ConcurrentHashMap<String, LongAdder> actions = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, LongAdder> entityTypes = new ConcurrentHashMap<>();
+        
+        private void add(String result, String action, String entityType, long count) {
+            total.add(count);
+            if ("SUCCESS".equals(result)) {
+                success.add(count);
+            } else if ("FAILURE".equals(result)) {
+                failure.add(count);
+            }
+            if (action != null) {
+                counter(actions, fieldKey(action)).add(count);
+            }
+            if (entityType != null) {
+                counter(entityTypes, fieldKey(entityType)).add(count);
+            }
+        }
+        
+        private void addAll(Counts other) {
+            total.add(other.total.sum());
+            success.add(other.success.sum());
+            failure.add(other.failure.sum());
+            other.actions.forEach((action, count) -> counter(actions, action).add(count.sum()));
+            other.entityTypes.forEach((entityType, count) -> counter(entityTypes, entityType).add(count.sum()));
+        }
+        
+        /**
+         * Move the current values into a new instance and reset these counters
+         */
+        private Counts drain() {
+            Counts drained = new Counts();
+            drained.total.add(total.sumThenReset());
+            drained.success.add(success.sumThenReset());
+            drained.failure.add(failure.sumThenReset());
+            actions.forEach((action, count) -> drained.counter(drained.actions, action).add(count.sumThenReset()));
+            entityTypes.forEach((entityType, count) -> drained.counter(drained.entityTypes, entityType).add(count.sumThenReset()));
+            return drained;
+        }
+        
+        private LongAdder counter(ConcurrentHashMap<String, LongAdder> counters, String key) {
+            return counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        
+        private Map<String, Object> toMap() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("totalLogs", total.sum());
+            stats.put("successLogs", success.sum());
+            stats.put("failureLogs", failure.sum());
+            stats.put("actionCounts", sums(actions));
+            stats.put("entityTypeCounts", sums(entityTypes));
+            return stats;
+        }
+        
+        private AuditStatsBucket toDocument(long hour, LocalDateTime hourStart, LocalDateTime flushedAt) {
+            AuditStatsBucket document = new AuditStatsBucket();
+            document.setHour(hour);
+            document.setHourStart(hourStart);
+            document.setTotal(total.sum());
+            document.setSuccess(success.sum());
+            document.setFailure(failure.sum());
+            document.setActions(sums(actions));
+            document.setEntityTypes(sums(entityTypes));
+            document.setFlushedAt(flushedAt);
+            return document;
+        }
+        
+        private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+            Map<String, Long> sums = new HashMap<>();
+            counters.forEach((key, count) -> {
+                long sum = count.sum();
+                if (sum > 0) {
+                    sums.put(key, sum);
+                }
+            });
+            return sums;
+        }
+    }
+}
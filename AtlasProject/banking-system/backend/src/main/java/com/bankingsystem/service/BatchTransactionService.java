@@ -0,0 +1,490 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.util.AccountCache;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.SettlementQueue;
+import com.bankingsystem.util.UndoRedoStack;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies thousands of deposits, withdrawals and transfers in one request.
+ * Operations are grouped by account, simulated against a snapshot in submission order,
+ * and written as one version-guarded net update per account with ordered bulk writes.
+ * Transfer credits are applied after all debits; a credit that cannot land is refunded with an
+ * unconditional adjustment, and any refund that still fails is reported on its item and audited.
+ */
+@Service
+public class BatchTransactionService {
+    
+    private static final int MAX_APPLY_ATTEMPTS = 3;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private AuditService auditService;
+    
+    @Autowired
+    private UndoRedoStack undoRedoStack;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private SettlementQueue settlementQueue;
+    
+    @Autowired
+    private AccountCache accountCache;
+    
+    @Autowired
+    private TransactionLimitService transactionLimits;
+    
+    @Value("${banking.transaction.batch.max-operations:10000}")
+    private int maxOperations;
+    
+    /**
+     * Process a batch of operations and return one result per item, in request order
+     */
+    public BatchResult processBatch(List<BatchOperation> operations, String userId) {
+        if (operations == null || operations.isEmpty()) {
+            throw new RuntimeException("Batch must contain at least one operation");
+        }
+        if (operations.size() > maxOperations) {
+            throw new RuntimeException("Batch exceeds the limit of " + maxOperations + " operations");
+        }
+        
+        String batchId = idGenerator.nextId(IdGenerator.BATCH);
+        BatchItemResult[] results = new BatchItemResult[operations.size()];
+        TransactionLimitService.Reservation[] reservations = new TransactionLimitService.Reservation[operations.size()];
+        
+        // Validate and load every referenced account in one query
+        Set<String> accountNumbers = new LinkedHashSet<>();
+        for (int i = 0; i < operations.size(); i++) {
+            String error = validate(operations.get(i));
+            if (error != null) {
+                results[i] = BatchItemResult.failed(i, error);
+                continue;
+            }
+            accountNumbers.add(operations.get(i).getAccountNumber());
+            if (operations.get(i).getType() == Transaction.TransactionType.TRANSFER) {
+                accountNumbers.add(operations.get(i).getDestinationAccountNumber());
+            }
+        }
+        Map<String, Account> snapshots = new HashMap<>();
+        accountRepository.findSnapshots(accountNumbers).forEach(account -> snapshots.put(account.getAccountNumber(), account));
+        
+        // Phase 1: deposits, withdrawals and transfer debits, in submission order per account
+        Map<String, List<Leg>> firstPhase = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            BatchOperation operation = operations.get(i);
+            if (!snapshots.containsKey(operation.getAccountNumber())) {
+                results[i] = BatchItemResult.failed(i, "Account not found: " + operation.getAccountNumber());
+                continue;
+            }
+            if (operation.getType() == Transaction.TransactionType.TRANSFER) {
+                Account destination = snapshots.get(operation.getDestinationAccountNumber());
+                if (destination == null) {
+                    results[i] = BatchItemResult.failed(i, "Destination account not found: " + operation.getDestinationAccountNumber());
+                    continue;
+                }
+            }
+            boolean credit = operation.getType() == Transaction.TransactionType.DEPOSIT;
+            if (!credit) {
+                try {
+                    reservations[i] = transactionLimits.reserveDebit(operation.getAccountNumber(), operation.getAmount());
+                } catch (RuntimeException e) {
+                    results[i] = BatchItemResult.failed(i, e.getMessage());
+                    continue;
+                }
+            }
+            addLeg(firstPhase, operation.getAccountNumber(), new Leg(i, credit ? operation.getAmount() : operation.getAmount().negate()));
+        }
+        Set<Integer> contended = new HashSet<>();
+        Set<Integer> firstPhaseApplied = apply(firstPhase, snapshots, batchId + ":debit", contended);
+        
+        // Phase 2: credit the destinations of transfers whose debit landed
+        Map<String, List<Leg>> secondPhase = new LinkedHashMap<>();
+        for (int index : firstPhaseApplied) {
+            BatchOperation operation = operations.get(index);
+            if (operation.getType() == Transaction.TransactionType.TRANSFER) {
+                addLeg(secondPhase, operation.getDestinationAccountNumber(), new Leg(index, operation.getAmount()));
+            }
+        }
+        Set<Integer> secondPhaseApplied = apply(secondPhase, snapshots, batchId + ":credit", contended);
+        
+        // Phase 3: refund transfer debits whose credit could not be applied
+        Map<String, List<Leg>> refunds = new LinkedHashMap<>();
+        for (List<Leg> legs : secondPhase.values()) {
+            for (Leg leg : legs) {
+                if (!secondPhaseApplied.contains(leg.index)) {
+                    addLeg(refunds, operations.get(leg.index).getAccountNumber(), new Leg(leg.index, leg.amount));
+                }
+            }
+        }
+        Set<Integer> unrefunded = refund(refunds, batchId, userId);
+        
+        // Record the completed operations with a single insertMany
+        List<Transaction> transactions = new ArrayList<>();
+        BigDecimal totalCredited = BigDecimal.ZERO;
+        BigDecimal totalDebited = BigDecimal.ZERO;
+        for (int i = 0; i < operations.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            BatchOperation operation = operations.get(i);
+            boolean transfer = operation.getType() == Transaction.TransactionType.TRANSFER;
+            
+            if (!firstPhaseApplied.contains(i)) {
+                results[i] = BatchItemResult.failed(i, contended.contains(i)
+                        ? "Account was updated concurrently, please resubmit"
+                        : rejectionReason(operation, snapshots.get(operation.getAccountNumber())));
+                continue;
+            }
+            if (transfer && !secondPhaseApplied.contains(i)) {
+                String reason = contended.contains(i)
+                        ? "Destination account was updated concurrently, please resubmit"
+                        : "Destination account is not active: " + operation.getDestinationAccountNumber();
+                results[i] = BatchItemResult.failed(i, unrefunded.contains(i)
+                        ? reason + "; the debit from account " + operation.getAccountNumber() + " could not be refunded"
+                        : reason);
+                continue;
+            }
+            
+            String transactionId = idGenerator.nextId(idPrefix(operation.getType()));
+            Transaction transaction = new Transaction(transactionId, operation.getType(), operation.getAmount(),
+                    snapshots.get(operation.getAccountNumber()),
+                    transfer ? snapshots.get(operation.getDestinationAccountNumber()) : null,
+                    operation.getDescription() != null ? operation.getDescription() : "Batch " + batchId);
+            transaction.setReferenceNumber(batchId);
+            transaction.markAsCompleted();
+            transaction.setSettlementPending(true);
+            transactions.add(transaction);
+            results[i] = BatchItemResult.succeeded(i, transactionId);
+            
+            if (operation.getType() == Transaction.TransactionType.DEPOSIT) {
+                totalCredited = totalCredited.add(operation.getAmount());
+            } else {
+                totalDebited = totalDebited.add(operation.getAmount());
+            }
+        }
+        // The balances have already moved, so a failure here is reported rather than thrown
+        String recordingError = null;
+        if (!transactions.isEmpty()) {
+            try {
+                mongoTemplate.insert(transactions, Transaction.class);
+                settlementQueue.enqueueAll(transactions);
+            } catch (RuntimeException e) {
+                recordingError = e.getMessage();
+                System.err.println("❌ Batch " + batchId + " applied " + transactions.size()
+                        + " operations but failed to record them: " + e.getMessage());
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i].isSuccess()) {
+                        results[i] = BatchItemResult.unrecorded(i, results[i].getTransactionId(), recordingError);
+                    }
+                }
+            }
+        }
+        
+        // Debits that did not go through no longer count against the daily limit
+        for (int i = 0; i < operations.size(); i++) {
+            if (reservations[i] != null && !results[i].isSuccess()) {
+                transactionLimits.release(reservations[i]);
+            }
+        }
+        
+        // Only recorded transactions can be undone
+        if (recordingError == null) {
+            for (Transaction transaction : transactions) {
+                undoRedoStack.pushUndo(transaction.getSourceAccount().getId(), transaction);
+                if (transaction.getDestinationAccount() != null) {
+                    undoRedoStack.pushUndo(transaction.getDestinationAccount().getId(), transaction);
+                }
+            }
+        }
+        
+        // One summarized audit record for the whole batch
+        int succeeded = transactions.size();
+        int failed = operations.size() - succeeded;
+        Map<String, Object> details = new HashMap<>();
+        details.put("batchId", batchId);
+        details.put("totalOperations", operations.size());
+        details.put("succeeded", succeeded);
+        details.put("failed", failed);
+        details.put("accountsTouched", accountNumbers.size());
+        details.put("totalCredited", totalCredited);
+        details.put("totalDebited", totalDebited);
+        if (!unrefunded.isEmpty()) {
+            details.put("unrefunded", unrefunded);
+        }
+        
+        String summary = "Batch of " + operations.size() + " operations: " + succeeded + " succeeded, " + failed + " failed";
+        if (recordingError != null) {
+            details.put("recordingError", recordingError);
+            auditService.logFailure(userId, "BATCH_TRANSACTIONS", "BATCH", batchId,
+                    summary + "; the transactions could not be recorded", recordingError);
+        }
+        auditService.logAction(userId, "BATCH_TRANSACTIONS", "BATCH", batchId, summary, details, null, null);
+        
+        return new BatchResult(batchId, succeeded, failed, List.of(results), recordingError);
+    }
+    
+    /**
+     * Credit back transfer debits whose credit did not land, one unconditional adjustment per
+     * source account, so a concurrent write to the account cannot make a refund fail.
+     * Returns the items whose refund still could not be applied; each is audited as a failure.
+     */
+    private Set<Integer> refund(Map<String, List<Leg>> refunds, String batchId, String userId) {
+        Set<Integer> unrefunded = new LinkedHashSet<>();
+        refunds.forEach((accountNumber, legs) -> {
+            BigDecimal total = legs.stream().map(leg -> leg.amount).reduce(BigDecimal.ZERO, BigDecimal::add);
+            String error;
+            try {
+                error = accountRepository.adjustBalance(accountNumber, total)
+                        .map(accountCache::refresh)
+                        .isPresent() ? null : "Account not found: " + accountNumber;
+            } catch (RuntimeException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                legs.forEach(leg -> unrefunded.add(leg.index));
+                System.err.println("❌ Batch " + batchId + " could not refund ₹" + total + " to account "
+                        + accountNumber + ": " + error);
+                auditService.logFailure(userId, "BATCH_REFUND", "ACCOUNT", accountNumber,
+                        "Batch " + batchId + " could not refund ₹" + total + " of failed transfer debits", error);
+            }
+        });
+        return unrefunded;
+    }
+    
+    /**
+     * Simulate each account's legs against its snapshot and write one net update per account.
+     * Accounts that changed concurrently are re-read and retried a bounded number of times.
+     */
+    private Set<Integer> apply(Map<String, List<Leg>> legsByAccount, Map<String, Account> snapshots,
+                               String marker, Set<Integer> contended) {
+        Set<Integer> applied = new LinkedHashSet<>();
+        Map<String, List<Leg>> pending = new LinkedHashMap<>(legsByAccount);
+        
+        for (int attempt = 1; attempt <= MAX_APPLY_ATTEMPTS && !pending.isEmpty(); attempt++) {
+            if (attempt > 1) {
+                accountRepository.findSnapshots(pending.keySet())
+                        .forEach(account -> snapshots.put(account.getAccountNumber(), account));
+            }
+            
+            Map<Account, BigDecimal> deltas = new LinkedHashMap<>();
+            Map<String, List<Leg>> acceptedByAccount = new HashMap<>();
+            for (Map.Entry<String, List<Leg>> entry : pending.entrySet()) {
+                Account account = snapshots.get(entry.getKey());
+                List<Leg> accepted = simulate(account, entry.getValue());
+                if (!accepted.isEmpty()) {
+                    deltas.put(account, accepted.stream().map(leg -> leg.amount).reduce(BigDecimal.ZERO, BigDecimal::add));
+                    acceptedByAccount.put(entry.getKey(), accepted);
+                }
+            }
+            
+            Set<String> landed = deltas.isEmpty()
+                    ? Set.of()
+                    : accountRepository.applyVersionedDeltas(deltas, marker + ":" + attempt);
+            
+            Map<String, List<Leg>> retry = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Leg>> entry : pending.entrySet()) {
+                if (landed.contains(entry.getKey())) {
+                    acceptedByAccount.get(entry.getKey()).forEach(leg -> applied.add(leg.index));
+                    
+                    // The version guard held, so the snapshot can be advanced without re-reading it
+                    Account account = snapshots.get(entry.getKey());
+                    account.setBalance(account.getBalance().add(deltas.get(account)));
+                    account.setVersion(account.getVersion() != null ? account.getVersion() + 1 : 1L);
+                    
+                    // Bulk writes return no documents, so drop the cached copy instead of merging
+                    accountCache.evict(entry.getKey());
+                } else if (acceptedByAccount.containsKey(entry.getKey())) {
+                    retry.put(entry.getKey(), entry.getValue());
+                }
+            }
+            pending = retry;
+        }
+        
+        // Whatever is still pending lost every race against concurrent single-operation writes
+        pending.values().forEach(legs -> legs.forEach(leg -> contended.add(leg.index)));
+        return applied;
+    }
+    
+    /**
+     * Walk the legs in order against a running balance
+     */
+    private List<Leg> simulate(Account account, List<Leg> legs) {
+        List<Leg> accepted = new ArrayList<>();
+        boolean active = account.getStatus() == Account.AccountStatus.ACTIVE;
+        BigDecimal running = account.getBalance();
+        
+        for (Leg leg : legs) {
+            if (active && running.add(leg.amount).signum() >= 0) {
+                running = running.add(leg.amount);
+                accepted.add(leg);
+            }
+        }
+        return accepted;
+    }
+    
+    private void addLeg(Map<String, List<Leg>> legsByAccount, String accountNumber, Leg leg) {
+        legsByAccount.computeIfAbsent(accountNumber, k -> new ArrayList<>()).add(leg);
+    }
+    
+    private String validate(BatchOperation operation) {
+        if (operation == null || operation.getType() == null) {
+            return "Operation type is required";
+        }
+        if (operation.getType() != Transaction.TransactionType.DEPOSIT
+                && operation.getType() != Transaction.TransactionType.WITHDRAWAL
+                && operation.getType() != Transaction.TransactionType.TRANSFER) {
+            return "Unsupported operation type: " + operation.getType();
+        }
+        if (operation.getAccountNumber() == null || operation.getAccountNumber().isBlank()) {
+            return "Account number is required";
+        }
+        if (operation.getAmount() == null || operation.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be greater than zero";
+        }
+        try {
+            transactionLimits.validateAmount(operation.getAmount());
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+        if (operation.getType() == Transaction.TransactionType.TRANSFER) {
+            if (operation.getDestinationAccountNumber() == null || operation.getDestinationAccountNumber().isBlank()) {
+                return "Destination account number is required";
+            }
+            if (operation.getAccountNumber().equals(operation.getDestinationAccountNumber())) {
+                return "Cannot transfer to the same account";
+            }
+        }
+        return null;
+    }
+    
+    private String rejectionReason(BatchOperation operation, Account account) {
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return "Account is not active: " + operation.getAccountNumber();
+        }
+        return "Insufficient balance in account " + operation.getAccountNumber();
+    }
+    
+    private String idPrefix(Transaction.TransactionType type) {
+        switch (type) {
+            case DEPOSIT:
+                return IdGenerator.DEPOSIT;
+            case WITHDRAWAL:
+                return IdGenerator.WITHDRAWAL;
+            default:
+                return IdGenerator.TRANSFER;
+        }
+    }
+    
+    private static class Leg {
+        private final int index;
+        private final BigDecimal amount;
+        
+        Leg(int index, BigDecimal amount) {
+            this.index = index;
+            this.amount = amount;
+        }
+    }
+    
+    // Inner classes for request/response
+    public static class BatchOperation {
+        private Transaction.TransactionType type;
+        private String accountNumber;
+        private String destinationAccountNumber;
+        private BigDecimal amount;
+        private String description;
+        
+        // Getters and setters
+        public Transaction.TransactionType getType() { return type; }
+        public void setType(Transaction.TransactionType type) { this.type = type; }
+        public String getAccountNumber() { return accountNumber; }
+        public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+        public String getDestinationAccountNumber() { return destinationAccountNumber; }
+        public void setDestinationAccountNumber(String destinationAccountNumber) { this.destinationAccountNumber = destinationAccountNumber; }
+        public BigDecimal getAmount() { return amount; }
+        public void setAmount(BigDecimal amount) { this.amount = amount; }
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+    }
+    
+    public static class BatchItemResult {
+        private final int index;
+        private final boolean success;
+        private final String transactionId;
+        private final String message;
+        
+        private BatchItemResult(int index, boolean success, String transactionId, String message) {
+            this.index = index;
+            this.success = success;
+            this.transactionId = transactionId;
+            this.message = message;
+        }
+        
+        static BatchItemResult succeeded(int index, String transactionId) {
+            return new BatchItemResult(index, true, transactionId, null);
+        }
+        
+        static BatchItemResult failed(int index, String message) {
+            return new BatchItemResult(index, false, null, message);
+        }
+        
+        // Money moved but the transaction record was not saved
+        static BatchItemResult unrecorded(int index, String transactionId, String error) {
+            return new BatchItemResult(index, true, transactionId, "Applied, but the transaction could not be recorded: " + error);
+        }
+        
+        public int getIndex() { return index; }
+        public boolean isSuccess() { return success; }
+        public String getTransactionId() { return transactionId; }
+        public String getMessage() { return message; }
+    }
+    
+    public static class BatchResult {
+        private final String batchId;
+        private final int succeeded;
+        private final int failed;
+        private final List<BatchItemResult> results;
+        private final String recordingError;
+        
+        public BatchResult(String batchId, int succeeded, int failed, List<BatchItemResult> results,
+                           String recordingError) {
+            this.batchId = batchId;
+            this.succeeded = succeeded;
+            this.failed = failed;
+            this.results = results;
+            this.recordingError = recordingError;
+        }
+        
+        public String getBatchId() { return batchId; }
+        public int getSucceeded() { return succeeded; }
+        public int getFailed() { return failed; }
+        public List<BatchItemResult> getResults() { return results; }
+        public String getRecordingError() { return recordingError; }
+    }
+}
@@ -0,0 +1,470 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.codec.AccountCodec;
+import com.bankingsystem.codec.CustomerCodec;
+import com.bankingsystem.codec.ItemCodec;
+import com.bankingsystem.codec.TransactionCodec;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Customer;
+import com.bankingsystem.model.SyncCheckpoint;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.SyncCheckpointRepository;
+import com.bankingsystem.util.DynamoBatchWriter;
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Continuous incremental sync from MongoDB to DynamoDB driven by change streams.
+ * Each synced collection has its own watcher thread; only inserted, updated, replaced and deleted
+ * documents are written, in batches, and the resume token is persisted to sync_checkpoints after
+ * every applied batch so a restart continues where it stopped. Change streams need a replica set
+ * (a single-node one is enough), so the mode is off unless banking.sync.change-streams.enabled is set.
+ * Audit logs are not watched here because the audit pipeline already delivers them to DynamoDB.
+ * When a stream loses history it cannot resume past, its checkpoint is flagged as needing a full
+ * sync; the flag stays on the status until a full sync job that started after it completes.
+ */
+@Service
+public class ChangeStreamSyncService {
+    
+    // Server error codes meaning the stored resume token can no longer be used
+    private static final int CHANGE_STREAM_FATAL = 280;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private DynamoBatchWriter dynamoBatchWriter;
+    
+    @Autowired
+    private DataSyncService dataSyncService;
+    
+    @Autowired
+    private SyncCheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private CustomerCodec customerCodec;
+    
+    @Autowired
+    private AccountCodec accountCodec;
+    
+    @Autowired
+    private TransactionCodec transactionCodec;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.sync.change-streams.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${banking.sync.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${banking.sync.max-await-ms:1000}")
+    private long maxAwaitMillis;
+    
+    @Value("${banking.sync.idle-checkpoint-ms:10000}")
+    private long idleCheckpointMillis;
+    
+    @Value("${banking.sync.max-backoff-ms:30000}")
+    private long maxBackoffMillis;
+    
+    private final List<CollectionSync> syncs = new ArrayList<>();
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void start() {
+        syncs.add(collectionSync(Customer.class, customerCodec, null));
+        syncs.add(collectionSync(Account.class, accountCodec, "accountNumber"));
+        syncs.add(collectionSync(Transaction.class, transactionCodec, "transactionId"));
+        
+        for (CollectionSync sync : syncs) {
+            Gauge.builder("banking.sync.lag.seconds", sync, CollectionSync::lagSeconds)
+                    .tag("collection", sync.collection)
+                    .description("Age of the newest change applied to DynamoDB while behind")
+                    .register(meterRegistry);
+        }
+        if (!enabled) {
+            return;
+        }
+        
+        dataSyncService.createDynamoDBTables();
+        running = true;
+        for (CollectionSync sync : syncs) {
+            enablePreImages(sync);
+            Thread watcher = new Thread(() -> watch(sync), "sync-" + sync.collection);
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+        System.out.println("✅ Change stream sync started for " + syncs.size() + " collections");
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+    
+    /**
+     * Per-collection lag, backlog and throughput
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, LocalDateTime> fullSyncRequired = new HashMap<>();
+        for (SyncCheckpoint checkpoint : checkpointRepository.findAll()) {
+            if (checkpoint.getFullSyncRequiredSince() != null) {
+                fullSyncRequired.put(checkpoint.getCollection(), checkpoint.getFullSyncRequiredSince());
+            }
+        }
+        
+        Map<String, Object> collections = new LinkedHashMap<>();
+        for (CollectionSync sync : syncs) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("table", sync.table);
+            status.put("state", sync.state);
+            status.put("inserts", sync.inserts.get());
+            status.put("updates", sync.updates.get());
+            status.put("deletes", sync.deletes.get());
+            status.put("skipped", sync.skipped.get());
+            status.put("pendingEvents", sync.pending);
+            status.put("lagSeconds", sync.lagSeconds());
+            status.put("eventsPerSecond", sync.eventsPerSecond());
+            status.put("lastEventAt", sync.lastEventAt);
+            status.put("lastError", sync.lastError);
+            status.put("fullSyncRequired", fullSyncRequired.containsKey(sync.collection));
+            status.put("fullSyncRequiredSince", fullSyncRequired.get(sync.collection));
+            collections.put(sync.collection, status);
+        }
+        
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("fullSyncRequired", !fullSyncRequired.isEmpty());
+        status.put("collections", collections);
+        return status;
+    }
+    
+    private void watch(CollectionSync sync) {
+        long backoffMillis = maxAwaitMillis;
+        while (running) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = open(sync)) {
+                sync.state = "RUNNING";
+                sync.lastError = null;
+                backoffMillis = maxAwaitMillis;
+                long lastCheckpoint = System.currentTimeMillis();
+                
+                while (running) {
+                    List<ChangeStreamDocument<Document>> events = new ArrayList<>();
+                    ChangeStreamDocument<Document> event;
+                    // tryNext waits up to the max await time for new changes
+                    while (events.size() < batchSize && (event = cursor.tryNext()) != null) {
+                        events.add(event);
+                        sync.pending = events.size();
+                    }
+                    
+                    if (!events.isEmpty()) {
+                        apply(sync, events);
+                        ChangeStreamDocument<Document> last = events.get(events.size() - 1);
+                        saveCheckpoint(sync, last.getResumeToken(), sync.lastEventAt);
+                        lastCheckpoint = System.currentTimeMillis();
+                    } else {
+                        sync.caughtUp = true;
+                        // The post-batch token moves with the oplog even when nothing changes here
+                        if (System.currentTimeMillis() - lastCheckpoint >= idleCheckpointMillis && cursor.getResumeToken() != null) {
+                            saveCheckpoint(sync, cursor.getResumeToken(), sync.lastEventAt);
+                            lastCheckpoint = System.currentTimeMillis();
+                        }
+                    }
+                    sync.pending = 0;
+                }
+                
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST || e.getErrorCode() == CHANGE_STREAM_FATAL) {
+                    // Changes were missed; continue from now and leave a full sync to close the gap
+                    try {
+                        requireFullSync(sync);
+                    } catch (Exception ignored) {
+                        // Retried when the stream fails again
+                    }
+                    sync.lastError = "Resume token expired, run a full sync: " + e.getErrorMessage();
+                    System.err.println("❌ Change stream for " + sync.collection + " lost its history, full sync required");
+                } else {
+                    backoffMillis = fail(sync, e, backoffMillis);
+                }
+            } catch (Exception e) {
+                backoffMillis = fail(sync, e, backoffMillis);
+            }
+        }
+        sync.state = "STOPPED";
+    }
+    
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(CollectionSync sync) {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(sync.collection)
+                .watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .fullDocumentBeforeChange(sync.preImageKey != null ? FullDocumentBeforeChange.WHEN_AVAILABLE : FullDocumentBeforeChange.OFF)
+                .batchSize(batchSize)
+                .maxAwaitTime(maxAwaitMillis, TimeUnit.MILLISECONDS);
+        
+        checkpointRepository.findById(sync.collection)
+                .filter(checkpoint -> checkpoint.getResumeToken() != null)
+                .ifPresent(checkpoint -> {
+                    // startAfter also resumes after an invalidate event, which resumeAfter cannot
+                    stream.startAfter(BsonDocument.parse(checkpoint.getResumeToken()));
+                    sync.lastEventAt = checkpoint.getLastEventAt();
+                });
+        return stream.cursor();
+    }
+    
+    /**
+     * Collapse the batch to the last change per key and write it; a failure leaves the checkpoint untouched
+     */
+    private void apply(CollectionSync sync, List<ChangeStreamDocument<Document>> events) {
+        Map<String, WriteRequest> writes = new LinkedHashMap<>();
+        int inserts = 0;
+        int updates = 0;
+        int deletes = 0;
+        
+        for (ChangeStreamDocument<Document> event : events) {
+            if (event.getClusterTime() != null) {
+                sync.lastEventAt = LocalDateTime.ofInstant(Instant.ofEpochSecond(event.getClusterTime().getTime()), ZoneId.systemDefault());
+            }
+            switch (event.getOperationType()) {
+                case INSERT:
+                case UPDATE:
+                case REPLACE:
+                    if (event.getFullDocument() == null) {
+                        // Deleted before the lookup; the delete event follows
+                        sync.skipped.incrementAndGet();
+                        continue;
+                    }
+                    Map<String, AttributeValue> item = sync.mapper.apply(event.getFullDocument());
+                    AttributeValue key = item.get(sync.keyAttribute);
+                    if (key == null) {
+                        sync.skipped.incrementAndGet();
+                        continue;
+                    }
+                    writes.remove(key.s());
+                    writes.put(key.s(), WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+                    if (event.getOperationType() == OperationType.INSERT) {
+                        inserts++;
+                    } else {
+                        updates++;
+                    }
+                    break;
+                case DELETE:
+                    String deletedKey = deletedKey(sync, event);
+                    if (deletedKey == null) {
+                        System.err.println("❌ No pre-image for delete in " + sync.collection + ", cannot remove it from DynamoDB");
+                        sync.skipped.incrementAndGet();
+                        continue;
+                    }
+                    writes.remove(deletedKey);
+                    writes.put(deletedKey, WriteRequest.builder().deleteRequest(DeleteRequest.builder()
+                            .key(Map.of(sync.keyAttribute, AttributeValue.fromS(deletedKey))).build()).build());
+                    deletes++;
+                    break;
+                default:
+                    // Drops, renames and invalidations carry no document
+                    break;
+            }
+        }
+        
+        List<WriteRequest> failed = dynamoBatchWriter.writeAll(sync.table, new ArrayList<>(writes.values()));
+        if (!failed.isEmpty()) {
+            throw new RuntimeException(failed.size() + " changes could not be written to " + sync.table);
+        }
+        sync.record(inserts, updates, deletes);
+        sync.caughtUp = events.size() < batchSize;
+    }
+    
+    /**
+     * The DynamoDB key of a deleted document: its _id for customers, otherwise a field of the pre-image
+     */
+    private static String deletedKey(CollectionSync sync, ChangeStreamDocument<Document> event) {
+        if (sync.preImageKey == null) {
+            BsonValue id = event.getDocumentKey() != null ? event.getDocumentKey().get("_id") : null;
+            if (id == null) {
+                return null;
+            }
+            return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.isString() ? id.asString().getValue() : id.toString();
+        }
+        Document before = event.getFullDocumentBeforeChange();
+        return before != null ? before.getString(sync.preImageKey) : null;
+    }
+    
+    /**
+     * Pre-images (MongoDB 6.0+) let deletes be mapped to accountNumber or transactionId
+     */
+    private void enablePreImages(CollectionSync sync) {
+        if (sync.preImageKey == null) {
+            return;
+        }
+        try {
+            mongoTemplate.executeCommand(new Document("collMod", sync.collection)
+                    .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+        } catch (Exception e) {
+            System.err.println("❌ Could not enable pre-images on " + sync.collection + ", deletes will be skipped: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Move the resume token forward, leaving a pending full sync flag in place
+     */
+    private void saveCheckpoint(CollectionSync sync, BsonDocument resumeToken, LocalDateTime lastEventAt) {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(sync.collection)), new Update()
+                .set("resumeToken", resumeToken.toJson())
+                .set("lastEventAt", lastEventAt)
+                .set("updatedAt", LocalDateTime.now()), SyncCheckpoint.class);
+    }
+    
+    /**
+     * Drop the unusable resume token and flag the collection; an existing flag keeps its earlier time
+     */
+    private void requireFullSync(CollectionSync sync) {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(sync.collection)), new Update()
+                .unset("resumeToken")
+                .min("fullSyncRequiredSince", now)
+                .set("updatedAt", now), SyncCheckpoint.class);
+    }
+    
+    private long fail(CollectionSync sync, Exception e, long backoffMillis) {
+        sync.state = "RETRYING";
+        sync.lastError = e.getMessage();
+        System.err.println("❌ Change stream sync for " + sync.collection + " failed: " + e.getMessage());
+        try {
+            Thread.sleep(backoffMillis);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        return Math.min(backoffMillis * 2, maxBackoffMillis);
+    }
+    
+    /**
+     * Watch the collection of a model and encode its documents with the model's codec
+     */
+    private <T> CollectionSync collectionSync(Class<T> type, ItemCodec<T> codec, String preImageKey) {
+        return new CollectionSync(mongoTemplate.getCollectionName(type), codec.tableName(), codec.hashKey(), preImageKey,
+                document -> codec.encode(read(type, document)));
+    }
+    
+    private <T> T read(Class<T> type, Document document) {
+        return mongoTemplate.getConverter().read(type, document);
+    }
+    
+    /**
+     * Watch state and counters of one synced collection
+     */
+    private class CollectionSync {
+        private static final long RATE_WINDOW_MILLIS = 10_000;
+        
+        private final String collection;
+        private final String table;
+        private final String keyAttribute;
+        private final String preImageKey;
+        private final Function<Document, Map<String, AttributeValue>> mapper;
+        
+        private final AtomicLong inserts = new AtomicLong();
+        private final AtomicLong updates = new AtomicLong();
+        private final AtomicLong deletes = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final Counter insertCounter;
+        private final Counter updateCounter;
+        private final Counter deleteCounter;
+        
+        private volatile String state = "DISABLED";
+        private volatile String lastError;
+        private volatile LocalDateTime lastEventAt;
+        private volatile boolean caughtUp = true;
+        private volatile int pending;
+        
+        // Throughput over the last completed window
+        private long windowStart = System.currentTimeMillis();
+        private long windowEvents;
+        private volatile double eventsPerSecond;
+        
+        private CollectionSync(String collection, String table, String keyAttribute, String preImageKey,
+                               Function<Document, Map<String, AttributeValue>> mapper) {
+            this.collection = collection;
+            this.table = table;
+            this.keyAttribute = keyAttribute;
+            this.preImageKey = preImageKey;
+            this.mapper = mapper;
+            this.insertCounter = counter("insert");
+            this.updateCounter = counter("update");
+            this.deleteCounter = counter("delete");
+        }
+        
+        private Counter counter(String operation) {
+            return Counter.builder("banking.sync.events")
+                    .tag("collection", collection)
+                    .tag("operation", operation)
+                    .description("Changes applied to DynamoDB by the change stream sync")
+                    .register(meterRegistry);
+        }
+        
+        private synchronized void record(int insertCount, int updateCount, int deleteCount) {
+            inserts.addAndGet(insertCount);
+            updates.addAndGet(updateCount);
+            deletes.addAndGet(deleteCount);
+            insertCounter.increment(insertCount);
+            updateCounter.increment(updateCount);
+            deleteCounter.increment(deleteCount);
+            windowEvents += insertCount + updateCount + deleteCount;
+        }
+        
+        private synchronized double eventsPerSecond() {
+            long now = System.currentTimeMillis();
+            if (now - windowStart >= RATE_WINDOW_MILLIS) {
+                eventsPerSecond = windowEvents * 1000.0 / (now - windowStart);
+                windowStart = now;
+                windowEvents = 0;
+            }
+            return eventsPerSecond;
+        }
+        
+        private double lagSeconds() {
+            LocalDateTime last = lastEventAt;
+            if (caughtUp || last == null) {
+                return 0;
+            }
+            return Math.max(0, Duration.between(last, LocalDateTime.now()).toMillis() / 1000.0);
+        }
+    }
+}
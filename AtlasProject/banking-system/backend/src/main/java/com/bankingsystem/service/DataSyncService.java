@@ -1,309 +1,426 @@
 package com.bankingsystem.service;
 
-import com.bankingsystem.model.Customer;
-import com.bankingsystem.model.Account;
-import com.bankingsystem.model.Transaction;
-import com.bankingsystem.model.AuditLog;
-import com.bankingsystem.repository.CustomerRepository;
-import com.bankingsystem.repository.AccountRepository;
-import com.bankingsystem.repository.TransactionRepository;
-import com.bankingsystem.repository.AuditLogRepository;
+import com.bankingsystem.codec.AccountCodec;
+import com.bankingsystem.codec.AuditLogCodec;
+import com.bankingsystem.codec.CustomerCodec;
+import com.bankingsystem.codec.TransactionCodec;
+import com.bankingsystem.model.SyncCheckpoint;
+import com.bankingsystem.model.SyncJob;
+import com.bankingsystem.repository.SyncJobRepository;
+import com.bankingsystem.util.IdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.BillingMode;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Full MongoDB to DynamoDB syncs run as background jobs on a dedicated single-thread executor.
+ * At most one job is active; a second request gets the active job back instead of starting another.
+ * Job progress is checkpointed to sync_jobs, and a job whose checkpoints stop (because the process
+ * died) is claimed and resumed from its last position instead of starting over.
+ */
 @Service
 public class DataSyncService {
     
+    private static final Set<SyncJob.JobStatus> ACTIVE_STATUSES = EnumSet.of(SyncJob.JobStatus.QUEUED, SyncJob.JobStatus.RUNNING);
+    
     @Autowired
-    private CustomerRepository customerRepository;
+    private ResyncEngine resyncEngine;
     
     @Autowired
-    private AccountRepository accountRepository;
+    private DynamoDbClient dynamoDbClient;
     
     @Autowired
-    private TransactionRepository transactionRepository;
+    private SyncJobRepository syncJobRepository;
     
     @Autowired
-    private AuditLogRepository auditLogRepository;
+    private MongoTemplate mongoTemplate;
     
     @Autowired
-    private DynamoDbClient dynamoDbClient;
+    private IdGenerator idGenerator;
+    
+    @Value("${banking.sync.jobs.checkpoint-interval:5000}")
+    private long checkpointIntervalMillis;
+    
+    private ExecutorService jobExecutor;
+    
+    // The job running on this instance and the live progress of the table it is syncing
+    private volatile SyncJob activeJob;
+    private volatile SyncJob.TargetState activeTarget;
+    private volatile ResyncEngine.Progress activeProgress;
+    private volatile long activeBaseRead;
+    private volatile long activeStartedNanos;
+    
+    @PostConstruct
+    public void start() {
+        jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sync-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void stop() {
+        // Interrupted jobs stay RUNNING in sync_jobs and are resumed by the next instance
+        jobExecutor.shutdownNow();
+    }
     
     /**
-     * Sync all MongoDB data to DynamoDB tables
+     * Submit a full sync, or return the job that is already queued or running
      */
-    public void syncAllDataToDynamoDB() {
-        try {
-            // Create tables if they don't exist
-            createDynamoDBTables();
-            
-            // Sync customers
-            syncCustomersToDynamoDB();
-            
-            // Sync accounts
-            syncAccountsToDynamoDB();
-            
-            // Sync transactions
-            syncTransactionsToDynamoDB();
-            
-            // Sync audit logs
-            syncAuditLogsToDynamoDB();
-            
-            System.out.println("✅ All data synced to DynamoDB successfully!");
-            
-        } catch (Exception e) {
-            System.err.println("❌ Error syncing data to DynamoDB: " + e.getMessage());
+    public synchronized SyncJob submitSync() {
+        SyncJob current = activeJob;
+        if (current != null) {
+            return current;
+        }
+        // Another instance may be running one
+        for (SyncJob job : syncJobRepository.findByStatusIn(ACTIVE_STATUSES)) {
+            if (!isStale(job)) {
+                return job;
+            }
+        }
+        
+        List<SyncJob.TargetState> targets = new ArrayList<>();
+        for (ResyncEngine.Target target : ResyncEngine.Target.values()) {
+            targets.add(new SyncJob.TargetState(target.name(), resyncEngine.estimateCount(target)));
         }
+        SyncJob job = syncJobRepository.save(new SyncJob(idGenerator.nextId(IdGenerator.SYNC), targets));
+        launch(job);
+        return job;
     }
     
     /**
-     * Create DynamoDB tables
+     * Describe a job with per-table progress, rate and ETA
      */
-    private void createDynamoDBTables() {
-        // Create Customers table
-        createTable("BankingCustomers", "customerId");
-        
-        // Create Accounts table
-        createTable("BankingAccounts", "accountNumber");
-        
-        // Create Transactions table
-        createTable("BankingTransactions", "transactionId");
-        
-        // Create Audit Logs table
-        createTable("BankingAuditLogs", "actionId");
+    public Optional<Map<String, Object>> getJob(String jobId) {
+        SyncJob current = activeJob;
+        if (current != null && current.getJobId().equals(jobId)) {
+            return Optional.of(describe(current));
+        }
+        return syncJobRepository.findById(jobId).map(this::describe);
     }
     
     /**
-     * Create a DynamoDB table
+     * The most recent jobs, newest first
      */
-    private void createTable(String tableName, String keyAttribute) {
-        try {
-            CreateTableRequest createTableRequest = CreateTableRequest.builder()
-                    .tableName(tableName)
-                    .keySchema(KeySchemaElement.builder()
-                            .attributeName(keyAttribute)
-                            .keyType("HASH")
-                            .build())
-                    .attributeDefinitions(AttributeDefinition.builder()
-                            .attributeName(keyAttribute)
-                            .attributeType("S")
-                            .build())
-                    .billingMode(BillingMode.PAY_PER_REQUEST)
-                    .build();
-            
-            CreateTableResponse response = dynamoDbClient.createTable(createTableRequest);
-            System.out.println("✅ Created table: " + tableName);
-            
-        } catch (Exception e) {
-            // Table might already exist
-            System.out.println("ℹ️ Table " + tableName + " already exists or error: " + e.getMessage());
+    public List<Map<String, Object>> getRecentJobs() {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (SyncJob job : syncJobRepository.findTop20ByOrderByCreatedAtDesc()) {
+            SyncJob current = activeJob;
+            jobs.add(describe(current != null && current.getJobId().equals(job.getJobId()) ? current : job));
         }
+        return jobs;
     }
     
     /**
-     * Sync customers from MongoDB to DynamoDB
+     * Request cancellation; the running table stops after its in-flight pages are written
      */
-    private void syncCustomersToDynamoDB() {
-        List<Customer> customers = customerRepository.findAll();
-        
-        for (Customer customer : customers) {
-            Map<String, AttributeValue> item = new HashMap<>();
-            
-            // Only add non-null fields
-            if (customer.getId() != null) {
-                item.put("customerId", AttributeValue.builder().s(customer.getId()).build());
-            }
-            if (customer.getFirstName() != null && !customer.getFirstName().trim().isEmpty()) {
-                item.put("firstName", AttributeValue.builder().s(customer.getFirstName()).build());
-            }
-            if (customer.getLastName() != null && !customer.getLastName().trim().isEmpty()) {
-                item.put("lastName", AttributeValue.builder().s(customer.getLastName()).build());
-            }
-            if (customer.getEmail() != null && !customer.getEmail().trim().isEmpty()) {
-                item.put("email", AttributeValue.builder().s(customer.getEmail()).build());
-            }
-            if (customer.getMobileNumber() != null && !customer.getMobileNumber().trim().isEmpty()) {
-                item.put("mobileNumber", AttributeValue.builder().s(customer.getMobileNumber()).build());
-            }
-            if (customer.getAddress() != null && !customer.getAddress().trim().isEmpty()) {
-                item.put("address", AttributeValue.builder().s(customer.getAddress()).build());
-            }
-            if (customer.getCity() != null && !customer.getCity().trim().isEmpty()) {
-                item.put("city", AttributeValue.builder().s(customer.getCity()).build());
-            }
-            if (customer.getState() != null && !customer.getState().trim().isEmpty()) {
-                item.put("state", AttributeValue.builder().s(customer.getState()).build());
-            }
-            if (customer.getPincode() != null && !customer.getPincode().trim().isEmpty()) {
-                item.put("pincode", AttributeValue.builder().s(customer.getPincode()).build());
-            }
-            if (customer.getCreatedAt() != null) {
-                item.put("createdAt", AttributeValue.builder().s(customer.getCreatedAt().toString()).build());
-            }
-            
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName("BankingCustomers")
-                    .item(item)
-                    .build();
-            
-            dynamoDbClient.putItem(putItemRequest);
+    public boolean cancel(String jobId) {
+        SyncJob current = activeJob;
+        if (current != null && current.getJobId().equals(jobId)) {
+            current.setCancelRequested(true);
+            ResyncEngine.Progress progress = activeProgress;
+            if (progress != null) {
+                progress.cancel();
+            }
+            return true;
         }
         
-        System.out.println("✅ Synced " + customers.size() + " customers to DynamoDB");
+        // Running elsewhere, or waiting to be resumed; the owner sees the flag at its next checkpoint
+        Query query = new Query(Criteria.where("_id").is(jobId).and("status").in(ACTIVE_STATUSES));
+        return mongoTemplate.updateFirst(query, new Update().set("cancelRequested", true), SyncJob.class)
+                .getMatchedCount() > 0;
     }
     
     /**
-     * Sync accounts from MongoDB to DynamoDB
+     * Checkpoint the running job, pick up remote cancellation, and resume jobs abandoned by a dead instance
      */
-    private void syncAccountsToDynamoDB() {
-        List<Account> accounts = accountRepository.findAll();
-        
-        for (Account account : accounts) {
-            Map<String, AttributeValue> item = new HashMap<>();
-            
-            // Only add non-null fields
-            if (account.getAccountNumber() != null && !account.getAccountNumber().trim().isEmpty()) {
-                item.put("accountNumber", AttributeValue.builder().s(account.getAccountNumber()).build());
-            }
-            if (account.getCustomer() != null && account.getCustomer().getId() != null) {
-                item.put("customerId", AttributeValue.builder().s(account.getCustomer().getId()).build());
-            }
-            if (account.getAccountType() != null) {
-                item.put("accountType", AttributeValue.builder().s(account.getAccountType().toString()).build());
+    @Scheduled(fixedDelayString = "${banking.sync.jobs.checkpoint-interval:5000}")
+    public void checkpoint() {
+        try {
+            SyncJob job = activeJob;
+            if (job == null) {
+                resumeAbandonedJob();
+                return;
             }
-            if (account.getBalance() != null) {
-                item.put("balance", AttributeValue.builder().n(account.getBalance().toString()).build());
+            
+            boolean cancelRequested = syncJobRepository.findById(job.getJobId())
+                    .map(SyncJob::isCancelRequested)
+                    .orElse(false);
+            if (cancelRequested && !job.isCancelRequested()) {
+                cancel(job.getJobId());
             }
-            if (account.getStatus() != null) {
-                item.put("status", AttributeValue.builder().s(account.getStatus().toString()).build());
+            save(job);
+            
+        } catch (Exception e) {
+            System.err.println("❌ Failed to checkpoint sync job: " + e.getMessage());
+        }
+    }
+    
+    private void resumeAbandonedJob() {
+        for (SyncJob job : syncJobRepository.findByStatusIn(ACTIVE_STATUSES)) {
+            if (!isStale(job)) {
+                continue;
+            }
+            // Claim by moving the heartbeat; only one instance sees its expected value
+            Query claim = new Query(Criteria.where("_id").is(job.getJobId()).and("updatedAt").is(job.getUpdatedAt()));
+            if (mongoTemplate.findAndModify(claim, new Update().set("updatedAt", LocalDateTime.now()), SyncJob.class) == null) {
+                continue;
+            }
+            synchronized (this) {
+                if (activeJob == null) {
+                    System.out.println("📦 Resuming sync job " + job.getJobId());
+                    launch(job);
+                }
+            }
+            return;
+        }
+    }
+    
+    private void launch(SyncJob job) {
+        activeJob = job;
+        jobExecutor.execute(() -> run(job));
+    }
+    
+    private void run(SyncJob job) {
+        try {
+            job.setStatus(SyncJob.JobStatus.RUNNING);
+            if (job.getStartedAt() == null) {
+                job.setStartedAt(LocalDateTime.now());
             }
-            if (account.getCreatedAt() != null) {
-                item.put("createdAt", AttributeValue.builder().s(account.getCreatedAt().toString()).build());
+            save(job);
+            
+            // Create tables if they don't exist
+            createDynamoDBTables();
+            
+            for (SyncJob.TargetState state : job.getTargets()) {
+                if (state.isDone()) {
+                    continue;
+                }
+                if (job.isCancelRequested()) {
+                    break;
+                }
+                ResyncEngine.Target target = ResyncEngine.Target.valueOf(state.getTarget());
+                ResyncEngine.Progress progress = new ResyncEngine.Progress(state.getCollection(), state.getWatermark(),
+                        state.getRead(), state.getWritten(), state.getFailed());
+                activeTarget = state;
+                activeBaseRead = state.getRead();
+                activeStartedNanos = System.nanoTime();
+                activeProgress = progress;
+                if (job.isCancelRequested()) {
+                    progress.cancel();
+                }
+                
+                resyncEngine.resync(target, progress);
+                
+                synchronized (job) {
+                    copy(progress, state);
+                    // Failed pages are behind the watermark, so only a clean run finishes the table
+                    state.setDone(!progress.isCancelled() && progress.getFailed() == 0);
+                }
+                activeProgress = null;
+                save(job);
+                System.out.println("✅ Synced " + state.getWritten() + " of " + state.getRead() + " "
+                        + target.name().toLowerCase() + " to " + target.getTable());
             }
             
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName("BankingAccounts")
-                    .item(item)
-                    .build();
+            long failed = job.getTargets().stream().mapToLong(SyncJob.TargetState::getFailed).sum();
+            if (job.isCancelRequested()) {
+                job.setStatus(SyncJob.JobStatus.CANCELLED);
+            } else if (failed > 0) {
+                job.setStatus(SyncJob.JobStatus.FAILED);
+                job.setErrorMessage(failed + " documents failed to sync to DynamoDB" + lastError(job));
+            } else {
+                job.setStatus(SyncJob.JobStatus.COMPLETED);
+            }
+            if (job.getStatus() == SyncJob.JobStatus.COMPLETED && isFailureFree(job)) {
+                clearFullSyncRequired(job.getStartedAt());
+            }
+            System.out.println("✅ Sync job " + job.getJobId() + " " + job.getStatus().name().toLowerCase());
             
-            dynamoDbClient.putItem(putItemRequest);
+        } catch (InterruptedException e) {
+            // Shutting down; the job stays RUNNING and is resumed from its checkpoint
+            Thread.currentThread().interrupt();
+            save(job);
+            clearActive();
+            return;
+        } catch (Exception e) {
+            job.setStatus(SyncJob.JobStatus.FAILED);
+            job.setErrorMessage(e.getMessage());
+            System.err.println("❌ Error syncing data to DynamoDB: " + e.getMessage());
         }
         
-        System.out.println("✅ Synced " + accounts.size() + " accounts to DynamoDB");
+        job.setFinishedAt(LocalDateTime.now());
+        save(job);
+        clearActive();
     }
     
     /**
-     * Sync transactions from MongoDB to DynamoDB
+     * Every table was copied in full with no failed pages, so the job really closed any change stream gap
      */
-    private void syncTransactionsToDynamoDB() {
-        List<Transaction> transactions = transactionRepository.findAll();
-        
-        for (Transaction transaction : transactions) {
-            Map<String, AttributeValue> item = new HashMap<>();
-            
-            // Only add non-null fields
-            if (transaction.getTransactionId() != null && !transaction.getTransactionId().trim().isEmpty()) {
-                item.put("transactionId", AttributeValue.builder().s(transaction.getTransactionId()).build());
-            }
-            if (transaction.getType() != null) {
-                item.put("type", AttributeValue.builder().s(transaction.getType().toString()).build());
-            }
-            if (transaction.getAmount() != null) {
-                item.put("amount", AttributeValue.builder().n(transaction.getAmount().toString()).build());
-            }
-            if (transaction.getDescription() != null && !transaction.getDescription().trim().isEmpty()) {
-                item.put("description", AttributeValue.builder().s(transaction.getDescription()).build());
-            }
-            if (transaction.getStatus() != null) {
-                item.put("status", AttributeValue.builder().s(transaction.getStatus().toString()).build());
-            }
-            if (transaction.getTransactionDate() != null) {
-                item.put("transactionDate", AttributeValue.builder().s(transaction.getTransactionDate().toString()).build());
-            }
-            
-            if (transaction.getSourceAccount() != null && transaction.getSourceAccount().getAccountNumber() != null) {
-                item.put("sourceAccountNumber", AttributeValue.builder().s(transaction.getSourceAccount().getAccountNumber()).build());
-            }
-            
-            if (transaction.getDestinationAccount() != null && transaction.getDestinationAccount().getAccountNumber() != null) {
-                item.put("destinationAccountNumber", AttributeValue.builder().s(transaction.getDestinationAccount().getAccountNumber()).build());
+    private static boolean isFailureFree(SyncJob job) {
+        return job.getTargets().stream().allMatch(state -> state.isDone() && state.getFailed() == 0);
+    }
+    
+    /**
+     * A failure-free full sync closes the gaps change streams flagged before it started
+     */
+    private void clearFullSyncRequired(LocalDateTime startedAt) {
+        try {
+            mongoTemplate.updateMulti(new Query(Criteria.where("fullSyncRequiredSince").lte(startedAt)),
+                    new Update().unset("fullSyncRequiredSince"), SyncCheckpoint.class);
+        } catch (Exception e) {
+            System.err.println("❌ Failed to clear full sync flags: " + e.getMessage());
+        }
+    }
+    
+    private static String lastError(SyncJob job) {
+        for (SyncJob.TargetState state : job.getTargets()) {
+            if (state.getFailed() > 0 && state.getLastError() != null) {
+                return ": " + state.getLastError();
             }
+        }
+        return "";
+    }
+    
+    private void clearActive() {
+        activeProgress = null;
+        activeTarget = null;
+        activeJob = null;
+    }
+    
+    private void save(SyncJob job) {
+        synchronized (job) {
+            ResyncEngine.Progress progress = activeProgress;
+            SyncJob.TargetState state = activeTarget;
+            if (progress != null && state != null) {
+                copy(progress, state);
+            }
+            job.setUpdatedAt(LocalDateTime.now());
+            syncJobRepository.save(job);
+        }
+    }
+    
+    private static void copy(ResyncEngine.Progress progress, SyncJob.TargetState state) {
+        state.setCollection(progress.getCollection());
+        state.setWatermark(progress.getWatermark());
+        state.setRead(progress.getRead());
+        state.setWritten(progress.getWritten());
+        state.setFailed(progress.getFailed());
+        state.setLastError(progress.getLastError());
+    }
+    
+    private boolean isStale(SyncJob job) {
+        return job.getUpdatedAt() == null
+                || job.getUpdatedAt().isBefore(LocalDateTime.now().minus(checkpointIntervalMillis * 3, ChronoUnit.MILLIS));
+    }
+    
+    private Map<String, Object> describe(SyncJob job) {
+        Map<String, Object> collections = new LinkedHashMap<>();
+        for (SyncJob.TargetState state : job.getTargets()) {
+            ResyncEngine.Target target = ResyncEngine.Target.valueOf(state.getTarget());
+            ResyncEngine.Progress progress = state == activeTarget ? activeProgress : null;
+            long read = progress != null ? progress.getRead() : state.getRead();
             
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName("BankingTransactions")
-                    .item(item)
-                    .build();
-            
-            dynamoDbClient.putItem(putItemRequest);
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("collection", progress != null ? progress.getCollection() : state.getCollection());
+            status.put("total", state.getTotal());
+            status.put("read", read);
+            status.put("written", progress != null ? progress.getWritten() : state.getWritten());
+            status.put("failed", progress != null ? progress.getFailed() : state.getFailed());
+            status.put("percent", state.isDone() ? 100.0 : state.getTotal() > 0 ? Math.min(100.0, read * 100.0 / state.getTotal()) : 0.0);
+            if (progress != null) {
+                double seconds = (System.nanoTime() - activeStartedNanos) / 1_000_000_000.0;
+                double itemsPerSecond = seconds > 0 ? (read - activeBaseRead) / seconds : 0;
+                status.put("itemsPerSecond", Math.round(itemsPerSecond * 10) / 10.0);
+                status.put("etaSeconds", itemsPerSecond > 0 ? Math.round(Math.max(0, state.getTotal() - read) / itemsPerSecond) : null);
+            }
+            status.put("done", state.isDone());
+            status.put("lastError", progress != null ? progress.getLastError() : state.getLastError());
+            collections.put(target.getTable(), status);
         }
         
-        System.out.println("✅ Synced " + transactions.size() + " transactions to DynamoDB");
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("jobId", job.getJobId());
+        description.put("status", job.getStatus());
+        description.put("cancelRequested", job.isCancelRequested());
+        description.put("createdAt", job.getCreatedAt());
+        description.put("startedAt", job.getStartedAt());
+        description.put("finishedAt", job.getFinishedAt());
+        description.put("errorMessage", job.getErrorMessage());
+        description.put("collections", collections);
+        return description;
     }
     
     /**
-     * Sync audit logs from MongoDB to DynamoDB
+     * Create DynamoDB tables
      */
-    private void syncAuditLogsToDynamoDB() {
-        List<AuditLog> auditLogs = auditLogRepository.findAll();
+    public void createDynamoDBTables() {
+        // Create Customers table
+        createTable(CustomerCodec.TABLE, CustomerCodec.CUSTOMER_ID, null);
         
-        for (AuditLog auditLog : auditLogs) {
-            Map<String, AttributeValue> item = new HashMap<>();
-            
-            // Only add non-null fields
-            if (auditLog.getActionId() != null && !auditLog.getActionId().trim().isEmpty()) {
-                item.put("actionId", AttributeValue.builder().s(auditLog.getActionId()).build());
-            }
-            if (auditLog.getUserId() != null && !auditLog.getUserId().trim().isEmpty()) {
-                item.put("userId", AttributeValue.builder().s(auditLog.getUserId()).build());
-            }
-            if (auditLog.getAction() != null && !auditLog.getAction().trim().isEmpty()) {
-                item.put("action", AttributeValue.builder().s(auditLog.getAction()).build());
-            }
-            if (auditLog.getEntityType() != null && !auditLog.getEntityType().trim().isEmpty()) {
-                item.put("entityType", AttributeValue.builder().s(auditLog.getEntityType()).build());
-            }
-            if (auditLog.getEntityId() != null && !auditLog.getEntityId().trim().isEmpty()) {
-                item.put("entityId", AttributeValue.builder().s(auditLog.getEntityId()).build());
-            }
-            if (auditLog.getDescription() != null && !auditLog.getDescription().trim().isEmpty()) {
-                item.put("description", AttributeValue.builder().s(auditLog.getDescription()).build());
-            }
-            if (auditLog.getIpAddress() != null && !auditLog.getIpAddress().trim().isEmpty()) {
-                item.put("ipAddress", AttributeValue.builder().s(auditLog.getIpAddress()).build());
-            }
-            if (auditLog.getUserAgent() != null && !auditLog.getUserAgent().trim().isEmpty()) {
-                item.put("userAgent", AttributeValue.builder().s(auditLog.getUserAgent()).build());
-            }
-            if (auditLog.getTimestamp() != null) {
-                item.put("timestamp", AttributeValue.builder().s(auditLog.getTimestamp().toString()).build());
-            }
-            if (auditLog.getResult() != null && !auditLog.getResult().trim().isEmpty()) {
-                item.put("result", AttributeValue.builder().s(auditLog.getResult()).build());
-            }
-            if (auditLog.getErrorMessage() != null && !auditLog.getErrorMessage().trim().isEmpty()) {
-                item.put("errorMessage", AttributeValue.builder().s(auditLog.getErrorMessage()).build());
+        // Create Accounts table
+        createTable(AccountCodec.TABLE, AccountCodec.ACCOUNT_NUMBER, null);
+        
+        // Create Transactions table
+        createTable(TransactionCodec.TABLE, TransactionCodec.TRANSACTION_ID, null);
+        
+        // Create Audit Logs table
+        createTable(AuditLogCodec.TABLE, AuditLogCodec.ACTION_ID, AuditLogCodec.TIMESTAMP);
+    }
+    
+    /**
+     * Create a DynamoDB table, with a range key when rangeAttribute is not null
+     */
+    private void createTable(String tableName, String keyAttribute, String rangeAttribute) {
+        try {
+            List<KeySchemaElement> keySchema = new ArrayList<>();
+            List<AttributeDefinition> attributes = new ArrayList<>();
+            keySchema.add(KeySchemaElement.builder().attributeName(keyAttribute).keyType("HASH").build());
+            attributes.add(AttributeDefinition.builder().attributeName(keyAttribute).attributeType("S").build());
+            if (rangeAttribute != null) {
+                keySchema.add(KeySchemaElement.builder().attributeName(rangeAttribute).keyType("RANGE").build());
+                attributes.add(AttributeDefinition.builder().attributeName(rangeAttribute).attributeType("S").build());
             }
             
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName("BankingAuditLogs")
-                    .item(item)
+            CreateTableRequest createTableRequest = CreateTableRequest.builder()
+                    .tableName(tableName)
+                    .keySchema(keySchema)
+                    .attributeDefinitions(attributes)
+                    .billingMode(BillingMode.PAY_PER_REQUEST)
                     .build();
             
-            dynamoDbClient.putItem(putItemRequest);
+            CreateTableResponse response = dynamoDbClient.createTable(createTableRequest);
+            System.out.println("✅ Created table: " + tableName);
+            
+        } catch (Exception e) {
+            // Table might already exist
+            System.out.println("ℹ️ Table " + tableName + " already exists or error: " + e.getMessage());
         }
-        
-        System.out.println("✅ Synced " + auditLogs.size() + " audit logs to DynamoDB");
     }
 }
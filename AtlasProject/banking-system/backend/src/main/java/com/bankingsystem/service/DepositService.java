@@ -4,6 +4,10 @@ import com.bankingsystem.model.Account;
 import com.bankingsystem.model.Transaction;
 import com.bankingsystem.repository.AccountRepository;
 import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.util.AccountCache;
+import com.bankingsystem.util.AccountLaneExecutor;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.SettlementQueue;
 import com.bankingsystem.util.UndoRedoStack;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,8 +16,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class DepositService {
@@ -30,39 +34,53 @@ public class DepositService {
     @Autowired
     private UndoRedoStack undoRedoStack;
     
+    @Autowired
+    private AccountLaneExecutor accountLanes;
+    
+    @Autowired
+    private AccountCache accountCache;
+    
+    @Autowired
+    private TransactionHistoryService transactionHistory;
+    
+    @Autowired
+    private TransactionLimitService transactionLimits;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private SettlementQueue settlementQueue;
+    
     /**
      * Process a deposit transaction
      */
     @Transactional
     public Transaction processDeposit(String accountNumber, BigDecimal amount, String description, String userId) {
         try {
-            // Find the account
-            Account account = accountRepository.findByAccountNumber(accountNumber)
-                    .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
-            
-            // Validate account status
-            if (account.getStatus() != Account.AccountStatus.ACTIVE) {
-                throw new RuntimeException("Account is not active: " + accountNumber);
-            }
-            
             // Validate amount
             if (amount.compareTo(BigDecimal.ZERO) <= 0) {
                 throw new RuntimeException("Deposit amount must be greater than zero");
             }
+            transactionLimits.validateAmount(amount);
+            
+            // Credit atomically on the account's lane; one round trip returns the new balance
+            Account account = accountLanes.execute(accountNumber, () ->
+                    accountRepository.creditBalance(accountNumber, amount)
+                            .map(accountCache::refresh)
+                            .orElseThrow(() -> rejectedDeposit(accountNumber)));
             
             // Create transaction
-            String transactionId = "DEP" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
-            Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.DEPOSIT, 
+            String transactionId = idGenerator.nextId(IdGenerator.DEPOSIT);
+            Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.DEPOSIT,
                     amount, account, description);
-            transaction.setReferenceNumber("REF" + System.currentTimeMillis());
-            
-            // Process the deposit
-            account.deposit(amount);
+            transaction.setReferenceNumber(idGenerator.nextId(IdGenerator.REFERENCE));
             transaction.markAsCompleted();
+            transaction.setSettlementPending(true);
             
-            // Save to database
-            accountRepository.save(account);
+            // Save to database; if the enqueue fails the outbox sweep queues it later
             transactionRepository.save(transaction);
+            settlementQueue.enqueue(transaction);
             
             // Add to undo stack
             undoRedoStack.pushUndo(account.getId(), transaction);
@@ -88,28 +106,20 @@ public class DepositService {
     }
     
     /**
-     * Get deposit history for an account
+     * Explain why the conditional credit matched no account
      */
-    public java.util.List<Transaction> getDepositHistory(String accountNumber) {
+    private RuntimeException rejectedDeposit(String accountNumber) {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
-        
-        return transactionRepository.findBySourceAccount(account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.DEPOSIT)
-                .collect(java.util.stream.Collectors.toList());
+        return new RuntimeException("Account is not active: " + account.getAccountNumber());
     }
     
     /**
-     * Get deposit history for an account within date range
+     * Get one page of deposit history for an account, newest first, optionally within a date range
      */
-    public java.util.List<Transaction> getDepositHistory(String accountNumber, LocalDateTime startDate, LocalDateTime endDate) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
-        
-        return transactionRepository.findSourceTransactionsByDateRange(account, startDate, endDate)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.DEPOSIT)
-                .collect(java.util.stream.Collectors.toList());
+    public Map<String, Object> getDepositHistory(String accountNumber, LocalDateTime startDate, LocalDateTime endDate,
+                                                 Integer limit, String cursor) {
+        return transactionHistory.getHistory(accountNumber, List.of(Transaction.TransactionType.DEPOSIT), false,
+                startDate, endDate, limit, cursor);
     }
 }
@@ -0,0 +1,393 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.util.AccountCache;
+import com.bankingsystem.util.AuditPartitions;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams account transactions and audit logs out as NDJSON or CSV. Rows are read from a MongoDB
+ * cursor a batch at a time and written straight to the response, so memory stays flat however many
+ * rows an export has; a slow client simply blocks the writer, which stops the cursor being read.
+ * The first row is flushed as soon as it is written and then every flush-rows rows.
+ * Transactions are read as raw documents so their account references are not resolved row by row.
+ */
+@Service
+public class ExportService {
+    
+    private static final List<String> TRANSACTION_COLUMNS = List.of("transactionId", "transactionDate", "type",
+            "status", "amount", "currency", "sourceAccount", "destinationAccount", "description",
+            "referenceNumber", "reversalOf");
+    private static final List<String> AUDIT_COLUMNS = List.of("actionId", "timestamp", "userId", "action",
+            "entityType", "entityId", "result", "description", "errorMessage", "ipAddress");
+    // Counterparty account numbers remembered per export before the map is cleared
+    private static final int MAX_ACCOUNT_NUMBERS = 10_000;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private AccountCache accountCache;
+    
+    @Autowired
+    private AuditPartitions auditPartitions;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.export.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${banking.export.flush-rows:1000}")
+    private int flushRows;
+    
+    private Counter transactionRows;
+    private Counter auditRows;
+    
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+        
+        private final String contentType;
+        private final String extension;
+        
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+        
+        public String getContentType() {
+            return contentType;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+        
+        public static Format of(String name) {
+            try {
+                return name == null ? NDJSON : valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Unsupported export format: " + name);
+            }
+        }
+    }
+    
+    @PostConstruct
+    public void init() {
+        transactionRows = Counter.builder("banking.export.rows")
+                .tag("dataset", "transactions")
+                .description("Rows written by streaming exports")
+                .register(meterRegistry);
+        auditRows = Counter.builder("banking.export.rows")
+                .tag("dataset", "audit_logs")
+                .description("Rows written by streaming exports")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Export an account's transactions, sent or received, oldest first. All types unless some are
+     * given; the date bounds are optional. The account is checked before anything is written.
+     */
+    public StreamingResponseBody exportTransactions(String accountNumber, Collection<Transaction.TransactionType> types,
+                                                    LocalDateTime startDate, LocalDateTime endDate, Format format,
+                                                    boolean gzip) {
+        Account account = accountCache.findAccount(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        Object reference = ObjectId.isValid(account.getId()) ? new ObjectId(account.getId()) : account.getId();
+        Collection<Transaction.TransactionType> selected = types == null || types.isEmpty()
+                ? Arrays.asList(Transaction.TransactionType.values()) : types;
+        
+        // Same shape as the history pages, so each side reads the account + type + transactionDate index
+        Query query = new Query(new Criteria().orOperator(
+                transactionSide("sourceAccount", reference, selected, startDate, endDate),
+                transactionSide("destinationAccount", reference, selected, startDate, endDate)))
+                .with(Sort.by(Sort.Direction.ASC, "transactionDate", "transactionId"))
+                .cursorBatchSize(batchSize);
+        String collection = mongoTemplate.getCollectionName(Transaction.class);
+        
+        Map<Object, String> accountNumbers = new HashMap<>();
+        accountNumbers.put(reference, account.getAccountNumber());
+        return out -> {
+            try (RowWriter writer = new RowWriter(out, format, TRANSACTION_COLUMNS, gzip, transactionRows);
+                 Stream<Document> rows = mongoTemplate.stream(query, Document.class, collection)) {
+                rows.forEach(row -> writer.write(new Object[] {
+                        row.get("transactionId"),
+                        row.get("transactionDate"),
+                        row.get("type"),
+                        row.get("status"),
+                        row.get("amount"),
+                        row.get("currency"),
+                        accountNumber(accountNumbers, row.get("sourceAccount")),
+                        accountNumber(accountNumbers, row.get("destinationAccount")),
+                        row.get("description"),
+                        row.get("referenceNumber"),
+                        row.get("reversalOf")
+                }, null));
+            }
+        };
+    }
+    
+    /**
+     * Export audit logs oldest first, partition by partition, optionally narrowed by time range,
+     * user, action and entity
+     */
+    public StreamingResponseBody exportAuditLogs(LocalDateTime startDate, LocalDateTime endDate, String userId,
+                                                 String action, String entityType, String entityId, Format format,
+                                                 boolean gzip) {
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "timestamp")).cursorBatchSize(batchSize);
+        if (startDate != null || endDate != null) {
+            Criteria timestamp = Criteria.where("timestamp");
+            if (startDate != null) {
+                timestamp.gte(startDate);
+            }
+            if (endDate != null) {
+                timestamp.lte(endDate);
+            }
+            query.addCriteria(timestamp);
+        }
+        addIfPresent(query, "userId", userId);
+        addIfPresent(query, "action", action);
+        addIfPresent(query, "entityType", entityType);
+        addIfPresent(query, "entityId", entityId);
+        List<String> collections = auditPartitions.collectionsBetween(startDate, endDate);
+        
+        return out -> {
+            try (RowWriter writer = new RowWriter(out, format, AUDIT_COLUMNS, gzip, auditRows)) {
+                for (String collection : collections) {
+                    try (Stream<AuditLog> rows = mongoTemplate.stream(query, AuditLog.class, collection)) {
+                        rows.forEach(log -> writer.write(new Object[] {
+                                log.getActionId(),
+                                log.getTimestamp(),
+                                log.getUserId(),
+                                log.getAction(),
+                                log.getEntityType(),
+                                log.getEntityId(),
+                                log.getResult(),
+                                log.getDescription(),
+                                log.getErrorMessage(),
+                                log.getIpAddress()
+                        }, log.getDetails()));
+                    }
+                }
+            }
+        };
+    }
+    
+    /**
+     * Check whether the client accepts gzip-encoded responses
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+    
+    /**
+     * Wrap an export as a download named after the dataset, declaring gzip when the body is compressed
+     */
+    public static ResponseEntity<StreamingResponseBody> response(StreamingResponseBody body, Format format,
+                                                                 boolean gzip, String name) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension()).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
+    private static Criteria transactionSide(String side, Object reference,
+                                            Collection<Transaction.TransactionType> types,
+                                            LocalDateTime startDate, LocalDateTime endDate) {
+        Criteria criteria = Criteria.where(side).is(reference)
+                .and("type").in(types.stream().map(Enum::name).toList());
+        if (startDate != null || endDate != null) {
+            Criteria date = criteria.and("transactionDate");
+            if (startDate != null) {
+                date.gte(startDate);
+            }
+            if (endDate != null) {
+                date.lte(endDate);
+            }
+        }
+        return criteria;
+    }
+    
+    private static void addIfPresent(Query query, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            query.addCriteria(Criteria.where(field).is(value));
+        }
+    }
+    
+    /**
+     * Account number behind a stored account reference, looked up once per export and account
+     */
+    private String accountNumber(Map<Object, String> accountNumbers, Object reference) {
+        if (reference == null) {
+            return null;
+        }
+        String known = accountNumbers.get(reference);
+        if (known != null) {
+            return known;
+        }
+        if (accountNumbers.size() >= MAX_ACCOUNT_NUMBERS) {
+            accountNumbers.clear();
+        }
+        String accountNumber = accountRepository.findById(reference.toString())
+                .map(Account::getAccountNumber)
+                .orElse(reference.toString());
+        accountNumbers.put(reference, accountNumber);
+        return accountNumber;
+    }
+    
+    /**
+     * Writes rows in one format through a buffered, optionally gzipped stream, flushing the first
+     * row at once and then every flush-rows rows. Write failures, such as the client going away,
+     * surface as unchecked exceptions so they stop the cursor loop.
+     */
+    private class RowWriter implements AutoCloseable {
+        private final Format format;
+        private final List<String> columns;
+        private final OutputStream stream;
+        private final Writer writer;
+        private final JsonGenerator json;
+        private final Counter counter;
+        private long rows;
+        
+        RowWriter(OutputStream out, Format format, List<String> columns, boolean gzip, Counter counter)
+                throws IOException {
+            this.format = format;
+            this.counter = counter;
+            this.columns = columns;
+            this.stream = gzip ? new GZIPOutputStream(out, BUFFER_BYTES, true) : out;
+            this.writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_BYTES);
+            if (format == Format.CSV) {
+                this.json = null;
+                writer.write(String.join(",", columns));
+                writer.write("\r\n");
+            } else {
+                this.json = objectMapper.getFactory().createGenerator(writer);
+                // Rows are separated and flushed here, not by the generator
+                this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                this.json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+                this.json.setRootValueSeparator(null);
+            }
+        }
+        
+        void write(Object[] values, Map<String, Object> details) {
+            try {
+                if (format == Format.CSV) {
+                    for (int i = 0; i < values.length; i++) {
+                        if (i > 0) {
+                            writer.write(',');
+                        }
+                        writeCsv(text(values[i]));
+                    }
+                    writer.write("\r\n");
+                } else {
+                    json.writeStartObject();
+                    for (int i = 0; i < values.length; i++) {
+                        json.writeStringField(columns.get(i), text(values[i]));
+                    }
+                    if (details != null && !details.isEmpty()) {
+                        json.writeObjectField("details", details);
+                    }
+                    json.writeEndObject();
+                    json.flush();
+                    writer.write('\n');
+                }
+                rows++;
+                if (rows == 1 || rows % flushRows == 0) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            counter.increment(rows);
+            if (json != null) {
+                json.close();
+            }
+            // Finishes the gzip trailer; the servlet container owns the response stream itself
+            writer.flush();
+            if (stream instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            stream.flush();
+        }
+        
+        private void writeCsv(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+        
+        private String text(Object value) {
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof Date date) {
+                // Dates come back raw from transaction documents; render them like the entity ones
+                return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()).toString();
+            }
+            return value.toString();
+        }
+    }
+}
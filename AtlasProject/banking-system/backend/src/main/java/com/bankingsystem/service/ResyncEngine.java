@@ -0,0 +1,561 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.codec.AccountCodec;
+import com.bankingsystem.codec.AuditLogCodec;
+import com.bankingsystem.codec.CustomerCodec;
+import com.bankingsystem.codec.TransactionCodec;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.model.Customer;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.AuditPartitions;
+import com.bankingsystem.util.DynamoBatchWriter;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Full MongoDB to DynamoDB resync that runs in constant memory.
+ * Each collection is split into contiguous _id ranges at split points sampled with $sample, and every
+ * range is read by its own cursor sorted by _id on a reader pool, so reads scale with the readers as
+ * well as the writes. Cursors cut their range into pages; pages are converted and written as 25-item
+ * BatchWriteItem calls on a shared worker pool. A semaphore bounds the pages in flight, so the readers
+ * wait for the writers instead of buffering the collection.
+ * Progress keeps the highest _id below which every page has been written, which is where a resync can
+ * resume; ranges after the first unfinished one are re-read on resume, which only repeats idempotent puts.
+ */
+@Component
+public class ResyncEngine {
+    
+    // Sampled _ids per range when choosing split points
+    private static final int SAMPLES_PER_RANGE = 20;
+    
+    /**
+     * The synced collections and the DynamoDB table each one is written to
+     */
+    public enum Target {
+        CUSTOMERS(CustomerCodec.TABLE),
+        ACCOUNTS(AccountCodec.TABLE),
+        TRANSACTIONS(TransactionCodec.TABLE),
+        AUDIT_LOGS(AuditLogCodec.TABLE);
+        
+        private final String table;
+        
+        Target(String table) {
+            this.table = table;
+        }
+        
+        public String getTable() {
+            return table;
+        }
+    }
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private DynamoBatchWriter dynamoBatchWriter;
+    
+    @Autowired
+    private AuditPartitions auditPartitions;
+    
+    @Autowired
+    private CustomerCodec customerCodec;
+    
+    @Autowired
+    private AccountCodec accountCodec;
+    
+    @Autowired
+    private TransactionCodec transactionCodec;
+    
+    @Autowired
+    private AuditLogCodec auditLogCodec;
+    
+    @Value("${banking.sync.resync.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${banking.sync.resync.page-size:500}")
+    private int pageSize;
+    
+    @Value("${banking.sync.resync.max-in-flight:8}")
+    private int maxInFlightPages;
+    
+    @Value("${banking.sync.resync.readers:4}")
+    private int readerCount;
+    
+    private ExecutorService workers;
+    private ExecutorService readers;
+    
+    @PostConstruct
+    public void start() {
+        workers = pool(parallelism, "resync-worker-");
+        readers = pool(readerCount, "resync-reader-");
+    }
+    
+    @PreDestroy
+    public void stop() {
+        readers.shutdownNow();
+        workers.shutdownNow();
+    }
+    
+    /**
+     * Stream every document of the target after the progress' resume position into DynamoDB.
+     * Blocks until all pages have been written or the progress is cancelled.
+     */
+    public void resync(Target target, Progress progress) throws InterruptedException {
+        progress.start();
+        try {
+            // A resumed run skips the collections finished before its checkpoint
+            List<String> collections = collectionsOf(target);
+            int first = progress.collection != null ? Math.max(0, collections.indexOf(progress.collection)) : 0;
+            for (String collection : collections.subList(first, collections.size())) {
+                if (progress.cancelled) {
+                    break;
+                }
+                resyncCollection(target, collection, progress);
+            }
+        } finally {
+            progress.finish();
+        }
+    }
+    
+    /**
+     * Estimated number of documents a resync of the target reads, from collection metadata
+     */
+    public long estimateCount(Target target) {
+        long count = 0;
+        for (String collection : collectionsOf(target)) {
+            count += mongoTemplate.getCollection(collection).estimatedDocumentCount();
+        }
+        return count;
+    }
+    
+    private void resyncCollection(Target target, String collection, Progress progress) throws InterruptedException {
+        // Audit logs span several partitions; a resume position only applies to the partition it came from
+        Object resumeAfter = collection.equals(progress.collection) ? progress.watermark : null;
+        List<Object> splits = splitPoints(collection, resumeAfter);
+        progress.moveTo(collection, resumeAfter, splits.size() + 1);
+        
+        Semaphore inFlight = new Semaphore(maxInFlightPages);
+        List<Future<?>> ranges = new ArrayList<>(splits.size() + 1);
+        try {
+            for (int range = 0; range <= splits.size(); range++) {
+                List<Bson> bounds = new ArrayList<>(2);
+                if (range > 0) {
+                    bounds.add(Filters.gte("_id", splits.get(range - 1)));
+                } else if (resumeAfter != null) {
+                    bounds.add(Filters.gt("_id", resumeAfter));
+                }
+                if (range < splits.size()) {
+                    bounds.add(Filters.lt("_id", splits.get(range)));
+                }
+                Bson filter = bounds.isEmpty() ? new Document() : Filters.and(bounds);
+                int index = range;
+                ranges.add(readers.submit(() -> {
+                    readRange(target, collection, index, filter, progress, inFlight);
+                    return null;
+                }));
+            }
+            for (Future<?> range : ranges) {
+                range.get();
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to read " + collection + ": " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            // Stop the other readers after a failure, then wait for the pages still being written
+            ranges.forEach(range -> range.cancel(true));
+            inFlight.acquire(maxInFlightPages);
+            inFlight.release(maxInFlightPages);
+        }
+    }
+    
+    /**
+     * Read one _id range with its own cursor and hand it to the writers page by page
+     */
+    private void readRange(Target target, String collection, int range, Bson filter, Progress progress,
+                           Semaphore inFlight) throws InterruptedException {
+        try (MongoCursor<Document> cursor = mongoTemplate.getCollection(collection)
+                .find(filter)
+                .sort(Sorts.ascending("_id"))
+                .batchSize(pageSize)
+                .iterator()) {
+            List<Document> page = new ArrayList<>(pageSize);
+            while (cursor.hasNext() && !progress.cancelled) {
+                page.add(cursor.next());
+                if (page.size() == pageSize) {
+                    submit(target, range, page, progress, inFlight);
+                    page = new ArrayList<>(pageSize);
+                }
+            }
+            if (!page.isEmpty() && !progress.cancelled) {
+                submit(target, range, page, progress, inFlight);
+            }
+        }
+        if (!progress.cancelled) {
+            progress.rangeRead(range);
+        }
+    }
+    
+    /**
+     * Boundaries that cut what is left of the collection into about one range per reader, taken
+     * from a random sample of _ids. Empty (a single range) for small collections.
+     */
+    private List<Object> splitPoints(String collection, Object resumeAfter) {
+        if (readerCount <= 1
+                || mongoTemplate.getCollection(collection).estimatedDocumentCount() < (long) pageSize * readerCount) {
+            return List.of();
+        }
+        // $sample as the first stage uses a random cursor instead of scanning the collection
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(Aggregates.sample(readerCount * SAMPLES_PER_RANGE));
+        if (resumeAfter != null) {
+            pipeline.add(Aggregates.match(Filters.gt("_id", resumeAfter)));
+        }
+        pipeline.add(Aggregates.project(Projections.include("_id")));
+        pipeline.add(Aggregates.sort(Sorts.ascending("_id")));
+        List<Object> sampled = new ArrayList<>();
+        mongoTemplate.getCollection(collection).aggregate(pipeline).forEach(document -> sampled.add(document.get("_id")));
+        
+        List<Object> splits = new ArrayList<>(readerCount - 1);
+        for (int range = 1; range < readerCount && !sampled.isEmpty(); range++) {
+            Object split = sampled.get(range * sampled.size() / readerCount);
+            if (splits.isEmpty() || !splits.get(splits.size() - 1).equals(split)) {
+                splits.add(split);
+            }
+        }
+        return splits;
+    }
+    
+    private void submit(Target target, int range, List<Document> page, Progress progress, Semaphore inFlight)
+            throws InterruptedException {
+        inFlight.acquire();
+        long sequence = progress.read(range, page.size());
+        Object lastId = page.get(page.size() - 1).get("_id");
+        try {
+            workers.execute(() -> {
+                boolean written = false;
+                try {
+                    written = writePage(target, page, progress);
+                } catch (Exception e) {
+                    progress.fail(page.size(), e);
+                } finally {
+                    progress.complete(range, sequence, written ? lastId : null);
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Write one page and report whether every item was accepted
+     */
+    private boolean writePage(Target target, List<Document> page, Progress progress) {
+        List<WriteRequest> requests = new ArrayList<>(page.size());
+        for (Map<String, AttributeValue> item : toItems(target, page)) {
+            requests.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+        }
+        // Unprocessed items are retried with backoff inside the writer
+        List<WriteRequest> failed = dynamoBatchWriter.writeAll(target.table, requests);
+        progress.written(requests.size() - failed.size());
+        if (!failed.isEmpty()) {
+            progress.fail(failed.size(), new RuntimeException(failed.size() + " items were not accepted by " + target.table));
+        }
+        return failed.isEmpty();
+    }
+    
+    /**
+     * Convert a page without resolving document references one by one.
+     * Accounts only need the referenced customer id; transaction account numbers are loaded once per page.
+     */
+    private List<Map<String, AttributeValue>> toItems(Target target, List<Document> page) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(page.size());
+        switch (target) {
+            case CUSTOMERS:
+                for (Document document : page) {
+                    items.add(customerCodec.encode(read(Customer.class, document)));
+                }
+                break;
+            case ACCOUNTS:
+                for (Document document : page) {
+                    Object customerRef = document.remove("customer");
+                    Account account = read(Account.class, document);
+                    if (customerRef != null) {
+                        Customer customer = new Customer();
+                        customer.setId(idString(customerRef));
+                        account.setCustomer(customer);
+                    }
+                    items.add(accountCodec.encode(account));
+                }
+                break;
+            case TRANSACTIONS:
+                Map<Object, String> accountNumbers = accountNumbers(page);
+                for (Document document : page) {
+                    Object sourceRef = document.remove("sourceAccount");
+                    Object destinationRef = document.remove("destinationAccount");
+                    Transaction transaction = read(Transaction.class, document);
+                    transaction.setSourceAccount(accountStub(accountNumbers, sourceRef));
+                    transaction.setDestinationAccount(accountStub(accountNumbers, destinationRef));
+                    items.add(transactionCodec.encode(transaction));
+                }
+                break;
+            default:
+                for (Document document : page) {
+                    items.add(auditLogCodec.encode(read(AuditLog.class, document)));
+                }
+        }
+        return items;
+    }
+    
+    private Map<Object, String> accountNumbers(List<Document> page) {
+        Set<Object> ids = new HashSet<>();
+        for (Document document : page) {
+            addRef(ids, document.get("sourceAccount"));
+            addRef(ids, document.get("destinationAccount"));
+        }
+        Map<Object, String> accountNumbers = new HashMap<>();
+        if (ids.isEmpty()) {
+            return accountNumbers;
+        }
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Account.class))
+                .find(Filters.in("_id", ids))
+                .projection(Projections.include("accountNumber"))
+                .forEach(account -> accountNumbers.put(account.get("_id"), account.getString("accountNumber")));
+        return accountNumbers;
+    }
+    
+    private static void addRef(Set<Object> ids, Object ref) {
+        Object id = refId(ref);
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+    
+    private static Account accountStub(Map<Object, String> accountNumbers, Object ref) {
+        Object id = refId(ref);
+        if (id == null || !accountNumbers.containsKey(id)) {
+            return null;
+        }
+        Account account = new Account();
+        account.setAccountNumber(accountNumbers.get(id));
+        return account;
+    }
+    
+    // References are stored as the target id; older documents may hold a DBRef
+    private static Object refId(Object ref) {
+        return ref instanceof Document ? ((Document) ref).get("$id") : ref;
+    }
+    
+    private static String idString(Object ref) {
+        Object id = refId(ref);
+        return id instanceof ObjectId ? ((ObjectId) id).toHexString() : String.valueOf(id);
+    }
+    
+    private static ExecutorService pool(int threads, String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    private <T> T read(Class<T> type, Document document) {
+        return mongoTemplate.getConverter().read(type, document);
+    }
+    
+    private List<String> collectionsOf(Target target) {
+        switch (target) {
+            case CUSTOMERS:
+                return List.of(mongoTemplate.getCollectionName(Customer.class));
+            case ACCOUNTS:
+                return List.of(mongoTemplate.getCollectionName(Account.class));
+            case TRANSACTIONS:
+                return List.of(mongoTemplate.getCollectionName(Transaction.class));
+            default:
+                return auditPartitions.allCollections();
+        }
+    }
+    
+    /**
+     * Counters and resume position of one target's resync; safe to read while it runs
+     */
+    public static class Progress {
+        private final AtomicLong read = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        
+        private volatile String collection;
+        private volatile Object watermark;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String lastError;
+        private volatile boolean cancelled;
+        
+        // The resume position of the collection before this run, and the ranges it is read in
+        private Object baseWatermark;
+        private RangeProgress[] ranges = new RangeProgress[0];
+        
+        public Progress() {}
+        
+        /**
+         * Resume after the given _id of the given collection, continuing the checkpointed counters
+         */
+        public Progress(String collection, Object watermark, long read, long written, long failed) {
+            this.collection = collection;
+            this.watermark = watermark;
+            this.read.set(read);
+            this.written.set(written);
+            this.failed.set(failed);
+        }
+        
+        public void cancel() {
+            cancelled = true;
+        }
+        
+        private void start() {
+            startedAt = LocalDateTime.now();
+        }
+        
+        private void finish() {
+            finishedAt = LocalDateTime.now();
+        }
+        
+        private synchronized void moveTo(String collection, Object watermark, int rangeCount) {
+            this.collection = collection;
+            this.watermark = watermark;
+            this.baseWatermark = watermark;
+            ranges = new RangeProgress[rangeCount];
+            for (int range = 0; range < rangeCount; range++) {
+                ranges[range] = new RangeProgress();
+            }
+        }
+        
+        private synchronized long read(int range, int count) {
+            read.addAndGet(count);
+            return ranges[range].nextSequence++;
+        }
+        
+        /**
+         * Every page of the range has been handed to the writers
+         */
+        private synchronized void rangeRead(int range) {
+            ranges[range].allRead = true;
+            advance();
+        }
+        
+        private void written(int count) {
+            written.addAndGet(count);
+        }
+        
+        private void fail(int count, Exception e) {
+            failed.addAndGet(count);
+            lastError = e.getMessage();
+        }
+        
+        /**
+         * Record a finished page of a range; lastId is null when the page was not fully written
+         */
+        private synchronized void complete(int range, long sequence, Object lastId) {
+            RangeProgress progress = ranges[range];
+            if (lastId == null) {
+                progress.holed = true;
+            }
+            if (progress.holed) {
+                progress.completed.clear();
+                return;
+            }
+            progress.completed.put(sequence, lastId);
+            while (progress.completed.containsKey(progress.nextToComplete)) {
+                progress.watermark = progress.completed.remove(progress.nextToComplete);
+                progress.nextToComplete++;
+            }
+            advance();
+        }
+        
+        /**
+         * Move the collection's resume position through the finished ranges and into the first unfinished one
+         */
+        private void advance() {
+            Object position = baseWatermark;
+            for (RangeProgress progress : ranges) {
+                if (progress.watermark != null) {
+                    position = progress.watermark;
+                }
+                if (progress.holed || !progress.allRead || progress.nextToComplete < progress.nextSequence) {
+                    break;
+                }
+            }
+            watermark = position;
+        }
+        
+        public long getRead() { return read.get(); }
+        public long getWritten() { return written.get(); }
+        public long getFailed() { return failed.get(); }
+        public String getCollection() { return collection; }
+        public Object getWatermark() { return watermark; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getLastError() { return lastError; }
+        public boolean isCancelled() { return cancelled; }
+        
+        /**
+         * Pages of one _id range finished out of order, waiting for the ones before them
+         */
+        private static class RangeProgress {
+            private final TreeMap<Long, Object> completed = new TreeMap<>();
+            private long nextSequence;
+            private long nextToComplete;
+            private Object watermark;
+            private boolean allRead;
+            
+            // Set once a page fails, so the resume position never moves past unwritten documents
+            private boolean holed;
+        }
+        
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("read", read.get());
+            map.put("written", written.get());
+            map.put("failed", failed.get());
+            map.put("collection", collection);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            map.put("lastError", lastError);
+            return map;
+        }
+    }
+}
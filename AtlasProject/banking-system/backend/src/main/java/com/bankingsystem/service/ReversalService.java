@@ -0,0 +1,534 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.model.UndoHistory;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.util.AccountCache;
+import com.bankingsystem.util.AccountLaneExecutor;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.SettlementQueue;
+import com.bankingsystem.util.UndoRedoStack;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Undo and redo as compensating postings. Undoing a transaction posts its opposite as a new
+ * reversal transaction and marks the original REVERSED; redoing posts the original movement again
+ * and marks the reversal REVERSED. Exactly one caller wins each step because the status change is
+ * a conditional update, so repeated or concurrent clicks cannot move money twice. The compensating
+ * transaction is recorded before any money moves, and each leg is a single conditional balance
+ * update on the account's lane, the same path normal transactions take.
+ */
+@Service
+public class ReversalService {
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private AccountLaneExecutor accountLanes;
+    
+    @Autowired
+    private AccountCache accountCache;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private SettlementQueue settlementQueue;
+    
+    @Autowired
+    private UndoRedoStack undoRedoStack;
+    
+    @Autowired
+    private TransactionLimitService transactionLimits;
+    
+    @Autowired
+    private AuditService auditService;
+    
+    /**
+     * Reverse the most recent transaction on the account's undo stack
+     */
+    public Transaction undoLast(String accountId, String userId) {
+        String skipped = null;
+        while (true) {
+            UndoHistory.Entry record = undoRedoStack.peekUndo(accountId);
+            if (record == null) {
+                throw new RuntimeException("No transactions available to undo");
+            }
+            if (record.getTransactionId().equals(skipped)) {
+                throw new RuntimeException("Undo history of account " + accountId + " is out of date, try again");
+            }
+            Transaction original = load(record, accountId);
+            if (original.getStatus() != Transaction.TransactionStatus.REVERSED) {
+                return reverse(original, userId);
+            }
+            // Undone earlier, but the move to the redo stack was lost
+            moveEntries(original, true);
+            skipped = record.getTransactionId();
+        }
+    }
+    
+    /**
+     * Re-apply the most recently undone transaction on the account's redo stack
+     */
+    public Transaction redoLast(String accountId, String userId) {
+        String skipped = null;
+        while (true) {
+            UndoHistory.Entry record = undoRedoStack.peekRedo(accountId);
+            if (record == null) {
+                throw new RuntimeException("No transactions available to redo");
+            }
+            if (record.getTransactionId().equals(skipped)) {
+                throw new RuntimeException("Redo history of account " + accountId + " is out of date, try again");
+            }
+            Transaction original = load(record, accountId);
+            if (original.getStatus() != Transaction.TransactionStatus.COMPLETED) {
+                return reapply(original, userId);
+            }
+            // Redone earlier, but the move back to the undo stack was lost
+            moveEntries(original, false);
+            skipped = record.getTransactionId();
+        }
+    }
+    
+    /**
+     * Reverse transactions by ID, for bulk error correction; each one succeeds or fails on its own.
+     * The reversals are recorded with one insert and queued for settlement together, each debit is
+     * checked against its own account, and the credits are netted into one update per account.
+     */
+    public Map<String, Object> reverseAll(List<String> transactionIds, String userId) {
+        Map<String, Transaction> found = new HashMap<>();
+        for (Transaction transaction : transactionRepository.findByTransactionIdIn(transactionIds)) {
+            found.put(transaction.getTransactionId(), transaction);
+        }
+        
+        // Claim every original first; one that is missing, not reversible or already reversed fails here
+        Map<String, Transaction> originals = new LinkedHashMap<>();
+        Map<String, Transaction> reversals = new LinkedHashMap<>();
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (String transactionId : new LinkedHashSet<>(transactionIds)) {
+            Transaction original = found.get(transactionId);
+            try {
+                if (original == null) {
+                    throw new RuntimeException("Transaction not found");
+                }
+                requireReversibleType(original);
+                String reversalId = idGenerator.nextId(IdGenerator.REVERSAL);
+                if (!transactionRepository.compareAndSetStatus(transactionId, Transaction.TransactionStatus.COMPLETED,
+                        Transaction.TransactionStatus.REVERSED, "Reversed by " + reversalId)) {
+                    throw new RuntimeException("Transaction " + transactionId + " is not completed or was already reversed");
+                }
+                originals.put(transactionId, original);
+                reversals.put(transactionId, compensating(reversalId, original, true));
+            } catch (RuntimeException e) {
+                failures.put(transactionId, e.getMessage());
+            }
+        }
+        
+        // Record the reversals before any money moves, so each one can be redone later
+        try {
+            if (!reversals.isEmpty()) {
+                transactionRepository.insert(reversals.values());
+            }
+        } catch (RuntimeException e) {
+            for (String transactionId : reversals.keySet()) {
+                failures.put(transactionId, "Failed to record reversal: " + e.getMessage());
+            }
+            restore(originals, new ArrayList<>(reversals.keySet()));
+            reversals.clear();
+        }
+        
+        Map<String, Map<String, BigDecimal>> posted = new LinkedHashMap<>();
+        Map<String, BigDecimal> credits = new LinkedHashMap<>();
+        Map<String, List<String>> credited = new HashMap<>();
+        List<String> rejected = new ArrayList<>();
+        for (String transactionId : reversals.keySet()) {
+            Map<String, BigDecimal> deltas = deltas(originals.get(transactionId), true);
+            try {
+                deltas.forEach((accountNumber, delta) -> {
+                    if (delta.signum() < 0) {
+                        debit(accountNumber, delta.negate());
+                    }
+                });
+            } catch (RuntimeException e) {
+                failures.put(transactionId, e.getMessage());
+                rejected.add(transactionId);
+                continue;
+            }
+            posted.put(transactionId, deltas);
+            deltas.forEach((accountNumber, delta) -> {
+                if (delta.signum() > 0) {
+                    credits.merge(accountNumber, delta, BigDecimal::add);
+                    credited.computeIfAbsent(accountNumber, k -> new ArrayList<>()).add(transactionId);
+                }
+            });
+        }
+        for (Map.Entry<String, BigDecimal> credit : credits.entrySet()) {
+            String accountNumber = credit.getKey();
+            RuntimeException error = null;
+            try {
+                if (adjust(accountNumber, credit.getValue()).isEmpty()) {
+                    error = new RuntimeException("Account not found: " + accountNumber);
+                }
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            if (error != null) {
+                // Give back the debits of every reversal that was to credit this account
+                for (String transactionId : credited.get(accountNumber)) {
+                    StringBuilder message = new StringBuilder(error.getMessage());
+                    posted.remove(transactionId).forEach((debited, delta) -> {
+                        if (delta.signum() < 0) {
+                            try {
+                                adjust(debited, delta.negate())
+                                        .orElseThrow(() -> new RuntimeException("Account not found: " + debited));
+                            } catch (RuntimeException e) {
+                                message.append("; the debit from account ").append(debited)
+                                        .append(" could not be given back: ").append(e.getMessage());
+                            }
+                        }
+                    });
+                    failures.put(transactionId, message.toString());
+                    rejected.add(transactionId);
+                }
+            }
+        }
+        if (!rejected.isEmpty()) {
+            // These reversals moved no money, or had it given back; the successful ones still complete below
+            List<String> rejectedIds = rejected.stream()
+                    .map(transactionId -> reversals.remove(transactionId).getId())
+                    .toList();
+            try {
+                transactionRepository.deleteAllById(rejectedIds);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Failed to delete rejected reversals of " + rejected + ": " + e.getMessage());
+            }
+            restore(originals, rejected);
+        }
+        
+        List<Transaction> completed = new ArrayList<>(reversals.values());
+        settlementQueue.enqueueAll(completed);
+        Map<String, List<String>> moves = new LinkedHashMap<>();
+        for (String transactionId : reversals.keySet()) {
+            Transaction original = originals.get(transactionId);
+            original.markAsReversed("Reversed by " + reversals.get(transactionId).getTransactionId());
+            transactionLimits.releaseDebit(original);
+            for (String accountId : accountIds(original)) {
+                moves.computeIfAbsent(accountId, k -> new ArrayList<>()).add(transactionId);
+            }
+            auditService.logSuccess(userId, "UNDO_TRANSACTION", "TRANSACTION", transactionId,
+                    "Reversed " + original.getType().getDisplayName().toLowerCase() + " of ₹" + original.getAmount()
+                            + " with " + reversals.get(transactionId).getTransactionId());
+        }
+        moves.forEach((accountId, moved) -> {
+            try {
+                undoRedoStack.moveAllToRedo(accountId, moved);
+            } catch (Exception e) {
+                System.err.println("❌ Failed to update undo history for account " + accountId + ": " + e.getMessage());
+            }
+        });
+        
+        failures.forEach((transactionId, error) -> auditService.logFailure(userId, "UNDO_TRANSACTION", "TRANSACTION",
+                transactionId, "Failed to undo transaction " + transactionId, error));
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reversed", completed.size());
+        result.put("failed", failures.size());
+        result.put("reversals", completed);
+        result.put("failures", failures);
+        return result;
+    }
+    
+    /**
+     * Post the opposite of a completed transaction and mark it REVERSED
+     */
+    public Transaction reverse(Transaction original, String userId) {
+        requireReversibleType(original);
+        String reversalId = idGenerator.nextId(IdGenerator.REVERSAL);
+        String remarks = "Reversed by " + reversalId;
+        
+        // Claim the original first; a concurrent or repeated undo fails here without touching balances
+        if (!transactionRepository.compareAndSetStatus(original.getTransactionId(),
+                Transaction.TransactionStatus.COMPLETED, Transaction.TransactionStatus.REVERSED, remarks)) {
+            String error = "Transaction " + original.getTransactionId() + " is not completed or was already reversed";
+            auditService.logFailure(userId, "UNDO_TRANSACTION", "TRANSACTION", original.getTransactionId(),
+                    "Failed to undo transaction " + original.getTransactionId(), error);
+            throw new RuntimeException(error);
+        }
+        
+        // Record the reversal before any money moves, so a redo can always find it
+        Transaction reversal = compensating(reversalId, original, true);
+        boolean recorded = false;
+        try {
+            transactionRepository.save(reversal);
+            recorded = true;
+            post(original, true);
+        } catch (RuntimeException e) {
+            if (recorded) {
+                transactionRepository.delete(reversal);
+            }
+            transactionRepository.compareAndSetStatus(original.getTransactionId(),
+                    Transaction.TransactionStatus.REVERSED, Transaction.TransactionStatus.COMPLETED, original.getRemarks());
+            auditService.logFailure(userId, "UNDO_TRANSACTION", "TRANSACTION", original.getTransactionId(),
+                    "Failed to undo transaction " + original.getTransactionId(), e.getMessage());
+            throw e;
+        }
+        original.markAsReversed(remarks);
+        
+        // The money has moved; nothing after this point may fail the undo
+        settlementQueue.enqueue(reversal);
+        transactionLimits.releaseDebit(original);
+        moveEntries(original, true);
+        
+        auditService.logSuccess(userId, "UNDO_TRANSACTION", "TRANSACTION", original.getTransactionId(),
+                "Reversed " + original.getType().getDisplayName().toLowerCase() + " of ₹" + original.getAmount()
+                        + " with " + reversalId);
+        return reversal;
+    }
+    
+    /**
+     * Post an undone transaction's movement again and mark its reversal REVERSED
+     */
+    public Transaction reapply(Transaction original, String userId) {
+        requireReversibleType(original);
+        Transaction reversal = transactionRepository.findFirstByReversalOfAndStatus(original.getTransactionId(),
+                        Transaction.TransactionStatus.COMPLETED)
+                .orElseThrow(() -> new RuntimeException(
+                        "Transaction " + original.getTransactionId() + " has no reversal to redo"));
+        String redoId = idGenerator.nextId(IdGenerator.REVERSAL);
+        String remarks = "Redone by " + redoId;
+        
+        // Claim the reversal; a concurrent or repeated redo fails here without touching balances
+        if (!transactionRepository.compareAndSetStatus(reversal.getTransactionId(),
+                Transaction.TransactionStatus.COMPLETED, Transaction.TransactionStatus.REVERSED, remarks)) {
+            String error = "Transaction " + original.getTransactionId() + " was already redone";
+            auditService.logFailure(userId, "REDO_TRANSACTION", "TRANSACTION", original.getTransactionId(),
+                    "Failed to redo transaction " + original.getTransactionId(), error);
+            throw new RuntimeException(error);
+        }
+        
+        // Restore the original and record the redo before any money moves, so the next undo finds both
+        Transaction redo = compensating(redoId, original, false);
+        redo.setReversalOf(reversal.getTransactionId());
+        boolean restored = false;
+        boolean recorded = false;
+        try {
+            restored = transactionRepository.compareAndSetStatus(original.getTransactionId(),
+                    Transaction.TransactionStatus.REVERSED, Transaction.TransactionStatus.COMPLETED, remarks);
+            if (!restored) {
+                throw new RuntimeException("Transaction " + original.getTransactionId() + " is not reversed");
+            }
+            transactionRepository.save(redo);
+            recorded = true;
+            post(original, false);
+        } catch (RuntimeException e) {
+            if (recorded) {
+                transactionRepository.delete(redo);
+            }
+            if (restored) {
+                transactionRepository.compareAndSetStatus(original.getTransactionId(),
+                        Transaction.TransactionStatus.COMPLETED, Transaction.TransactionStatus.REVERSED,
+                        original.getRemarks());
+            }
+            transactionRepository.compareAndSetStatus(reversal.getTransactionId(),
+                    Transaction.TransactionStatus.REVERSED, Transaction.TransactionStatus.COMPLETED, null);
+            auditService.logFailure(userId, "REDO_TRANSACTION", "TRANSACTION", original.getTransactionId(),
+                    "Failed to redo transaction " + original.getTransactionId(), e.getMessage());
+            throw e;
+        }
+        original.markAsCompleted();
+        original.setRemarks(remarks);
+        
+        // The money has moved; nothing after this point may fail the redo
+        settlementQueue.enqueue(redo);
+        transactionLimits.recountDebit(original);
+        moveEntries(original, false);
+        
+        auditService.logSuccess(userId, "REDO_TRANSACTION", "TRANSACTION", original.getTransactionId(),
+                "Re-applied " + original.getType().getDisplayName().toLowerCase() + " of ₹" + original.getAmount()
+                        + " with " + redoId);
+        return redo;
+    }
+    
+    /**
+     * Move the transaction's money forwards, or backwards when reversing. Money leaving an account
+     * must be covered by its balance and is moved first; money arriving is a compensating credit
+     * that lands whatever the account's status. If a credit fails, the debits already made are undone.
+     */
+    private void post(Transaction transaction, boolean reverse) {
+        Map<String, BigDecimal> deltas = deltas(transaction, reverse);
+        deltas.forEach((accountNumber, delta) -> {
+            if (delta.signum() < 0) {
+                debit(accountNumber, delta.negate());
+            }
+        });
+        try {
+            deltas.forEach((accountNumber, delta) -> {
+                if (delta.signum() > 0) {
+                    adjust(accountNumber, delta)
+                            .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+                }
+            });
+        } catch (RuntimeException e) {
+            deltas.forEach((accountNumber, delta) -> {
+                if (delta.signum() < 0) {
+                    adjust(accountNumber, delta.negate());
+                }
+            });
+            throw e;
+        }
+    }
+    
+    /**
+     * Balance change per account number of the transaction's movement, negated when reversing
+     */
+    private static Map<String, BigDecimal> deltas(Transaction transaction, boolean reverse) {
+        Map<String, BigDecimal> deltas = new LinkedHashMap<>();
+        BigDecimal amount = transaction.getAmount();
+        String source = transaction.getSourceAccount().getAccountNumber();
+        switch (transaction.getType()) {
+            case DEPOSIT -> deltas.put(source, amount);
+            case WITHDRAWAL -> deltas.put(source, amount.negate());
+            default -> {
+                deltas.put(source, amount.negate());
+                deltas.put(transaction.getDestinationAccount().getAccountNumber(), amount);
+            }
+        }
+        if (reverse) {
+            deltas.replaceAll((accountNumber, delta) -> delta.negate());
+        }
+        return deltas;
+    }
+    
+    private void debit(String accountNumber, BigDecimal amount) {
+        accountLanes.execute(accountNumber, () ->
+                accountRepository.debitBalance(accountNumber, amount)
+                        .map(accountCache::refresh)
+                        .orElseThrow(() -> rejectedDebit(accountNumber, amount)));
+    }
+    
+    /**
+     * Give claimed originals back their COMPLETED status once their reversal has not gone through
+     */
+    private void restore(Map<String, Transaction> originals, List<String> transactionIds) {
+        for (String transactionId : transactionIds) {
+            try {
+                transactionRepository.compareAndSetStatus(transactionId, Transaction.TransactionStatus.REVERSED,
+                        Transaction.TransactionStatus.COMPLETED, originals.get(transactionId).getRemarks());
+            } catch (RuntimeException e) {
+                System.err.println("❌ Failed to restore transaction " + transactionId + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Move the transaction between the stacks of every account it touched. The money has already
+     * moved, so a failure only leaves a stale entry, which the next undo or redo steps over.
+     */
+    private void moveEntries(Transaction transaction, boolean toRedo) {
+        for (String accountId : accountIds(transaction)) {
+            try {
+                if (toRedo) {
+                    undoRedoStack.moveToRedo(accountId, transaction.getTransactionId());
+                } else {
+                    undoRedoStack.moveToUndo(accountId, transaction.getTransactionId());
+                }
+            } catch (Exception e) {
+                System.err.println("❌ Failed to update undo history for account " + accountId + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private Optional<Account> adjust(String accountNumber, BigDecimal delta) {
+        return accountLanes.execute(accountNumber, () ->
+                accountRepository.adjustBalance(accountNumber, delta).map(accountCache::refresh));
+    }
+    
+    /**
+     * The transaction recording a compensating posting: the mirror image of the original when reversing,
+     * the original movement again when redoing
+     */
+    private Transaction compensating(String transactionId, Transaction original, boolean reverse) {
+        Account source = original.getSourceAccount();
+        Account destination = original.getDestinationAccount();
+        
+        Transaction.TransactionType type = original.getType();
+        if (reverse && type == Transaction.TransactionType.DEPOSIT) {
+            type = Transaction.TransactionType.WITHDRAWAL;
+        } else if (reverse && type == Transaction.TransactionType.WITHDRAWAL) {
+            type = Transaction.TransactionType.DEPOSIT;
+        }
+        
+        Transaction transaction = reverse && destination != null
+                ? new Transaction(transactionId, type, original.getAmount(), destination, source,
+                        "Reversal of " + original.getTransactionId())
+                : new Transaction(transactionId, type, original.getAmount(), source, destination,
+                        (reverse ? "Reversal of " : "Redo of ") + original.getTransactionId());
+        transaction.setReferenceNumber(idGenerator.nextId(IdGenerator.REFERENCE));
+        transaction.setReversalOf(original.getTransactionId());
+        transaction.markAsCompleted();
+        transaction.setSettlementPending(true);
+        return transaction;
+    }
+    
+    /**
+     * Load the transaction behind a history record; if it is gone the account's history is stale and dropped
+     */
+    private Transaction load(UndoHistory.Entry record, String accountId) {
+        Optional<Transaction> transaction = transactionRepository.findByTransactionId(record.getTransactionId());
+        if (transaction.isEmpty()) {
+            undoRedoStack.clearStacks(accountId);
+            throw new RuntimeException("Transaction " + record.getTransactionId() + " no longer exists");
+        }
+        return transaction.get();
+    }
+    
+    private static void requireReversibleType(Transaction transaction) {
+        Transaction.TransactionType type = transaction.getType();
+        if (type != Transaction.TransactionType.DEPOSIT && type != Transaction.TransactionType.WITHDRAWAL
+                && type != Transaction.TransactionType.TRANSFER) {
+            throw new RuntimeException(type.getDisplayName() + " transactions cannot be reversed");
+        }
+        if (transaction.getReversalOf() != null) {
+            throw new RuntimeException("Transaction " + transaction.getTransactionId() + " is itself a reversal");
+        }
+    }
+    
+    private static List<String> accountIds(Transaction transaction) {
+        List<String> accountIds = new ArrayList<>(2);
+        accountIds.add(transaction.getSourceAccount().getId());
+        if (transaction.getDestinationAccount() != null) {
+            accountIds.add(transaction.getDestinationAccount().getId());
+        }
+        return accountIds;
+    }
+    
+    /**
+     * Explain why a conditional debit matched no account
+     */
+    private RuntimeException rejectedDebit(String accountNumber, BigDecimal amount) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return new RuntimeException("Account is not active: " + accountNumber);
+        }
+        return new RuntimeException("Insufficient balance in account " + accountNumber + ". Available: ₹"
+                + account.getBalance() + ", Required: ₹" + amount);
+    }
+}
@@ -0,0 +1,340 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.SettlementEntry;
+import com.bankingsystem.model.SettlementNettingReport;
+import com.bankingsystem.model.SettlementPosition;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.NettingBook;
+import com.bankingsystem.util.SettlementQueue;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settles the queue in claimed batches. Each batch is first netted into one position per account,
+ * then the accounts of each leased partition are settled by one worker with a single update per
+ * account while different partitions run in parallel. Each position write records the queue entries
+ * it applied and is refused if the position already holds any of them, so re-running a partly
+ * settled batch cannot count a leg twice; an entry is only acknowledged once the position holds it,
+ * and is dropped from the position after the acknowledgement lands. A position also only accepts
+ * writes carrying a lease token at least as new as the last one it saw, so an instance that lost
+ * its partition cannot write behind the new holder. Runs stop at banking.settlement.timeout;
+ * whatever was claimed but not reached goes back to the queue.
+ */
+@Service
+public class SettlementEngine {
+    
+    @Autowired
+    private SettlementQueue settlementQueue;
+    
+    @Autowired
+    private SettlementLeaseManager leaseManager;
+    
+    @Autowired
+    private SettlementRetryService retryService;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Value("${banking.settlement.batch-size:1000}")
+    private int batchSize;
+    
+    @Value("${banking.settlement.timeout:300000}")
+    private long timeoutMillis;
+    
+    @Value("${banking.settlement.parallelism:0}")
+    private int configuredParallelism;
+    
+    @Value("${banking.settlement.netting.pairs:false}")
+    private boolean netPairs;
+    
+    private ExecutorService workers;
+    
+    @PostConstruct
+    public void start() {
+        int parallelism = configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "settlement-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+    
+    /**
+     * Settle queued entries of the partitions this instance holds until they are empty or the
+     * timeout is reached
+     */
+    public synchronized RunResult run() {
+        long startedAt = System.currentTimeMillis();
+        long deadline = startedAt + timeoutMillis;
+        RunResult result = new RunResult();
+        
+        while (System.currentTimeMillis() < deadline) {
+            Map<Integer, Long> fences = leaseManager.heldPartitions();
+            List<SettlementEntry> batch = settlementQueue.drainTo(batchSize, fences);
+            if (batch.isEmpty()) {
+                break;
+            }
+            settleBatch(batch, fences, deadline, result);
+            result.batches++;
+        }
+        
+        result.timedOut = System.currentTimeMillis() >= deadline;
+        result.durationMillis = System.currentTimeMillis() - startedAt;
+        result.remaining = settlementQueue.getPendingCount();
+        return result;
+    }
+    
+    /**
+     * Net one claimed batch, settle its accounts partition by partition and acknowledge,
+     * retry or requeue each entry
+     */
+    private void settleBatch(List<SettlementEntry> batch, Map<Integer, Long> fences, long deadline, RunResult result) {
+        NettingBook book = NettingBook.of(batch, netPairs);
+        Map<Integer, List<Integer>> accountsByPartition = new HashMap<>();
+        for (int account = 0; account < book.accountCount(); account++) {
+            int partition = SettlementQueue.partitionOf(book.accountNumber(account), leaseManager.getPartitionCount());
+            accountsByPartition.computeIfAbsent(partition, p -> new ArrayList<>()).add(account);
+        }
+        
+        List<Future<PartitionOutcome>> futures = new ArrayList<>();
+        accountsByPartition.forEach((partition, accounts) -> futures.add(workers.submit(
+                () -> settlePartition(book, accounts, partition, fences.get(partition), deadline))));
+        
+        Map<String, String> failed = new HashMap<>();
+        Set<String> unattempted = new HashSet<>();
+        List<Integer> settledAccounts = new ArrayList<>();
+        int positionWrites = 0;
+        for (Future<PartitionOutcome> future : futures) {
+            try {
+                PartitionOutcome outcome = future.get();
+                outcome.failed.forEach((account, error) -> {
+                    for (String entryId : book.entryIds(account)) {
+                        failed.putIfAbsent(entryId, error);
+                    }
+                });
+                for (int account : outcome.unattempted) {
+                    unattempted.addAll(book.entryIds(account));
+                }
+                settledAccounts.addAll(outcome.settled);
+                positionWrites += outcome.positionWrites;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Settlement interrupted", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Settlement partition failed", e.getCause());
+            }
+        }
+        for (String entryId : book.rejectedEntryIds()) {
+            failed.put(entryId, "Amount has more than two decimal places");
+        }
+        unattempted.removeAll(failed.keySet());
+        
+        List<String> settled = new ArrayList<>(batch.size());
+        for (SettlementEntry entry : batch) {
+            if (!failed.containsKey(entry.getId()) && !unattempted.contains(entry.getId())) {
+                settled.add(entry.getId());
+            }
+        }
+        saveReport(book, batch.size(), settledAccounts, positionWrites);
+        releaseApplied(book, settledAccounts, settlementQueue.acknowledge(settled));
+        retryService.handleFailures(failed);
+        settlementQueue.requeue(unattempted);
+        
+        result.settled += settled.size();
+        result.failed += failed.size();
+        result.requeued += unattempted.size();
+        result.legs += book.legCount();
+        result.positionWrites += positionWrites;
+        for (Map.Entry<String, String> failure : failed.entrySet()) {
+            System.err.println("❌ Failed to settle entry " + failure.getKey() + ": " + failure.getValue());
+        }
+    }
+    
+    /**
+     * Settle one partition's accounts, one position update each, until the deadline passes or
+     * the partition's lease is lost
+     */
+    private PartitionOutcome settlePartition(NettingBook book, List<Integer> accounts, int partition, long fence,
+                                             long deadline) {
+        PartitionOutcome outcome = new PartitionOutcome();
+        for (int account : accounts) {
+            if (System.currentTimeMillis() >= deadline || !leaseManager.holds(partition, fence)) {
+                outcome.unattempted.add(account);
+                continue;
+            }
+            try {
+                outcome.positionWrites += applyNet(book, account, fence);
+                outcome.settled.add(account);
+            } catch (Exception e) {
+                if (leaseManager.holds(partition, fence)) {
+                    outcome.failed.put(account, e.getMessage());
+                } else {
+                    // The new holder takes these entries over; it does not count as an attempt
+                    outcome.unattempted.add(account);
+                }
+            }
+        }
+        return outcome;
+    }
+    
+    /**
+     * Add the account's net for the batch to its settlement position in one write, recording the
+     * entries it covers. The write is refused if the position already holds any of them or a newer
+     * lease holder has written it; legs are only reported as settled when the position proves it.
+     * If an earlier attempt applied some of these legs, the rest are netted again and applied with
+     * a write guarded the same way.
+     */
+    private int applyNet(NettingBook book, int account, long fence) {
+        String accountNumber = book.accountNumber(account);
+        List<String> entryIds = book.entryIds(account);
+        try {
+            Query fresh = new Query(Criteria.where("_id").is(accountNumber).and("appliedEntryIds").nin(entryIds)
+                    .orOperator(Criteria.where("fence").lte(fence), Criteria.where("fence").exists(false)));
+            UpdateResult updated = mongoTemplate.upsert(fresh, netUpdate(book.creditPaise(account),
+                    book.debitPaise(account), entryIds, fence), SettlementPosition.class);
+            if (updated.getMatchedCount() > 0 || updated.getUpsertedId() != null) {
+                return 1;
+            }
+        } catch (DuplicateKeyException e) {
+            // The position exists but refused the write
+        }
+        
+        SettlementPosition position = mongoTemplate.findById(accountNumber, SettlementPosition.class);
+        if (position != null && position.getFence() > fence) {
+            throw new RuntimeException("Settlement lease for " + accountNumber + " was taken over");
+        }
+        Set<String> applied = position != null && position.getAppliedEntryIds() != null
+                ? new HashSet<>(position.getAppliedEntryIds()) : Set.of();
+        List<String> remaining = book.entryIdsExcluding(account, applied);
+        if (remaining.isEmpty()) {
+            // An earlier attempt applied every leg but did not get to acknowledge them
+            return 0;
+        }
+        long[] net = book.netExcluding(account, applied);
+        Query resume = new Query(Criteria.where("_id").is(accountNumber).and("appliedEntryIds").nin(remaining)
+                .orOperator(Criteria.where("fence").lte(fence), Criteria.where("fence").exists(false)));
+        if (mongoTemplate.updateFirst(resume, netUpdate(net[0], net[1], remaining, fence),
+                SettlementPosition.class).getMatchedCount() == 0) {
+            throw new RuntimeException("Settlement position of " + accountNumber + " changed concurrently");
+        }
+        return 1;
+    }
+    
+    private static Update netUpdate(long creditPaise, long debitPaise, List<String> entryIds, long fence) {
+        Update update = new Update()
+                .inc("settledCredits", new Decimal128(BigDecimal.valueOf(creditPaise, 2)))
+                .inc("settledDebits", new Decimal128(BigDecimal.valueOf(debitPaise, 2)))
+                .inc("settledCount", entryIds.size())
+                .set("fence", fence)
+                .set("updatedAt", LocalDateTime.now());
+        update.push("appliedEntryIds").each(entryIds.toArray());
+        return update;
+    }
+    
+    /**
+     * Drop acknowledged entries from the positions that applied them; entries whose acknowledgement
+     * did not land stay, so whoever claims them next finds them already applied
+     */
+    private void releaseApplied(NettingBook book, List<Integer> settledAccounts, List<String> acknowledged) {
+        if (settledAccounts.isEmpty() || acknowledged.isEmpty()) {
+            return;
+        }
+        List<String> accountNumbers = new ArrayList<>(settledAccounts.size());
+        for (int account : settledAccounts) {
+            accountNumbers.add(book.accountNumber(account));
+        }
+        try {
+            mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(accountNumbers)),
+                    new Update().pullAll("appliedEntryIds", acknowledged.toArray()), SettlementPosition.class);
+        } catch (Exception e) {
+            // Left behind, they only mark entries that are already settled
+            System.err.println("❌ Failed to release applied settlement entries: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Record which transactions each settled account's net covers
+     */
+    private void saveReport(NettingBook book, int entries, List<Integer> settledAccounts, int positionWrites) {
+        SettlementNettingReport report = new SettlementNettingReport(idGenerator.nextId(IdGenerator.SETTLEMENT));
+        report.setEntries(entries);
+        report.setLegs(book.legCount());
+        report.setPositionWrites(positionWrites);
+        for (int account : settledAccounts) {
+            report.getAccounts().add(new SettlementNettingReport.AccountNet(book.accountNumber(account),
+                    BigDecimal.valueOf(book.creditPaise(account), 2), BigDecimal.valueOf(book.debitPaise(account), 2),
+                    book.transactionIds(account)));
+        }
+        report.setPairs(book.pairPositions());
+        try {
+            mongoTemplate.save(report);
+        } catch (Exception e) {
+            System.err.println("❌ Failed to save settlement netting report " + report.getBatchId() + ": " + e.getMessage());
+        }
+    }
+    
+    private static class PartitionOutcome {
+        private final List<Integer> settled = new ArrayList<>();
+        private final Map<Integer, String> failed = new HashMap<>();
+        private final List<Integer> unattempted = new ArrayList<>();
+        private int positionWrites;
+    }
+    
+    /**
+     * Totals of one settlement run
+     */
+    public static class RunResult {
+        private long settled;
+        private long failed;
+        private long requeued;
+        private long legs;
+        private long positionWrites;
+        private int batches;
+        private boolean timedOut;
+        private long durationMillis;
+        private long remaining;
+        
+        public long getSettled() { return settled; }
+        public long getFailed() { return failed; }
+        public long getRequeued() { return requeued; }
+        public long getLegs() { return legs; }
+        public long getPositionWrites() { return positionWrites; }
+        public int getBatches() { return batches; }
+        public boolean isTimedOut() { return timedOut; }
+        public long getDurationMillis() { return durationMillis; }
+        public long getRemaining() { return remaining; }
+    }
+}
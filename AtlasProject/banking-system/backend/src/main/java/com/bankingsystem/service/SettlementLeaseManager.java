@@ -0,0 +1,218 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.SettlementLease;
+import com.bankingsystem.model.SettlementNode;
+import com.bankingsystem.util.SettlementQueue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the settlement partitions between the running instances. Every instance heartbeats into
+ * settlement_nodes and holds leases on roughly partitions / live nodes partitions in settlement_leases.
+ * Each acquisition bumps the lease's token, and settlement writes carry the token they were claimed
+ * under, so an instance that stalls past its lease cannot overwrite work done by the new holder.
+ */
+@Service
+public class SettlementLeaseManager {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private SettlementQueue settlementQueue;
+    
+    @Value("${banking.settlement.partitions:16}")
+    private int partitionCount;
+    
+    @Value("${banking.settlement.lease.ttl-ms:15000}")
+    private long ttlMillis;
+    
+    // Partition held -> fencing token, valid until heldUntilNanos on this JVM's clock
+    private volatile Map<Integer, Long> held = Map.of();
+    private volatile long heldUntilNanos;
+    
+    @PostConstruct
+    public void start() {
+        try {
+            // Node documents disappear shortly after their expiry; leases are never deleted
+            // because their token must keep increasing
+            mongoTemplate.indexOps(SettlementNode.class)
+                    .ensureIndex(new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+            mongoTemplate.indexOps(SettlementLease.class).ensureIndex(new Index().on("owner", Sort.Direction.ASC));
+            heartbeat();
+        } catch (Exception e) {
+            System.err.println("❌ Failed to join settlement partitioning: " + e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        // Hand the partitions over now instead of making the other instances wait out the TTL
+        held = Map.of();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            mongoTemplate.updateMulti(new Query(Criteria.where("owner").is(nodeId())),
+                    new Update().unset("owner").set("expiresAt", now), SettlementLease.class);
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(nodeId())), SettlementNode.class);
+        } catch (Exception e) {
+            System.err.println("❌ Failed to release settlement partitions: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Announce this instance, renew its leases and move towards an even share of the partitions
+     */
+    @Scheduled(fixedDelayString = "${banking.settlement.lease.renew-ms:5000}")
+    public synchronized void heartbeat() {
+        long startedNanos = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(nodeId())), new Update()
+                .set("heartbeatAt", now)
+                .set("expiresAt", expiresAt)
+                .set("partitions", new ArrayList<>(held.keySet())), SettlementNode.class);
+        long liveNodes = Math.max(1, mongoTemplate.count(new Query(Criteria.where("expiresAt").gt(now)),
+                SettlementNode.class));
+        int share = (int) ((partitionCount + liveNodes - 1) / liveNodes);
+        
+        TreeMap<Integer, Long> renewed = new TreeMap<>();
+        for (Map.Entry<Integer, Long> lease : held.entrySet()) {
+            if (mongoTemplate.updateFirst(ownLease(lease.getKey(), lease.getValue()),
+                    new Update().set("expiresAt", expiresAt), SettlementLease.class).getMatchedCount() > 0) {
+                renewed.put(lease.getKey(), lease.getValue());
+            } else {
+                System.out.println("ℹ️ Lost settlement partition " + lease.getKey());
+            }
+        }
+        
+        // Give up the highest partitions above our share so a newly started instance can take them
+        while (renewed.size() > share) {
+            Map.Entry<Integer, Long> extra = renewed.pollLastEntry();
+            mongoTemplate.updateFirst(ownLease(extra.getKey(), extra.getValue()),
+                    new Update().unset("owner").set("expiresAt", now), SettlementLease.class);
+        }
+        
+        // Start looking at a different partition on each instance so they do not all race for the same ones
+        int offset = Math.floorMod(nodeId().hashCode(), partitionCount);
+        for (int i = 0; i < partitionCount && renewed.size() < share; i++) {
+            int partition = (offset + i) % partitionCount;
+            if (!renewed.containsKey(partition)) {
+                SettlementLease lease = tryAcquire(partition, now, expiresAt);
+                if (lease != null) {
+                    renewed.put(partition, lease.getToken());
+                }
+            }
+        }
+        
+        if (!renewed.keySet().equals(held.keySet())) {
+            System.out.println("🔄 Settlement partitions held by " + nodeId() + ": " + renewed.keySet()
+                    + " (" + liveNodes + " live node(s))");
+        }
+        held = Collections.unmodifiableMap(renewed);
+        heldUntilNanos = startedNanos + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+    
+    /**
+     * Partitions this instance may settle right now, with their fencing tokens; empty once the
+     * leases may have expired without being renewed
+     */
+    public Map<Integer, Long> heldPartitions() {
+        return System.nanoTime() - heldUntilNanos < 0 ? held : Map.of();
+    }
+    
+    /**
+     * Check if this instance still holds a partition under the given token
+     */
+    public boolean holds(int partition, long token) {
+        Long current = heldPartitions().get(partition);
+        return current != null && current == token;
+    }
+    
+    public String nodeId() {
+        return settlementQueue.getOwner();
+    }
+    
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+    
+    /**
+     * Live instances and the partitions each of them holds
+     */
+    public Map<String, Object> getStatus() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("node", nodeId());
+        status.put("partitionCount", partitionCount);
+        status.put("heldPartitions", new ArrayList<>(heldPartitions().keySet()));
+        
+        Map<String, List<Integer>> owners = new TreeMap<>();
+        List<Integer> unowned = new ArrayList<>();
+        for (SettlementLease lease : mongoTemplate.find(new Query().with(Sort.by("_id")), SettlementLease.class)) {
+            if (lease.getOwner() != null && lease.getExpiresAt() != null && lease.getExpiresAt().isAfter(now)) {
+                owners.computeIfAbsent(lease.getOwner(), owner -> new ArrayList<>()).add(lease.getPartition());
+            } else {
+                unowned.add(lease.getPartition());
+            }
+        }
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        for (SettlementNode node : mongoTemplate.find(new Query(Criteria.where("expiresAt").gt(now))
+                .with(Sort.by("_id")), SettlementNode.class)) {
+            nodes.add(Map.of(
+                    "node", node.getNodeId(),
+                    "heartbeatAt", node.getHeartbeatAt(),
+                    "partitions", owners.getOrDefault(node.getNodeId(), List.of())));
+        }
+        status.put("nodes", nodes);
+        status.put("unownedPartitions", unowned);
+        return status;
+    }
+    
+    /**
+     * Take a partition that is unowned or whose lease has run out, bumping its token; returns null
+     * if another instance holds it. A partition seen for the first time is created by the upsert.
+     */
+    private SettlementLease tryAcquire(int partition, LocalDateTime now, LocalDateTime expiresAt) {
+        Query free = new Query(Criteria.where("_id").is(partition).orOperator(
+                Criteria.where("owner").is(null),
+                Criteria.where("expiresAt").lt(now)));
+        try {
+            return mongoTemplate.findAndModify(free, new Update()
+                            .set("owner", nodeId())
+                            .set("acquiredAt", now)
+                            .set("expiresAt", expiresAt)
+                            .inc("token", 1),
+                    FindAndModifyOptions.options().returnNew(true).upsert(true), SettlementLease.class);
+        } catch (DuplicateKeyException e) {
+            // The lease exists and is held by a live instance
+            return null;
+        }
+    }
+    
+    private Query ownLease(int partition, long token) {
+        return new Query(Criteria.where("_id").is(partition).and("owner").is(nodeId()).and("token").is(token));
+    }
+}
@@ -0,0 +1,263 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.SettlementDeadLetter;
+import com.bankingsystem.model.SettlementEntry;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.SettlementQueue;
+import com.bankingsystem.util.TimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries failed settlement entries with exponential backoff and moves the ones that keep failing
+ * to the settlement_dead_letters collection. Waiting retries are parked in the queue as RETRY and
+ * timed on a hashed timing wheel, which makes them claimable again when their backoff runs out.
+ * On startup the wheel is refilled with the retries due within one turn of it; a periodic sweep
+ * picks up the later ones, and those whose timer lived in an instance that has since stopped.
+ */
+@Service
+public class SettlementRetryService {
+    
+    private static final int PAGE_SIZE = 500;
+    
+    @Autowired
+    private SettlementQueue settlementQueue;
+    
+    @Autowired
+    private SettlementLeaseManager leaseManager;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.settlement.queue.max-attempts:5}")
+    private int maxAttempts;
+    
+    @Value("${banking.settlement.retry.base-delay-ms:1000}")
+    private long baseDelayMillis;
+    
+    @Value("${banking.settlement.retry.max-delay-ms:300000}")
+    private long maxDelayMillis;
+    
+    @Value("${banking.settlement.retry.wheel.tick-ms:100}")
+    private long tickMillis;
+    
+    @Value("${banking.settlement.retry.wheel.size:512}")
+    private int wheelSize;
+    
+    private TimingWheel<String> wheel;
+    private Counter retriedCounter;
+    private Counter deadLetteredCounter;
+    
+    @PostConstruct
+    public void start() {
+        wheel = new TimingWheel<>("settlement-retry-wheel", tickMillis, wheelSize, this::promote);
+        wheel.start();
+        retriedCounter = Counter.builder("banking.settlement.retries")
+                .description("Failed settlement entries scheduled for another attempt")
+                .register(meterRegistry);
+        deadLetteredCounter = Counter.builder("banking.settlement.dead_letters")
+                .description("Settlement entries moved to the dead-letter store")
+                .register(meterRegistry);
+        Gauge.builder("banking.settlement.retry.timers", wheel, TimingWheel::size)
+                .description("Retries waiting on the timing wheel")
+                .register(meterRegistry);
+        
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime oneTurn = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(tickMillis * wheelSize));
+            settlementQueue.forEachRetry(oneTurn, entry -> wheel.schedule(entry.getId(),
+                    entry.getRetryAt() != null ? Duration.between(now, entry.getRetryAt()).toMillis() : 0));
+            // Each page is removed from the queue as it is moved, so the next read returns the following one
+            List<SettlementEntry> failed;
+            do {
+                failed = settlementQueue.getEntries(SettlementEntry.EntryStatus.FAILED, PAGE_SIZE);
+                for (SettlementEntry entry : failed) {
+                    deadLetter(entry, SettlementEntry.EntryStatus.FAILED, entry.getLastError());
+                }
+            } while (failed.size() == PAGE_SIZE);
+            if (wheel.size() > 0) {
+                System.out.println("🔄 Restored " + wheel.size() + " settlement retries");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Failed to restore settlement retries: " + e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+    }
+    
+    /**
+     * Schedule each failed entry's next attempt, or dead-letter it once it is out of attempts
+     */
+    public void handleFailures(Map<String, String> errors) {
+        for (SettlementEntry entry : settlementQueue.getOwnedClaims(errors.keySet())) {
+            String error = errors.get(entry.getId());
+            if (entry.getAttempts() >= maxAttempts) {
+                deadLetter(entry, SettlementEntry.EntryStatus.CLAIMED, error);
+                continue;
+            }
+            long delay = backoffMillis(entry.getAttempts());
+            LocalDateTime retryAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delay));
+            if (settlementQueue.retryLater(entry.getId(), error, retryAt)) {
+                wheel.schedule(entry.getId(), delay);
+                retriedCounter.increment();
+            }
+        }
+    }
+    
+    /**
+     * Promote retries that are due but whose timer was lost with the instance that set it
+     */
+    @Scheduled(fixedDelayString = "${banking.settlement.retry.sweep-ms:30000}")
+    public void sweep() {
+        try {
+            List<String> due;
+            do {
+                due = settlementQueue.getDueRetries(LocalDateTime.now(), PAGE_SIZE);
+                settlementQueue.promoteRetries(due);
+            } while (due.size() == PAGE_SIZE);
+        } catch (Exception e) {
+            System.err.println("❌ Settlement retry sweep failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Dead letters matching the selection, newest first, with the total count
+     */
+    public Map<String, Object> getDeadLetters(String accountNumber, String transactionId, int limit) {
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("total", mongoTemplate.count(selection(null, accountNumber, transactionId, true),
+                SettlementDeadLetter.class));
+        page.put("deadLetters", mongoTemplate.find(selection(null, accountNumber, transactionId, true)
+                .with(Sort.by(Sort.Direction.DESC, "deadAt")).limit(limit), SettlementDeadLetter.class));
+        return page;
+    }
+    
+    /**
+     * Send the selected dead letters back to the queue with fresh attempts; returns how many were replayed
+     */
+    public int replay(List<String> ids, String accountNumber, String transactionId, boolean all) {
+        Query query = selection(ids, accountNumber, transactionId, all).with(Sort.by("deadAt")).limit(PAGE_SIZE);
+        int replayed = 0;
+        List<SettlementDeadLetter> page;
+        do {
+            page = mongoTemplate.find(query, SettlementDeadLetter.class);
+            List<SettlementEntry> entries = new ArrayList<>(page.size());
+            List<String> replayedIds = new ArrayList<>(page.size());
+            for (SettlementDeadLetter deadLetter : page) {
+                entries.add(new SettlementEntry(deadLetter, idGenerator.nextId(),
+                        SettlementQueue.partitionOf(deadLetter.getAccountNumber(), leaseManager.getPartitionCount())));
+                replayedIds.add(deadLetter.getId());
+            }
+            // Enqueue first: a crash in between leaves the dead letter in place, and replaying it
+            // again is harmless because the queue ignores entries it already holds
+            settlementQueue.enqueueEntries(entries);
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(replayedIds)), SettlementDeadLetter.class);
+            replayed += page.size();
+        } while (page.size() == PAGE_SIZE);
+        return replayed;
+    }
+    
+    /**
+     * Delete the selected dead letters for good; returns how many were removed
+     */
+    public long purge(List<String> ids, String accountNumber, String transactionId, boolean all) {
+        return mongoTemplate.remove(selection(ids, accountNumber, transactionId, all), SettlementDeadLetter.class)
+                .getDeletedCount();
+    }
+    
+    /**
+     * Retries waiting on this instance's timing wheel
+     */
+    public int getScheduledRetries() {
+        return wheel.size();
+    }
+    
+    public long getDeadLetterCount() {
+        return mongoTemplate.count(new Query(), SettlementDeadLetter.class);
+    }
+    
+    /**
+     * Exponential backoff from the base delay, capped, with up to 10% jitter so entries that failed
+     * together do not all come back on the same tick
+     */
+    private long backoffMillis(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        long delay = Math.min(maxDelayMillis, baseDelayMillis << doublings);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 10 + 1);
+    }
+    
+    private void promote(List<String> entryIds) {
+        settlementQueue.promoteRetries(entryIds);
+    }
+    
+    private void deadLetter(SettlementEntry entry, SettlementEntry.EntryStatus status, String error) {
+        // Written before the queue entry is removed, so a crash in between only repeats the move
+        SettlementDeadLetter deadLetter = new SettlementDeadLetter(entry, error);
+        boolean written = true;
+        try {
+            mongoTemplate.insert(deadLetter);
+        } catch (DuplicateKeyException e) {
+            // Left by an earlier attempt that stopped before the remove
+            written = false;
+        }
+        if (settlementQueue.remove(entry.getId(), status)) {
+            deadLetteredCounter.increment();
+            System.err.println("💥 Settlement entry " + entry.getId() + " moved to dead letters after "
+                    + entry.getAttempts() + " attempts: " + error);
+        } else if (written) {
+            // The entry is still live elsewhere, for example claimed after this process lost its lease
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(deadLetter.getId())
+                    .and("deadAt").is(deadLetter.getDeadAt())), SettlementDeadLetter.class);
+        }
+    }
+    
+    private static Query selection(List<String> ids, String accountNumber, String transactionId, boolean all) {
+        List<Criteria> filters = new ArrayList<>();
+        if (ids != null && !ids.isEmpty()) {
+            filters.add(Criteria.where("_id").in(ids));
+        }
+        if (accountNumber != null && !accountNumber.isBlank()) {
+            filters.add(Criteria.where("accountNumber").is(accountNumber));
+        }
+        if (transactionId != null && !transactionId.isBlank()) {
+            filters.add(Criteria.where("transactionId").is(transactionId));
+        }
+        if (filters.isEmpty()) {
+            if (!all) {
+                throw new RuntimeException("Select dead letters by ids, accountNumber or transactionId, or set all");
+            }
+            return new Query();
+        }
+        return new Query(new Criteria().andOperator(filters));
+    }
+}
@@ -0,0 +1,229 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.SettlementRun;
+import com.bankingsystem.repository.SettlementRunRepository;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.SettlementQueue;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs settlement inside the service. The nightly run follows banking.settlement.cron; in
+ * MICRO_BATCH mode the queue is also settled every interval-ms, or sooner once max-items
+ * entries have been enqueued since the last run, so the queue never builds up to one large
+ * nightly batch. Every run is stored in settlement_runs with its duration, rate and failures.
+ */
+@Service
+public class SettlementScheduler {
+    
+    public enum Mode {
+        CRON,
+        MICRO_BATCH
+    }
+    
+    @Autowired
+    private SettlementEngine settlementEngine;
+    
+    @Autowired
+    private SettlementQueue settlementQueue;
+    
+    @Autowired
+    private SettlementLeaseManager leaseManager;
+    
+    @Autowired
+    private SettlementRetryService retryService;
+    
+    @Autowired
+    private SettlementRunRepository runRepository;
+    
+    @Autowired
+    private AuditService auditService;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.settlement.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${banking.settlement.mode:CRON}")
+    private Mode mode;
+    
+    @Value("${banking.settlement.micro-batch.interval-ms:10000}")
+    private long intervalMillis;
+    
+    @Value("${banking.settlement.micro-batch.max-items:1000}")
+    private long maxItems;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private ExecutorService manualRuns;
+    
+    private volatile long lastRunAt = System.currentTimeMillis();
+    private volatile long enqueuedAtLastRun;
+    
+    private Counter settledCounter;
+    private Counter failedCounter;
+    
+    @PostConstruct
+    public void start() {
+        manualRuns = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "settlement-manual");
+            thread.setDaemon(true);
+            return thread;
+        });
+        settledCounter = Counter.builder("banking.settlement.settled")
+                .description("Queue entries settled")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("banking.settlement.failed")
+                .description("Queue entries that failed to settle")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        manualRuns.shutdownNow();
+    }
+    
+    /**
+     * Nightly settlement; in micro-batch mode it sweeps up whatever the small runs left behind
+     */
+    @Scheduled(cron = "${banking.settlement.cron:0 0 2 * * ?}")
+    public void nightly() {
+        if (enabled) {
+            run(SettlementRun.Trigger.CRON);
+        }
+    }
+    
+    /**
+     * Start a micro-batch run when enough entries were enqueued or the interval has passed
+     */
+    @Scheduled(fixedDelayString = "${banking.settlement.micro-batch.check-interval-ms:1000}")
+    public void microBatch() {
+        if (!enabled || mode != Mode.MICRO_BATCH) {
+            return;
+        }
+        if (settlementQueue.getEnqueuedCount() - enqueuedAtLastRun >= maxItems) {
+            run(SettlementRun.Trigger.THRESHOLD);
+        } else if (System.currentTimeMillis() - lastRunAt >= intervalMillis) {
+            run(SettlementRun.Trigger.INTERVAL);
+        }
+    }
+    
+    /**
+     * Start a run in the background unless one is already in progress
+     */
+    public boolean triggerNow() {
+        if (running.get()) {
+            return false;
+        }
+        manualRuns.submit(() -> run(SettlementRun.Trigger.MANUAL));
+        return true;
+    }
+    
+    /**
+     * Settle the queue now and record the run; returns null if a run is already in progress
+     */
+    public SettlementRun run(SettlementRun.Trigger trigger) {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        SettlementRun run = new SettlementRun(idGenerator.nextId(IdGenerator.SETTLEMENT_RUN), trigger,
+                settlementQueue.getOwner());
+        enqueuedAtLastRun = settlementQueue.getEnqueuedCount();
+        try {
+            SettlementEngine.RunResult result = settlementEngine.run();
+            run.setSettled(result.getSettled());
+            run.setFailed(result.getFailed());
+            run.setRequeued(result.getRequeued());
+            run.setLegs(result.getLegs());
+            run.setPositionWrites(result.getPositionWrites());
+            run.setTimedOut(result.isTimedOut());
+            run.setRemaining(result.getRemaining());
+        } catch (Exception e) {
+            run.setError(e.getMessage());
+            System.err.println("💥 Settlement run " + run.getRunId() + " failed: " + e.getMessage());
+        } finally {
+            lastRunAt = System.currentTimeMillis();
+            running.set(false);
+        }
+        
+        run.setFinishedAt(LocalDateTime.now());
+        run.setDurationMillis(Duration.between(run.getStartedAt(), run.getFinishedAt()).toMillis());
+        run.setItemsPerSecond(run.getDurationMillis() > 0 ? run.getSettled() * 1000.0 / run.getDurationMillis() : 0);
+        record(run);
+        return run;
+    }
+    
+    /**
+     * Get the most recent runs, newest first
+     */
+    public List<SettlementRun> getRecentRuns() {
+        return runRepository.findTop20ByOrderByStartedAtDesc();
+    }
+    
+    /**
+     * Queue depth, mode, partition ownership and last run
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("mode", mode);
+        status.put("running", running.get());
+        status.put("queueDepth", settlementQueue.getPendingCount());
+        status.put("retryingEntries", settlementQueue.getRetryingCount());
+        status.put("scheduledRetries", retryService.getScheduledRetries());
+        status.put("deadLetters", retryService.getDeadLetterCount());
+        status.put("partitions", leaseManager.getStatus());
+        status.put("lastRun", runRepository.findFirstByOrderByStartedAtDesc().orElse(null));
+        return status;
+    }
+    
+    private void record(SettlementRun run) {
+        Timer.builder("banking.settlement.run")
+                .description("Duration of settlement runs")
+                .tag("trigger", run.getTrigger().name())
+                .register(meterRegistry)
+                .record(run.getDurationMillis(), TimeUnit.MILLISECONDS);
+        settledCounter.increment(run.getSettled());
+        failedCounter.increment(run.getFailed());
+        
+        // Empty micro-batch runs are frequent and carry no information
+        boolean idle = run.getSettled() == 0 && run.getFailed() == 0 && run.getError() == null;
+        if (idle && (run.getTrigger() == SettlementRun.Trigger.INTERVAL || run.getTrigger() == SettlementRun.Trigger.THRESHOLD)) {
+            return;
+        }
+        
+        try {
+            runRepository.save(run);
+        } catch (Exception e) {
+            System.err.println("❌ Failed to save settlement run " + run.getRunId() + ": " + e.getMessage());
+        }
+        String summary = "Settlement " + run.getTrigger().name().toLowerCase() + " run. Processed: " + run.getSettled()
+                + ", Failed: " + run.getFailed() + ", Remaining: " + run.getRemaining();
+        if (run.getError() == null) {
+            auditService.logSuccess("SYSTEM", "BATCH_SETTLEMENT", "SETTLEMENT", run.getRunId(), summary);
+        } else {
+            auditService.logFailure("SYSTEM", "BATCH_SETTLEMENT", "SETTLEMENT", run.getRunId(),
+                    "Settlement process failed", run.getError());
+        }
+    }
+}
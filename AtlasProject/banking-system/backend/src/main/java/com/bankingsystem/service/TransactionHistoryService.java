@@ -0,0 +1,53 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.util.AccountCache;
+import com.bankingsystem.util.HistoryCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset-paged account history. The type and date filters run in MongoDB against the account +
+ * type + transactionDate indexes, and each page starts where the previous one's cursor points,
+ * so a page costs the same however long the account has been open.
+ */
+@Service
+public class TransactionHistoryService {
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private AccountCache accountCache;
+    
+    @Value("${banking.history.default-page-size:50}")
+    private int defaultPageSize;
+    
+    @Value("${banking.history.max-page-size:500}")
+    private int maxPageSize;
+    
+    /**
+     * One page of the account's transactions of the given types, newest first, with the cursor
+     * for the next page (null on the last page). Incoming transactions are included when
+     * includeIncoming is set; startDate, endDate, limit and cursor are optional.
+     */
+    public Map<String, Object> getHistory(String accountNumber, Collection<Transaction.TransactionType> types,
+                                          boolean includeIncoming, LocalDateTime startDate, LocalDateTime endDate,
+                                          Integer limit, String cursor) {
+        Account account = accountCache.findAccount(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        int pageSize = limit == null ? defaultPageSize : Math.min(Math.max(limit, 1), maxPageSize);
+        
+        List<Transaction> fetched = transactionRepository.findHistoryPage(account, includeIncoming, types,
+                startDate, endDate, HistoryCursor.decode(cursor), pageSize + 1);
+        return HistoryCursor.page(fetched, pageSize);
+    }
+}
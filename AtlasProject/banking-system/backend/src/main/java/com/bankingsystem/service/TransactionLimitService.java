@@ -0,0 +1,313 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.LimitCheckpoint;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.LimitCheckpointRepository;
+import com.bankingsystem.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enforces per-transaction amount limits and the rolling 24h debit limit.
+ * Each account keeps a ring of 15-minute buckets holding debit totals in paise, so a check is
+ * a sum over a fixed primitive array instead of an aggregation over transactions.
+ * Counters are local to this instance; they are checkpointed to MongoDB and rebuilt on startup.
+ */
+@Service
+public class TransactionLimitService {
+    
+    private static final long BUCKET_MINUTES = 15;
+    private static final int BUCKETS = (int) (24 * 60 / BUCKET_MINUTES);
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private LimitCheckpointRepository checkpointRepository;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${banking.transaction.min-amount:0.01}")
+    private BigDecimal minAmount;
+    
+    @Value("${banking.transaction.max-amount:1000000}")
+    private BigDecimal maxAmount;
+    
+    @Value("${banking.transaction.daily-limit:500000}")
+    private BigDecimal dailyLimit;
+    
+    // Every window is only touched inside a compute call on this map, which serializes access per account
+    private final ConcurrentHashMap<String, DebitWindow> windows = new ConcurrentHashMap<>();
+    
+    private long dailyLimitPaise;
+    
+    /**
+     * Restore checkpointed counters, then replay the debits recorded after the newest checkpoint
+     */
+    @PostConstruct
+    public void rebuild() {
+        dailyLimitPaise = toPaise(dailyLimit);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime replayFrom = now.minusHours(24);
+        
+        try {
+            for (LimitCheckpoint checkpoint : checkpointRepository.findByCheckpointedAtAfter(replayFrom)) {
+                DebitWindow window = windows.computeIfAbsent(checkpoint.getAccountNumber(), k -> new DebitWindow());
+                for (int i = 0; i < checkpoint.getBucketStarts().size(); i++) {
+                    window.add(checkpoint.getBucketStarts().get(i) / BUCKET_MINUTES, checkpoint.getBucketTotals().get(i));
+                }
+                if (checkpoint.getCheckpointedAt().isAfter(replayFrom)) {
+                    replayFrom = checkpoint.getCheckpointedAt();
+                }
+            }
+            
+            int replayed = 0;
+            for (Transaction transaction : transactionRepository.findByTransactionDateBetween(replayFrom, now)) {
+                if (countsTowardLimit(transaction)) {
+                    windows.computeIfAbsent(transaction.getSourceAccount().getAccountNumber(), k -> new DebitWindow())
+                            .add(bucketOf(transaction.getTransactionDate()), toPaise(transaction.getAmount()));
+                    replayed++;
+                }
+            }
+            System.out.println("✅ Daily limit counters rebuilt for " + windows.size() + " accounts (" + replayed + " debits replayed)");
+            
+        } catch (Exception e) {
+            System.err.println("❌ Failed to rebuild daily limit counters: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Validate an amount against the per-transaction minimum and maximum
+     */
+    public void validateAmount(BigDecimal amount) {
+        if (amount.compareTo(minAmount) < 0) {
+            throw new RuntimeException("Amount is below the minimum of ₹" + minAmount);
+        }
+        if (amount.compareTo(maxAmount) > 0) {
+            throw new RuntimeException("Amount exceeds the maximum of ₹" + maxAmount + " per transaction");
+        }
+    }
+    
+    /**
+     * Count a debit against the account's rolling 24h limit, or reject it.
+     * Callers must release the reservation if the debit does not go through.
+     */
+    public Reservation reserveDebit(String accountNumber, BigDecimal amount) {
+        long paise = toPaise(amount);
+        long bucket = bucketOf(LocalDateTime.now());
+        long[] used = new long[1];
+        
+        windows.compute(accountNumber, (key, window) -> {
+            DebitWindow target = window != null ? window : new DebitWindow();
+            used[0] = target.total(bucket);
+            if (used[0] + paise <= dailyLimitPaise) {
+                target.add(bucket, paise);
+            }
+            return target;
+        });
+        
+        if (used[0] + paise > dailyLimitPaise) {
+            throw new RuntimeException("Daily limit exceeded. Used: ₹" + fromPaise(used[0]) +
+                    ", Limit: ₹" + dailyLimit + ", Requested: ₹" + amount);
+        }
+        return new Reservation(accountNumber, bucket, paise);
+    }
+    
+    /**
+     * Give back a reservation whose debit failed
+     */
+    public void release(Reservation reservation) {
+        if (reservation == null) {
+            return;
+        }
+        windows.computeIfPresent(reservation.accountNumber, (key, window) -> {
+            window.add(reservation.bucket, -reservation.paise);
+            return window;
+        });
+    }
+    
+    /**
+     * Take an undone withdrawal or transfer off the limit, from the bucket it was counted in
+     */
+    public void releaseDebit(Transaction transaction) {
+        if (isLimitedDebit(transaction)) {
+            long bucket = bucketOf(transaction.getTransactionDate());
+            long paise = toPaise(transaction.getAmount());
+            windows.computeIfPresent(transaction.getSourceAccount().getAccountNumber(), (key, window) -> {
+                window.add(bucket, -paise);
+                return window;
+            });
+        }
+    }
+    
+    /**
+     * Count a redone withdrawal or transfer again, as a rebuild would; the debit has already been made
+     */
+    public void recountDebit(Transaction transaction) {
+        if (isLimitedDebit(transaction)) {
+            long bucket = bucketOf(transaction.getTransactionDate());
+            long paise = toPaise(transaction.getAmount());
+            windows.compute(transaction.getSourceAccount().getAccountNumber(), (key, window) -> {
+                DebitWindow target = window != null ? window : new DebitWindow();
+                target.add(bucket, paise);
+                return target;
+            });
+        }
+    }
+    
+    /**
+     * Persist changed windows and drop the ones that have fully aged out
+     */
+    @Scheduled(fixedDelayString = "${banking.transaction.limits.checkpoint-interval:60000}")
+    public void checkpoint() {
+        LocalDateTime now = LocalDateTime.now();
+        long bucket = bucketOf(now);
+        List<LimitCheckpoint> changed = new ArrayList<>();
+        List<String> expired = new ArrayList<>();
+        
+        for (String accountNumber : windows.keySet()) {
+            windows.computeIfPresent(accountNumber, (key, window) -> {
+                if (window.total(bucket) == 0) {
+                    expired.add(key);
+                    return null;
+                }
+                if (window.dirty) {
+                    changed.add(window.toCheckpoint(key, bucket, now));
+                    window.dirty = false;
+                }
+                return window;
+            });
+        }
+        
+        try {
+            if (!changed.isEmpty()) {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LimitCheckpoint.class);
+                for (LimitCheckpoint checkpoint : changed) {
+                    bulk.replaceOne(new Query(Criteria.where("_id").is(checkpoint.getAccountNumber())),
+                            checkpoint, FindAndReplaceOptions.options().upsert());
+                }
+                bulk.execute();
+            }
+            if (!expired.isEmpty()) {
+                checkpointRepository.deleteAllById(expired);
+            }
+            checkpointRepository.deleteByCheckpointedAtBefore(now.minusHours(24));
+            
+        } catch (Exception e) {
+            // Retry on the next run
+            changed.forEach(checkpoint -> windows.computeIfPresent(checkpoint.getAccountNumber(), (key, window) -> {
+                window.dirty = true;
+                return window;
+            }));
+            System.err.println("❌ Failed to checkpoint daily limit counters: " + e.getMessage());
+        }
+    }
+    
+    private boolean countsTowardLimit(Transaction transaction) {
+        return transaction.getStatus() == Transaction.TransactionStatus.COMPLETED && isLimitedDebit(transaction);
+    }
+    
+    private static boolean isLimitedDebit(Transaction transaction) {
+        return transaction.getReversalOf() == null
+                && transaction.getSourceAccount() != null
+                && transaction.getTransactionDate() != null
+                && (transaction.getType() == Transaction.TransactionType.WITHDRAWAL
+                    || transaction.getType() == Transaction.TransactionType.TRANSFER);
+    }
+    
+    private static long bucketOf(LocalDateTime time) {
+        long epochMinutes = time.atZone(ZoneId.systemDefault()).toEpochSecond() / 60;
+        return epochMinutes / BUCKET_MINUTES;
+    }
+    
+    private static long toPaise(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+    
+    private static BigDecimal fromPaise(long paise) {
+        return BigDecimal.valueOf(paise, 2);
+    }
+    
+    /**
+     * Ring of bucket totals; a slot is reused once the bucket it held falls out of the window
+     */
+    private static class DebitWindow {
+        private final long[] buckets = new long[BUCKETS];
+        private final long[] totals = new long[BUCKETS];
+        private boolean dirty;
+        
+        private DebitWindow() {
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+        
+        private void add(long bucket, long paise) {
+            int slot = (int) Math.floorMod(bucket, (long) BUCKETS);
+            if (buckets[slot] < bucket) {
+                buckets[slot] = bucket;
+                totals[slot] = 0;
+            } else if (buckets[slot] > bucket) {
+                // Older than anything the slot can still represent
+                return;
+            }
+            totals[slot] = Math.max(0, totals[slot] + paise);
+            dirty = true;
+        }
+        
+        private long total(long currentBucket) {
+            long oldest = currentBucket - BUCKETS + 1;
+            long sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (buckets[i] >= oldest && buckets[i] <= currentBucket) {
+                    sum += totals[i];
+                }
+            }
+            return sum;
+        }
+        
+        private LimitCheckpoint toCheckpoint(String accountNumber, long currentBucket, LocalDateTime now) {
+            long oldest = currentBucket - BUCKETS + 1;
+            List<Long> starts = new ArrayList<>();
+            List<Long> amounts = new ArrayList<>();
+            for (int i = 0; i < BUCKETS; i++) {
+                if (buckets[i] >= oldest && totals[i] > 0) {
+                    starts.add(buckets[i] * BUCKET_MINUTES);
+                    amounts.add(totals[i]);
+                }
+            }
+            return new LimitCheckpoint(accountNumber, starts, amounts, now);
+        }
+    }
+    
+    /**
+     * A debit counted against the daily limit, released if the debit fails
+     */
+    public static class Reservation {
+        private final String accountNumber;
+        private final long bucket;
+        private final long paise;
+        
+        private Reservation(String accountNumber, long bucket, long paise) {
+            this.accountNumber = accountNumber;
+            this.bucket = bucket;
+            this.paise = paise;
+        }
+    }
+}
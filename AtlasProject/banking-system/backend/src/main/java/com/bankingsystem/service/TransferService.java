@@ -4,6 +4,10 @@ import com.bankingsystem.model.Account;
 import com.bankingsystem.model.Transaction;
 import com.bankingsystem.repository.AccountRepository;
 import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.util.AccountCache;
+import com.bankingsystem.util.AccountLaneExecutor;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.SettlementQueue;
 import com.bankingsystem.util.UndoRedoStack;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,8 +16,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class TransferService {
@@ -30,6 +34,24 @@ public class TransferService {
     @Autowired
     private UndoRedoStack undoRedoStack;
     
+    @Autowired
+    private AccountLaneExecutor accountLanes;
+    
+    @Autowired
+    private AccountCache accountCache;
+    
+    @Autowired
+    private TransactionHistoryService transactionHistory;
+    
+    @Autowired
+    private TransactionLimitService transactionLimits;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private SettlementQueue settlementQueue;
+    
     /**
      * Process a transfer transaction between two accounts
      */
@@ -37,54 +59,44 @@ public class TransferService {
     public Transaction processTransfer(String sourceAccountNumber, String destinationAccountNumber, 
                                     BigDecimal amount, String description, String userId) {
         try {
-            // Find source account
-            Account sourceAccount = accountRepository.findByAccountNumber(sourceAccountNumber)
-                    .orElseThrow(() -> new RuntimeException("Source account not found: " + sourceAccountNumber));
-            
-            // Find destination account
-            Account destinationAccount = accountRepository.findByAccountNumber(destinationAccountNumber)
-                    .orElseThrow(() -> new RuntimeException("Destination account not found: " + destinationAccountNumber));
-            
-            // Validate account statuses
-            if (sourceAccount.getStatus() != Account.AccountStatus.ACTIVE) {
-                throw new RuntimeException("Source account is not active: " + sourceAccountNumber);
-            }
-            
-            if (destinationAccount.getStatus() != Account.AccountStatus.ACTIVE) {
-                throw new RuntimeException("Destination account is not active: " + destinationAccountNumber);
-            }
-            
             // Validate amount
             if (amount.compareTo(BigDecimal.ZERO) <= 0) {
                 throw new RuntimeException("Transfer amount must be greater than zero");
             }
             
-            // Check if source account has sufficient balance
-            if (!sourceAccount.canWithdraw(amount)) {
-                throw new RuntimeException("Insufficient balance in source account. Available: ₹" + 
-                        sourceAccount.getBalance() + ", Requested: ₹" + amount);
-            }
-            
             // Prevent transfer to same account
             if (sourceAccountNumber.equals(destinationAccountNumber)) {
                 throw new RuntimeException("Cannot transfer to the same account");
             }
+            transactionLimits.validateAmount(amount);
+            
+            // Count against the source's daily limit in memory before touching MongoDB
+            TransactionLimitService.Reservation reservation = transactionLimits.reserveDebit(sourceAccountNumber, amount);
+            
+            // Accounts sharing a lane are moved in one lane task; otherwise each leg runs on its own lane
+            Account[] legs;
+            try {
+                legs = accountLanes.sameLane(sourceAccountNumber, destinationAccountNumber)
+                        ? accountLanes.execute(sourceAccountNumber, () -> moveFunds(sourceAccountNumber, destinationAccountNumber, amount))
+                        : moveFunds(sourceAccountNumber, destinationAccountNumber, amount);
+            } catch (RuntimeException e) {
+                transactionLimits.release(reservation);
+                throw e;
+            }
+            Account sourceAccount = legs[0];
+            Account destinationAccount = legs[1];
             
             // Create transaction
-            String transactionId = "TRF" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
+            String transactionId = idGenerator.nextId(IdGenerator.TRANSFER);
             Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.TRANSFER, 
                     amount, sourceAccount, destinationAccount, description);
-            transaction.setReferenceNumber("REF" + System.currentTimeMillis());
-            
-            // Process the transfer
-            sourceAccount.withdraw(amount);
-            destinationAccount.deposit(amount);
+            transaction.setReferenceNumber(idGenerator.nextId(IdGenerator.REFERENCE));
             transaction.markAsCompleted();
+            transaction.setSettlementPending(true);
             
-            // Save to database
-            accountRepository.save(sourceAccount);
-            accountRepository.save(destinationAccount);
+            // Save to database; if the enqueue fails the outbox sweep queues it later
             transactionRepository.save(transaction);
+            settlementQueue.enqueue(transaction);
             
             // Add to undo stack for both accounts
             undoRedoStack.pushUndo(sourceAccount.getId(), transaction);
@@ -115,54 +127,71 @@ public class TransferService {
     }
     
     /**
-     * Get transfer history for an account
+     * Debit the source on its lane, then credit the destination on its lane.
+     * No lane is held while another is awaited, so opposing transfers cannot deadlock;
+     * a failed credit is compensated by re-crediting the source.
      */
-    public java.util.List<Transaction> getTransferHistory(String accountNumber) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+    private Account[] moveFunds(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount) {
+        Account sourceAccount = accountLanes.execute(sourceAccountNumber, () ->
+                accountRepository.debitBalance(sourceAccountNumber, amount)
+                        .map(accountCache::refresh)
+                        .orElseThrow(() -> rejectedLeg(sourceAccountNumber, "Source", amount)));
         
-        return transactionRepository.findBySourceAccountOrDestinationAccount(account, account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.TRANSFER)
-                .collect(java.util.stream.Collectors.toList());
+        try {
+            Account destinationAccount = accountLanes.execute(destinationAccountNumber, () ->
+                    accountRepository.creditBalance(destinationAccountNumber, amount)
+                            .map(accountCache::refresh)
+                            .orElseThrow(() -> rejectedLeg(destinationAccountNumber, "Destination", null)));
+            return new Account[] { sourceAccount, destinationAccount };
+            
+        } catch (RuntimeException e) {
+            // Compensate the debit that already happened on the source lane
+            accountLanes.execute(sourceAccountNumber, () ->
+                    accountRepository.adjustBalance(sourceAccountNumber, amount).map(accountCache::refresh));
+            throw e;
+        }
     }
     
     /**
-     * Get transfer history for an account within date range
+     * Explain why a conditional transfer leg matched no account
      */
-    public java.util.List<Transaction> getTransferHistory(String accountNumber, LocalDateTime startDate, LocalDateTime endDate) {
+    private RuntimeException rejectedLeg(String accountNumber, String role, BigDecimal debitAmount) {
         Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+                .orElseThrow(() -> new RuntimeException(role + " account not found: " + accountNumber));
         
-        return transactionRepository.findAccountTransactionsByDateRange(account, startDate, endDate)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.TRANSFER)
-                .collect(java.util.stream.Collectors.toList());
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return new RuntimeException(role + " account is not active: " + accountNumber);
+        }
+        return new RuntimeException("Insufficient balance in source account. Available: ₹" + 
+                account.getBalance() + ", Requested: ₹" + debitAmount);
+    }
+    
+    /**
+     * Get one page of transfer history for an account, newest first, optionally within a date range
+     */
+    public Map<String, Object> getTransferHistory(String accountNumber, LocalDateTime startDate, LocalDateTime endDate,
+                                                  Integer limit, String cursor) {
+        return transactionHistory.getHistory(accountNumber, List.of(Transaction.TransactionType.TRANSFER), true,
+                startDate, endDate, limit, cursor);
     }
     
     /**
      * Get outgoing transfers for an account
      */
     public java.util.List<Transaction> getOutgoingTransfers(String accountNumber) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+        Account account = accountCache.findAccount(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findBySourceAccount(account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.TRANSFER)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findBySourceAccountAndType(account, Transaction.TransactionType.TRANSFER);
     }
     
     /**
      * Get incoming transfers for an account
      */
     public java.util.List<Transaction> getIncomingTransfers(String accountNumber) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+        Account account = accountCache.findAccount(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findByDestinationAccount(account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.TRANSFER)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findByDestinationAccountAndType(account, Transaction.TransactionType.TRANSFER);
     }
 }
@@ -4,6 +4,10 @@ import com.bankingsystem.model.Account;
 import com.bankingsystem.model.Transaction;
 import com.bankingsystem.repository.AccountRepository;
 import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.util.AccountCache;
+import com.bankingsystem.util.AccountLaneExecutor;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.SettlementQueue;
 import com.bankingsystem.util.UndoRedoStack;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,8 +16,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class WithdrawService {
@@ -30,45 +34,62 @@ public class WithdrawService {
     @Autowired
     private UndoRedoStack undoRedoStack;
     
+    @Autowired
+    private AccountLaneExecutor accountLanes;
+    
+    @Autowired
+    private AccountCache accountCache;
+    
+    @Autowired
+    private TransactionHistoryService transactionHistory;
+    
+    @Autowired
+    private TransactionLimitService transactionLimits;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private SettlementQueue settlementQueue;
+    
     /**
      * Process a withdrawal transaction
      */
     @Transactional
     public Transaction processWithdrawal(String accountNumber, BigDecimal amount, String description, String userId) {
         try {
-            // Find the account
-            Account account = accountRepository.findByAccountNumber(accountNumber)
-                    .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
-            
-            // Validate account status
-            if (account.getStatus() != Account.AccountStatus.ACTIVE) {
-                throw new RuntimeException("Account is not active: " + accountNumber);
-            }
-            
             // Validate amount
             if (amount.compareTo(BigDecimal.ZERO) <= 0) {
                 throw new RuntimeException("Withdrawal amount must be greater than zero");
             }
+            transactionLimits.validateAmount(amount);
+            
+            // Count against the daily limit in memory before touching MongoDB
+            TransactionLimitService.Reservation reservation = transactionLimits.reserveDebit(accountNumber, amount);
             
-            // Check if account has sufficient balance
-            if (!account.canWithdraw(amount)) {
-                throw new RuntimeException("Insufficient balance. Available: ₹" + account.getBalance() + 
-                        ", Requested: ₹" + amount);
+            // Debit atomically on the account's lane; the balance and status guard run server-side
+            Account account;
+            try {
+                account = accountLanes.execute(accountNumber, () ->
+                        accountRepository.debitBalance(accountNumber, amount)
+                                .map(accountCache::refresh)
+                                .orElseThrow(() -> rejectedWithdrawal(accountNumber, amount)));
+            } catch (RuntimeException e) {
+                transactionLimits.release(reservation);
+                throw e;
             }
             
             // Create transaction
-            String transactionId = "WTH" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
-            Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.WITHDRAWAL, 
+            String transactionId = idGenerator.nextId(IdGenerator.WITHDRAWAL);
+            Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.WITHDRAWAL,
                     amount, account, description);
-            transaction.setReferenceNumber("REF" + System.currentTimeMillis());
-            
-            // Process the withdrawal
-            account.withdraw(amount);
+            transaction.setReferenceNumber(idGenerator.nextId(IdGenerator.REFERENCE));
             transaction.markAsCompleted();
+            transaction.setSettlementPending(true);
             
-            // Save to database
-            accountRepository.save(account);
+            // Save to database; if the enqueue fails the outbox sweep queues it later
             transactionRepository.save(transaction);
+            settlementQueue.enqueue(transaction);
             
             // Add to undo stack
             undoRedoStack.pushUndo(account.getId(), transaction);
@@ -94,28 +115,25 @@ public class WithdrawService {
     }
     
     /**
-     * Get withdrawal history for an account
+     * Explain why the conditional debit matched no account
      */
-    public java.util.List<Transaction> getWithdrawalHistory(String accountNumber) {
+    private RuntimeException rejectedWithdrawal(String accountNumber, BigDecimal amount) {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findBySourceAccount(account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.WITHDRAWAL)
-                .collect(java.util.stream.Collectors.toList());
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return new RuntimeException("Account is not active: " + accountNumber);
+        }
+        return new RuntimeException("Insufficient balance. Available: ₹" + account.getBalance() + 
+                ", Requested: ₹" + amount);
     }
     
     /**
-     * Get withdrawal history for an account within date range
+     * Get one page of withdrawal history for an account, newest first, optionally within a date range
      */
-    public java.util.List<Transaction> getWithdrawalHistory(String accountNumber, LocalDateTime startDate, LocalDateTime endDate) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
-        
-        return transactionRepository.findSourceTransactionsByDateRange(account, startDate, endDate)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.WITHDRAWAL)
-                .collect(java.util.stream.Collectors.toList());
+    public Map<String, Object> getWithdrawalHistory(String accountNumber, LocalDateTime startDate, LocalDateTime endDate,
+                                                    Integer limit, String cursor) {
+        return transactionHistory.getHistory(accountNumber, List.of(Transaction.TransactionType.WITHDRAWAL), false,
+                startDate, endDate, limit, cursor);
     }
 }
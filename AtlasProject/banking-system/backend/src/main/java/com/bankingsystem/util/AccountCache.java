@@ -0,0 +1,138 @@
+package com.bankingsystem.util;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Customer;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.CustomerRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded near-cache for accounts by account number and customers by ID.
+ * Every balance or status write feeds its returned document back through {@link #refresh},
+ * and entries only ever move forward by version, so a slow reader cannot overwrite a newer write.
+ * The TTL bounds staleness from writes made by other instances.
+ */
+@Component
+public class AccountCache {
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private CustomerRepository customerRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.cache.accounts.max-size:10000}")
+    private long accountMaxSize;
+    
+    @Value("${banking.cache.accounts.ttl-seconds:30}")
+    private long accountTtlSeconds;
+    
+    @Value("${banking.cache.customers.max-size:10000}")
+    private long customerMaxSize;
+    
+    @Value("${banking.cache.customers.ttl-seconds:300}")
+    private long customerTtlSeconds;
+    
+    private Cache<String, Account> accounts;
+    private Cache<String, Customer> customers;
+    
+    @PostConstruct
+    public void init() {
+        accounts = Caffeine.newBuilder()
+                .maximumSize(accountMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(accountTtlSeconds))
+                .recordStats()
+                .build();
+        customers = Caffeine.newBuilder()
+                .maximumSize(customerMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(customerTtlSeconds))
+                .recordStats()
+                .build();
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "accounts");
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, "customers");
+    }
+    
+    /**
+     * Find an account, loading it from MongoDB on a miss
+     */
+    public Optional<Account> findAccount(String accountNumber) {
+        Account cached = accounts.getIfPresent(accountNumber);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
+        Optional<Account> loaded = accountRepository.findByAccountNumber(accountNumber);
+        loaded.ifPresent(this::refresh);
+        return loaded;
+    }
+    
+    /**
+     * Find a customer, loading it from MongoDB on a miss
+     */
+    public Optional<Customer> findCustomer(String customerId) {
+        Customer cached = customers.getIfPresent(customerId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
+        Optional<Customer> loaded = customerRepository.findById(customerId);
+        loaded.ifPresent(this::putCustomer);
+        return loaded;
+    }
+    
+    /**
+     * Write through an account returned by a read or an atomic update.
+     * Updates project out the customer reference, so it is carried over from the cached entry;
+     * an update for an account that is not cached is not admitted, since it cannot be rendered fully.
+     */
+    public Account refresh(Account account) {
+        if (account.getCustomer() != null) {
+            putCustomer(account.getCustomer());
+        }
+        
+        accounts.asMap().compute(account.getAccountNumber(), (accountNumber, current) -> {
+            if (current == null) {
+                return account.getCustomer() != null ? account : null;
+            }
+            if (account.getCustomer() == null) {
+                account.setCustomer(current.getCustomer());
+            }
+            return versionOf(account) >= versionOf(current) ? account : current;
+        });
+        return account;
+    }
+    
+    /**
+     * Cache a customer after it has been loaded or saved
+     */
+    public void putCustomer(Customer customer) {
+        if (customer.getId() != null) {
+            customers.put(customer.getId(), customer);
+        }
+    }
+    
+    /**
+     * Drop an account whose new state was written without returning a document
+     */
+    public void evict(String accountNumber) {
+        accounts.invalidate(accountNumber);
+    }
+    
+    private static long versionOf(Account account) {
+        return account.getVersion() != null ? account.getVersion() : -1L;
+    }
+}
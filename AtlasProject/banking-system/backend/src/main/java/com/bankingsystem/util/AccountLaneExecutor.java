@@ -0,0 +1,160 @@
+package com.bankingsystem.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Partitions account mutations into single-threaded lanes.
+ * Every account number hashes to exactly one lane, so all writes to an account
+ * are serialized without locks while different accounts run in parallel.
+ */
+@Component
+public class AccountLaneExecutor {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.lanes.count:0}")
+    private int configuredLaneCount;
+    
+    @Value("${banking.lanes.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    private final ThreadLocal<Integer> currentLane = new ThreadLocal<>();
+    
+    private ThreadPoolExecutor[] lanes;
+    private Timer latencyTimer;
+    
+    @PostConstruct
+    public void start() {
+        int laneCount = configuredLaneCount > 0 ? configuredLaneCount : Runtime.getRuntime().availableProcessors();
+        lanes = new ThreadPoolExecutor[laneCount];
+        
+        for (int i = 0; i < laneCount; i++) {
+            final int laneIndex = i;
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(() -> {
+                            currentLane.set(laneIndex);
+                            runnable.run();
+                        }, "account-lane-" + laneIndex);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            lanes[i] = lane;
+            
+            Gauge.builder("banking.lanes.queue.depth", lane, executor -> executor.getQueue().size())
+                    .tag("lane", String.valueOf(i))
+                    .description("Pending account mutations waiting on this lane")
+                    .register(meterRegistry);
+        }
+        
+        latencyTimer = Timer.builder("banking.lanes.task.latency")
+                .description("Time from lane submission to completion, including queueing")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                lane.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Get the lane index that owns an account
+     */
+    public int laneOf(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, lanes.length);
+    }
+    
+    /**
+     * Check whether two accounts are serialized by the same lane
+     */
+    public boolean sameLane(String firstAccountNumber, String secondAccountNumber) {
+        return laneOf(firstAccountNumber) == laneOf(secondAccountNumber);
+    }
+    
+    /**
+     * Run a mutation on the lane that owns the account and wait for its result.
+     * Callers must never hold one lane while waiting on another; cross-account work
+     * such as transfers runs each leg through this method from the request thread.
+     */
+    public <T> T execute(String accountNumber, Supplier<T> task) {
+        int lane = laneOf(accountNumber);
+        Integer callerLane = currentLane.get();
+        
+        if (callerLane != null) {
+            if (callerLane == lane) {
+                return task.get();
+            }
+            throw new IllegalStateException("Cross-lane call from lane " + callerLane + " to lane " + lane);
+        }
+        
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = lanes[lane].submit(task::get);
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("Account " + accountNumber + " is busy, please retry", e);
+        }
+        
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for account " + accountNumber, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            latencyTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Get the number of lanes
+     */
+    public int getLaneCount() {
+        return lanes.length;
+    }
+    
+    /**
+     * Get the current queue depth of a lane
+     */
+    public int getQueueDepth(int lane) {
+        return lanes[lane].getQueue().size();
+    }
+}
@@ -0,0 +1,157 @@
+package com.bankingsystem.util;
+
+import com.bankingsystem.model.AuditLog;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Monthly partitions of the audit log, one collection per month named audit_logs_yyyyMM.
+ * Reads are routed to the partitions overlapping the requested range, and retention drops
+ * whole partitions instead of deleting documents. The unpartitioned audit_logs collection
+ * is still read as legacy history and trimmed by timestamp until it is empty.
+ */
+@Component
+public class AuditPartitions {
+    
+    private static final String PREFIX = "audit_logs_";
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Value("${banking.audit.retention-days:365}")
+    private int retentionDays;
+    
+    // Partition names sort chronologically because the month is zero-padded
+    private final ConcurrentSkipListSet<String> partitions = new ConcurrentSkipListSet<>();
+    
+    @PostConstruct
+    public void load() {
+        try {
+            refresh();
+            System.out.println("✅ Audit partitions: " + partitions.size() + " monthly collections");
+        } catch (Exception e) {
+            System.err.println("❌ Failed to list audit partitions: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Name of the partition a record with this timestamp belongs to
+     */
+    public static String partitionFor(LocalDateTime timestamp) {
+        return PREFIX + MONTH.format(timestamp);
+    }
+    
+    /**
+     * Name of the partition a record with this timestamp belongs to, created with its indexes on first use
+     */
+    public String ensurePartition(LocalDateTime timestamp) {
+        String name = partitionFor(timestamp);
+        if (!partitions.contains(name)) {
+            synchronized (this) {
+                if (!partitions.contains(name)) {
+                    createPartition(name);
+                    partitions.add(name);
+                }
+            }
+        }
+        return name;
+    }
+    
+    /**
+     * Collections that may hold records between from and to, oldest first; null bounds are open
+     */
+    public List<String> collectionsBetween(LocalDateTime from, LocalDateTime to) {
+        List<String> collections = new ArrayList<>();
+        collections.add(legacyCollection());
+        String first = from != null ? partitionFor(from) : null;
+        String last = to != null ? partitionFor(to) : null;
+        for (String partition : partitions) {
+            if ((first == null || partition.compareTo(first) >= 0) && (last == null || partition.compareTo(last) <= 0)) {
+                collections.add(partition);
+            }
+        }
+        return collections;
+    }
+    
+    /**
+     * Every collection holding audit records, oldest first
+     */
+    public List<String> allCollections() {
+        return collectionsBetween(null, null);
+    }
+    
+    /**
+     * Drop partitions whose whole month is older than the retention period
+     */
+    @Scheduled(fixedDelayString = "${banking.audit.retention.check-interval:3600000}", initialDelay = 60000)
+    public void enforceRetention() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        String oldestKept = partitionFor(cutoff);
+        try {
+            refresh();
+            for (String partition : new ArrayList<>(partitions.headSet(oldestKept))) {
+                mongoTemplate.dropCollection(partition);
+                partitions.remove(partition);
+                System.out.println("📦 Dropped audit partition " + partition);
+            }
+            
+            // Legacy history cannot be dropped by month; it shrinks until nothing is left
+            if (mongoTemplate.collectionExists(legacyCollection())) {
+                long removed = mongoTemplate.remove(new Query(Criteria.where("timestamp").lt(cutoff)), legacyCollection())
+                        .getDeletedCount();
+                if (removed > 0) {
+                    System.out.println("📦 Removed " + removed + " expired audit logs from " + legacyCollection());
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Audit retention failed: " + e.getMessage());
+        }
+    }
+    
+    private void refresh() {
+        for (String name : mongoTemplate.getCollectionNames()) {
+            if (name.startsWith(PREFIX) && name.length() == PREFIX.length() + 6) {
+                partitions.add(name);
+            }
+        }
+    }
+    
+    private void createPartition(String name) {
+        if (!mongoTemplate.collectionExists(name)) {
+            try {
+                mongoTemplate.createCollection(name);
+            } catch (DataAccessException e) {
+                // Created concurrently by another instance
+            }
+        }
+        
+        IndexOperations indexes = mongoTemplate.indexOps(name);
+        indexes.ensureIndex(new Index().on("actionId", Sort.Direction.ASC).unique());
+        indexes.ensureIndex(new Index().on("timestamp", Sort.Direction.ASC));
+        indexes.ensureIndex(new Index().on("userId", Sort.Direction.ASC).on("timestamp", Sort.Direction.ASC));
+        indexes.ensureIndex(new Index().on("entityType", Sort.Direction.ASC).on("entityId", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC));
+        indexes.ensureIndex(new Index().on("action", Sort.Direction.ASC).on("timestamp", Sort.Direction.ASC));
+    }
+    
+    private String legacyCollection() {
+        return mongoTemplate.getCollectionName(AuditLog.class);
+    }
+}
@@ -0,0 +1,375 @@
+package com.bankingsystem.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable append-only spool for audit items that could not be delivered to DynamoDB.
+ * Items are framed as [length][crc32][appended-at millis][payload] inside fixed-size,
+ * memory-mapped segment files, and each append batch is forced to disk once.
+ * The read position is stored beside the segments; fully consumed segments are deleted.
+ */
+@Component
+public class AuditSpool {
+    
+    private static final int HEADER_BYTES = 16;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String POSITION_FILE = "read.position";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.audit.spool.dir:audit-spool}")
+    private String directory;
+    
+    @Value("${banking.audit.spool.segment-bytes:16777216}")
+    private int segmentBytes;
+    
+    private Path spoolDir;
+    
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    
+    private long readSegment;
+    private int readOffset;
+    
+    // Read-only mapping of the sealed segment currently being replayed
+    private long mappedReadSegment = -1;
+    private MappedByteBuffer readBuffer;
+    
+    private Counter appendedCounter;
+    
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        spoolDir = Paths.get(directory);
+        Files.createDirectories(spoolDir);
+        
+        List<Long> segments = listSegments();
+        writeSegment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+        writeBuffer.position(scanEnd(writeBuffer));
+        
+        // Resume where the last run stopped; a missing or stale position restarts at the oldest segment
+        readSegment = segments.isEmpty() ? writeSegment : segments.get(0);
+        readOffset = 0;
+        Path positionFile = spoolDir.resolve(POSITION_FILE);
+        if (Files.exists(positionFile)) {
+            String[] stored = Files.readString(positionFile).trim().split(" ");
+            long storedSegment = Long.parseLong(stored[0]);
+            if (storedSegment >= readSegment && storedSegment <= writeSegment) {
+                readSegment = storedSegment;
+                readOffset = Integer.parseInt(stored[1]);
+            }
+        }
+        
+        Gauge.builder("banking.audit.spool.bytes", this, AuditSpool::pendingBytes)
+                .description("Approximate bytes of audit items waiting to be replayed")
+                .register(meterRegistry);
+        Gauge.builder("banking.audit.spool.lag.seconds", this, AuditSpool::lagSeconds)
+                .description("Age of the oldest audit item waiting to be replayed")
+                .register(meterRegistry);
+        appendedCounter = Counter.builder("banking.audit.spool.appended")
+                .description("Audit items written to the spool")
+                .register(meterRegistry);
+        
+        if (hasPending()) {
+            System.out.println("📦 Audit spool has ~" + pendingBytes() + " bytes waiting for replay");
+        }
+    }
+    
+    /**
+     * Append items and force them to disk before returning
+     */
+    public synchronized void append(List<Map<String, AttributeValue>> items) throws IOException {
+        for (Map<String, AttributeValue> item : items) {
+            byte[] payload = encode(item);
+            int frameBytes = HEADER_BYTES + payload.length;
+            if (frameBytes > segmentBytes) {
+                throw new IOException("Audit item of " + payload.length + " bytes does not fit a spool segment");
+            }
+            if (writeBuffer.remaining() < frameBytes) {
+                writeBuffer.force();
+                writeSegment++;
+                writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+            }
+            
+            CRC32 crc = new CRC32();
+            long appendedAt = System.currentTimeMillis();
+            crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, appendedAt));
+            crc.update(payload);
+            
+            writeBuffer.putInt(payload.length);
+            writeBuffer.putInt((int) crc.getValue());
+            writeBuffer.putLong(appendedAt);
+            writeBuffer.put(payload);
+        }
+        writeBuffer.force();
+        appendedCounter.increment(items.size());
+    }
+    
+    /**
+     * Read up to max items from the read position without consuming them
+     */
+    public synchronized Batch peek(int max) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        long segment = readSegment;
+        int offset = readOffset;
+        
+        while (items.size() < max) {
+            boolean active = segment == writeSegment;
+            ByteBuffer buffer = active ? writeBuffer : sealedSegment(segment);
+            int limit = active ? writeBuffer.position() : buffer.capacity();
+            
+            int length = frameLength(buffer, offset, limit);
+            if (length >= 0) {
+                byte[] payload = new byte[length];
+                buffer.get(offset + HEADER_BYTES, payload);
+                items.add(decode(payload));
+                offset += HEADER_BYTES + length;
+            } else if (active) {
+                break;
+            } else {
+                segment++;
+                offset = 0;
+            }
+        }
+        return new Batch(items, segment, offset);
+    }
+    
+    /**
+     * Mark a peeked batch as delivered and delete segments that are fully consumed
+     */
+    public synchronized void commit(Batch batch) throws IOException {
+        readSegment = batch.nextSegment;
+        readOffset = batch.nextOffset;
+        
+        Path positionFile = spoolDir.resolve(POSITION_FILE);
+        Path temporary = spoolDir.resolve(POSITION_FILE + ".tmp");
+        Files.writeString(temporary, readSegment + " " + readOffset);
+        Files.move(temporary, positionFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        if (mappedReadSegment >= 0 && mappedReadSegment < readSegment) {
+            mappedReadSegment = -1;
+            readBuffer = null;
+        }
+        for (long segment : listSegments()) {
+            if (segment < readSegment) {
+                try {
+                    Files.deleteIfExists(segmentPath(segment));
+                } catch (IOException e) {
+                    // Still mapped on some platforms; retried on the next commit
+                }
+            }
+        }
+    }
+    
+    /**
+     * Check whether any appended item has not been committed yet
+     */
+    public synchronized boolean hasPending() {
+        return readSegment != writeSegment || readOffset < writeBuffer.position();
+    }
+    
+    /**
+     * Approximate bytes between the read and write positions, counting sealed segments as full
+     */
+    public synchronized long pendingBytes() {
+        if (readSegment == writeSegment) {
+            return Math.max(0, writeBuffer.position() - readOffset);
+        }
+        return (long) (segmentBytes - readOffset)
+                + (writeSegment - readSegment - 1) * (long) segmentBytes
+                + writeBuffer.position();
+    }
+    
+    /**
+     * Seconds since the oldest pending item was appended
+     */
+    public synchronized double lagSeconds() {
+        if (!hasPending()) {
+            return 0;
+        }
+        ByteBuffer buffer = readSegment == writeSegment ? writeBuffer : sealedSegment(readSegment);
+        if (readOffset + HEADER_BYTES > buffer.capacity()) {
+            return 0;
+        }
+        long appendedAt = buffer.getLong(readOffset + 8);
+        return appendedAt > 0 ? (System.currentTimeMillis() - appendedAt) / 1000.0 : 0;
+    }
+    
+    private ByteBuffer sealedSegment(long segment) {
+        if (mappedReadSegment != segment) {
+            try {
+                readBuffer = map(segment, FileChannel.MapMode.READ_ONLY);
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot read audit spool segment " + segment, e);
+            }
+            mappedReadSegment = segment;
+        }
+        return readBuffer;
+    }
+    
+    /**
+     * Length of the valid frame at offset, or -1 at the end of written data or on a torn frame
+     */
+    private static int frameLength(ByteBuffer buffer, int offset, int limit) {
+        if (offset + HEADER_BYTES > limit) {
+            return -1;
+        }
+        int length = buffer.getInt(offset);
+        if (length <= 0 || offset + HEADER_BYTES + length > limit) {
+            return -1;
+        }
+        
+        byte[] checked = new byte[Long.BYTES + length];
+        buffer.get(offset + 8, checked);
+        CRC32 crc = new CRC32();
+        crc.update(checked);
+        return (int) crc.getValue() == buffer.getInt(offset + 4) ? length : -1;
+    }
+    
+    private static int scanEnd(ByteBuffer buffer) {
+        int offset = 0;
+        int length;
+        while ((length = frameLength(buffer, offset, buffer.capacity())) >= 0) {
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+    
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] { StandardOpenOption.READ }
+                : new StandardOpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE };
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), options)) {
+            long size = mode == FileChannel.MapMode.READ_ONLY ? channel.size() : segmentBytes;
+            return channel.map(mode, 0, size);
+        }
+    }
+    
+    private Path segmentPath(long segment) {
+        return spoolDir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+    
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+    
+    /**
+     * Items are stored as DynamoDB JSON ({"S": ...}, {"N": ...}, {"M": {...}}) so typed attributes survive;
+     * records written before that hold plain strings and are read back as S values
+     */
+    private static byte[] encode(Map<String, AttributeValue> item) throws IOException {
+        ObjectNode node = MAPPER.createObjectNode();
+        item.forEach((name, value) -> node.set(name, toJson(value)));
+        return MAPPER.writeValueAsBytes(node);
+    }
+    
+    private static Map<String, AttributeValue> decode(byte[] payload) {
+        try {
+            JsonNode node = MAPPER.readTree(payload);
+            Map<String, AttributeValue> item = new LinkedHashMap<>();
+            node.fields().forEachRemaining(field -> item.put(field.getKey(), fromJson(field.getValue())));
+            return item;
+        } catch (IOException e) {
+            throw new RuntimeException("Corrupt audit spool record", e);
+        }
+    }
+    
+    private static JsonNode toJson(AttributeValue value) {
+        ObjectNode node = MAPPER.createObjectNode();
+        switch (value.type()) {
+            case S -> node.put("S", value.s());
+            case N -> node.put("N", value.n());
+            case BOOL -> node.put("BOOL", value.bool());
+            case M -> {
+                ObjectNode map = node.putObject("M");
+                value.m().forEach((name, entry) -> map.set(name, toJson(entry)));
+            }
+            case L -> {
+                ArrayNode list = node.putArray("L");
+                value.l().forEach(entry -> list.add(toJson(entry)));
+            }
+            default -> node.put("NULL", true);
+        }
+        return node;
+    }
+    
+    private static AttributeValue fromJson(JsonNode node) {
+        if (node.isTextual()) {
+            return AttributeValue.fromS(node.asText());
+        }
+        if (node.has("S")) {
+            return AttributeValue.fromS(node.get("S").asText());
+        }
+        if (node.has("N")) {
+            return AttributeValue.fromN(node.get("N").asText());
+        }
+        if (node.has("BOOL")) {
+            return AttributeValue.fromBool(node.get("BOOL").asBoolean());
+        }
+        if (node.has("M")) {
+            Map<String, AttributeValue> map = new LinkedHashMap<>();
+            node.get("M").fields().forEachRemaining(field -> map.put(field.getKey(), fromJson(field.getValue())));
+            return AttributeValue.fromM(map);
+        }
+        if (node.has("L")) {
+            List<AttributeValue> list = new ArrayList<>();
+            node.get("L").forEach(entry -> list.add(fromJson(entry)));
+            return AttributeValue.fromL(list);
+        }
+        return AttributeValue.fromNul(true);
+    }
+    
+    /**
+     * Items read from the spool and the position just after them
+     */
+    public static class Batch {
+        private final List<Map<String, AttributeValue>> items;
+        private final long nextSegment;
+        private final int nextOffset;
+        
+        private Batch(List<Map<String, AttributeValue>> items, long nextSegment, int nextOffset) {
+            this.items = items;
+            this.nextSegment = nextSegment;
+            this.nextOffset = nextOffset;
+        }
+        
+        public List<Map<String, AttributeValue>> getItems() { return items; }
+        public boolean isEmpty() { return items.isEmpty(); }
+    }
+}
@@ -0,0 +1,94 @@
+package com.bankingsystem.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes items to DynamoDB with BatchWriteItem, 25 items per call.
+ * Unprocessed items and throttled calls are retried with jittered exponential backoff.
+ */
+@Component
+public class DynamoBatchWriter {
+    
+    public static final int MAX_BATCH_ITEMS = 25;
+    
+    private static final int MAX_ATTEMPTS = 6;
+    private static final long BASE_BACKOFF_MILLIS = 50;
+    
+    @Autowired
+    private DynamoDbClient dynamoDbClient;
+    
+    /**
+     * Put every item into the table and return the items that could not be written
+     */
+    public List<Map<String, AttributeValue>> putAll(String tableName, List<Map<String, AttributeValue>> items) {
+        List<WriteRequest> requests = new ArrayList<>(items.size());
+        for (Map<String, AttributeValue> item : items) {
+            requests.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+        }
+        List<Map<String, AttributeValue>> failed = new ArrayList<>();
+        for (WriteRequest unwritten : writeAll(tableName, requests)) {
+            failed.add(unwritten.putRequest().item());
+        }
+        return failed;
+    }
+    
+    /**
+     * Write a mix of puts and deletes and return the requests that could not be applied
+     */
+    public List<WriteRequest> writeAll(String tableName, List<WriteRequest> requests) {
+        List<WriteRequest> failed = new ArrayList<>();
+        for (int start = 0; start < requests.size(); start += MAX_BATCH_ITEMS) {
+            failed.addAll(writeChunk(tableName, requests.subList(start, Math.min(start + MAX_BATCH_ITEMS, requests.size()))));
+        }
+        return failed;
+    }
+    
+    /**
+     * Write one chunk of at most 25 requests, resubmitting only what DynamoDB left unprocessed
+     */
+    private List<WriteRequest> writeChunk(String tableName, List<WriteRequest> requests) {
+        Map<String, List<WriteRequest>> pending = Map.of(tableName, requests);
+        
+        for (int attempt = 1; ; attempt++) {
+            try {
+                BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(pending)
+                        .build());
+                pending = response.unprocessedItems();
+                if (pending == null || pending.isEmpty()) {
+                    return List.of();
+                }
+            } catch (SdkException e) {
+                System.err.println("❌ DynamoDB batch write to " + tableName + " failed (attempt " + attempt + "): " + e.getMessage());
+            }
+            
+            if (attempt >= MAX_ATTEMPTS || !backOff(attempt)) {
+                return pending.getOrDefault(tableName, List.of());
+            }
+        }
+    }
+    
+    private static boolean backOff(int attempt) {
+        long ceiling = BASE_BACKOFF_MILLIS << (attempt - 1);
+        try {
+            Thread.sleep(ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.bankingsystem.util;
+
+import com.bankingsystem.model.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keyset position in an account's history, which is ordered newest first by transaction date and
+ * then transaction ID. Clients get it as an opaque token and pass it back to fetch the next page.
+ */
+public class HistoryCursor {
+    
+    private final LocalDateTime transactionDate;
+    private final String transactionId;
+    
+    public HistoryCursor(LocalDateTime transactionDate, String transactionId) {
+        // MongoDB keeps dates to the millisecond, so compare at that precision
+        this.transactionDate = transactionDate.truncatedTo(ChronoUnit.MILLIS);
+        this.transactionId = transactionId;
+    }
+    
+    public static HistoryCursor after(Transaction transaction) {
+        return new HistoryCursor(transaction.getTransactionDate(), transaction.getTransactionId());
+    }
+    
+    /**
+     * Read a token handed out with a previous page; null or blank means the first page
+     */
+    public static HistoryCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new HistoryCursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid cursor: " + token);
+        }
+    }
+    
+    public String encode() {
+        String value = transactionDate + "|" + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Response for one page, given up to limit + 1 transactions: the extra one only tells whether
+     * there is a next page
+     */
+    public static Map<String, Object> page(List<Transaction> fetched, int limit) {
+        boolean more = fetched.size() > limit;
+        List<Transaction> transactions = more ? fetched.subList(0, limit) : fetched;
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("transactions", transactions);
+        page.put("nextCursor", more ? after(transactions.get(transactions.size() - 1)).encode() : null);
+        return page;
+    }
+    
+    public LocalDateTime getTransactionDate() {
+        return transactionDate;
+    }
+    
+    public String getTransactionId() {
+        return transactionId;
+    }
+}
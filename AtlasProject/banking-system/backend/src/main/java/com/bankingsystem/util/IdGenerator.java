@@ -0,0 +1,138 @@
+package com.bankingsystem.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Issues monotonic, k-sorted, fixed-width IDs such as DEP0001234567890123456.
+ * Each ID packs 41 bits of milliseconds since 2024-01-01, a 10-bit node ID and a 12-bit
+ * sequence, rendered as 19 zero-padded digits after a type prefix, so string order
+ * matches creation order and unique indexes receive right-leaning inserts.
+ */
+@Component
+public class IdGenerator {
+    
+    public static final String DEPOSIT = "DEP";
+    public static final String WITHDRAWAL = "WTH";
+    public static final String TRANSFER = "TRF";
+    public static final String REFERENCE = "REF";
+    public static final String ACCOUNT = "ACC";
+    public static final String AUDIT = "AUD";
+    public static final String BATCH = "BAT";
+    public static final String SYNC = "SYN";
+    public static final String SETTLEMENT = "STL";
+    public static final String SETTLEMENT_RUN = "SRN";
+    public static final String REVERSAL = "REV";
+    
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int DIGITS = 19;
+    
+    @Value("${banking.node-id:-1}")
+    private long configuredNodeId;
+    
+    private long nodeId;
+    
+    // Last issued (timestamp << SEQUENCE_BITS | sequence); advanced only by CAS
+    private final AtomicLong lastState = new AtomicLong();
+    
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("banking.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        nodeId = configuredNodeId >= 0 ? configuredNodeId : deriveNodeId();
+    }
+    
+    /**
+     * Next raw 63-bit ID
+     */
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+            long now = Math.max(System.currentTimeMillis() - EPOCH_MILLIS, lastTimestamp);
+            
+            // Same millisecond: bump the sequence; an overflow carries into the timestamp,
+            // borrowing the next millisecond instead of spinning on the clock
+            long next = now == lastTimestamp ? last + 1 : now << SEQUENCE_BITS;
+            
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+    
+    /**
+     * Next ID rendered with a type prefix
+     */
+    public String nextId(String prefix) {
+        return format(prefix, nextId());
+    }
+    
+    /**
+     * Render a raw ID with its prefix as fixed-width digits
+     */
+    public static String format(String prefix, long id) {
+        char[] chars = new char[prefix.length() + DIGITS];
+        prefix.getChars(0, prefix.length(), chars, 0);
+        for (int i = chars.length - 1; i >= prefix.length(); i--) {
+            chars[i] = (char) ('0' + (id % 10));
+            id /= 10;
+        }
+        return new String(chars);
+    }
+    
+    /**
+     * Recover the raw ID from a generated one, or -1 for IDs issued before this generator
+     */
+    public static long parse(String id) {
+        if (id == null || id.length() <= DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = id.length() - DIGITS; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    /**
+     * Extract the creation time encoded in a raw ID
+     */
+    public static long timestampMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+    
+    public long getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * Fallback node ID from host name and process ID; set banking.node-id explicitly in clusters
+     */
+    private static long deriveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        int hash = (host + "/" + ManagementFactory.getRuntimeMXBean().getName()).hashCode();
+        return (hash ^ (hash >>> 16)) & MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,322 @@
+package com.bankingsystem.util;
+
+import com.bankingsystem.model.SettlementEntry;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Nets one batch of settlement entries into a position per account, and optionally per
+ * counterparty pair. Account numbers are interned to int indexes once; everything after that
+ * lives in primitive arrays keyed by those indexes, with amounts held as paise in longs.
+ * Each account keeps its legs as an in-order linked list threaded through an int array,
+ * so the constituent transactions can be listed, or re-netted without the legs a position
+ * already holds.
+ * Pairs are netted from debit legs only, so a transfer counts once even though both of its
+ * legs may be in the batch.
+ */
+public class NettingBook {
+    
+    private final Map<String, Integer> accountIndexes = new HashMap<>();
+    private final List<String> accountNumbers = new ArrayList<>();
+    private final List<String> rejected = new ArrayList<>();
+    
+    // Per account
+    private long[] creditPaise = new long[16];
+    private long[] debitPaise = new long[16];
+    private int[] legCounts = new int[16];
+    private int[] firstLeg = new int[16];
+    private int[] lastLeg = new int[16];
+    
+    // Per leg
+    private int legCount;
+    private String[] legEntryIds = new String[32];
+    private String[] legTransactionIds = new String[32];
+    private long[] legPaise = new long[32];
+    private int[] nextLeg = new int[32];
+    
+    private final PairAccumulator pairs;
+    
+    public NettingBook(boolean netPairs) {
+        this.pairs = netPairs ? new PairAccumulator() : null;
+    }
+    
+    /**
+     * Net a batch in queue order; entries whose amounts are not whole paise are rejected
+     */
+    public static NettingBook of(List<SettlementEntry> entries, boolean netPairs) {
+        NettingBook book = new NettingBook(netPairs);
+        for (SettlementEntry entry : entries) {
+            book.add(entry);
+        }
+        return book;
+    }
+    
+    public void add(SettlementEntry entry) {
+        if (entry.getAmount() == null || entry.getLeg() == null || entry.getAccountNumber() == null) {
+            return;
+        }
+        long paise;
+        try {
+            paise = entry.getAmount().setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            rejected.add(entry.getId());
+            return;
+        }
+        
+        boolean credit = entry.getLeg() == SettlementEntry.Leg.CREDIT;
+        addLeg(entry, credit ? paise : -paise);
+        if (pairs != null && !credit && entry.getCounterpartyAccountNumber() != null) {
+            pairs.add(entry.getAccountNumber(), entry.getCounterpartyAccountNumber(), paise);
+        }
+    }
+    
+    public int accountCount() {
+        return accountNumbers.size();
+    }
+    
+    public int legCount() {
+        return legCount;
+    }
+    
+    public String accountNumber(int account) {
+        return accountNumbers.get(account);
+    }
+    
+    public long creditPaise(int account) {
+        return creditPaise[account];
+    }
+    
+    public long debitPaise(int account) {
+        return debitPaise[account];
+    }
+    
+    public int legCount(int account) {
+        return legCounts[account];
+    }
+    
+    /**
+     * Net of the account's legs whose entries are not in applied: [credits, debits]
+     */
+    public long[] netExcluding(int account, Set<String> applied) {
+        long[] net = new long[2];
+        for (int leg = firstLeg[account]; leg >= 0; leg = nextLeg[leg]) {
+            if (!applied.contains(legEntryIds[leg])) {
+                if (legPaise[leg] >= 0) {
+                    net[0] += legPaise[leg];
+                } else {
+                    net[1] -= legPaise[leg];
+                }
+            }
+        }
+        return net;
+    }
+    
+    /**
+     * Queue entries of the account's legs that are not in applied, in queue order
+     */
+    public List<String> entryIdsExcluding(int account, Set<String> applied) {
+        List<String> entryIds = new ArrayList<>();
+        for (int leg = firstLeg[account]; leg >= 0; leg = nextLeg[leg]) {
+            if (!applied.contains(legEntryIds[leg])) {
+                entryIds.add(legEntryIds[leg]);
+            }
+        }
+        return entryIds;
+    }
+    
+    /**
+     * Transactions behind the account's position, in queue order
+     */
+    public List<String> transactionIds(int account) {
+        List<String> transactionIds = new ArrayList<>(legCounts[account]);
+        for (int leg = firstLeg[account]; leg >= 0; leg = nextLeg[leg]) {
+            transactionIds.add(legTransactionIds[leg]);
+        }
+        return transactionIds;
+    }
+    
+    /**
+     * Queue entries behind the account's position, in queue order
+     */
+    public List<String> entryIds(int account) {
+        List<String> entryIds = new ArrayList<>(legCounts[account]);
+        for (int leg = firstLeg[account]; leg >= 0; leg = nextLeg[leg]) {
+            entryIds.add(legEntryIds[leg]);
+        }
+        return entryIds;
+    }
+    
+    /**
+     * Entries left out because their amount has more than two decimal places
+     */
+    public List<String> rejectedEntryIds() {
+        return rejected;
+    }
+    
+    /**
+     * Net transfer positions per unordered account pair; empty when pair netting is off
+     */
+    public List<PairPosition> pairPositions() {
+        return pairs != null ? pairs.positions() : List.of();
+    }
+    
+    private void addLeg(SettlementEntry entry, long signedPaise) {
+        int account = intern(entry.getAccountNumber());
+        if (legCount == legPaise.length) {
+            int capacity = legCount * 2;
+            legEntryIds = Arrays.copyOf(legEntryIds, capacity);
+            legTransactionIds = Arrays.copyOf(legTransactionIds, capacity);
+            legPaise = Arrays.copyOf(legPaise, capacity);
+            nextLeg = Arrays.copyOf(nextLeg, capacity);
+        }
+        int leg = legCount++;
+        legEntryIds[leg] = entry.getId();
+        legTransactionIds[leg] = entry.getTransactionId();
+        legPaise[leg] = signedPaise;
+        nextLeg[leg] = -1;
+        
+        if (lastLeg[account] < 0) {
+            firstLeg[account] = leg;
+        } else {
+            nextLeg[lastLeg[account]] = leg;
+        }
+        lastLeg[account] = leg;
+        legCounts[account]++;
+        if (signedPaise >= 0) {
+            creditPaise[account] += signedPaise;
+        } else {
+            debitPaise[account] -= signedPaise;
+        }
+    }
+    
+    private int intern(String accountNumber) {
+        Integer existing = accountIndexes.get(accountNumber);
+        if (existing != null) {
+            return existing;
+        }
+        int account = accountNumbers.size();
+        if (account == legCounts.length) {
+            int capacity = account * 2;
+            creditPaise = Arrays.copyOf(creditPaise, capacity);
+            debitPaise = Arrays.copyOf(debitPaise, capacity);
+            legCounts = Arrays.copyOf(legCounts, capacity);
+            firstLeg = Arrays.copyOf(firstLeg, capacity);
+            lastLeg = Arrays.copyOf(lastLeg, capacity);
+        }
+        firstLeg[account] = -1;
+        lastLeg[account] = -1;
+        accountIndexes.put(accountNumber, account);
+        accountNumbers.add(accountNumber);
+        return account;
+    }
+    
+    /**
+     * Open-addressing map from a packed (lower index, higher index) long to a signed net and a count.
+     * Pair accounts are interned separately, since a counterparty may have no legs in the batch.
+     */
+    private static class PairAccumulator {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> accountNumbers = new ArrayList<>();
+        private long[] keys = new long[64];
+        private long[] nets = new long[64];
+        private int[] counts = new int[64];
+        private boolean[] used = new boolean[64];
+        private int size;
+        
+        void add(String sourceAccountNumber, String destinationAccountNumber, long paise) {
+            int source = indexes.computeIfAbsent(sourceAccountNumber, this::register);
+            int destination = indexes.computeIfAbsent(destinationAccountNumber, this::register);
+            // Stored from the lower index's point of view: positive means the lower index received money
+            int low = Math.min(source, destination);
+            int high = Math.max(source, destination);
+            long key = ((long) low << 32) | high;
+            int slot = slotOf(key);
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                if (++size * 2 > keys.length) {
+                    resize();
+                    slot = slotOf(key);
+                }
+            }
+            nets[slot] += low == destination ? paise : -paise;
+            counts[slot]++;
+        }
+        
+        List<PairPosition> positions() {
+            List<PairPosition> positions = new ArrayList<>(size);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (used[slot]) {
+                    int low = (int) (keys[slot] >>> 32);
+                    int high = (int) keys[slot];
+                    positions.add(new PairPosition(accountNumbers.get(low), accountNumbers.get(high),
+                            BigDecimal.valueOf(nets[slot], 2), counts[slot]));
+                }
+            }
+            return positions;
+        }
+        
+        private int register(String accountNumber) {
+            accountNumbers.add(accountNumber);
+            return accountNumbers.size() - 1;
+        }
+        
+        private int slotOf(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (key ^ (key >>> 29)) * 0x9E3779B1 & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+        
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldNets = nets;
+            int[] oldCounts = counts;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            nets = new long[keys.length];
+            counts = new int[keys.length];
+            used = new boolean[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = slotOf(oldKeys[i]);
+                    used[slot] = true;
+                    keys[slot] = oldKeys[i];
+                    nets[slot] = oldNets[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+    }
+    
+    /**
+     * Net of all transfers between two accounts; positive means money moved to the first account
+     */
+    public static class PairPosition {
+        private final String firstAccountNumber;
+        private final String secondAccountNumber;
+        private final BigDecimal net;
+        private final int transfers;
+        
+        public PairPosition(String firstAccountNumber, String secondAccountNumber, BigDecimal net, int transfers) {
+            this.firstAccountNumber = firstAccountNumber;
+            this.secondAccountNumber = secondAccountNumber;
+            this.net = net;
+            this.transfers = transfers;
+        }
+        
+        public String getFirstAccountNumber() { return firstAccountNumber; }
+        public String getSecondAccountNumber() { return secondAccountNumber; }
+        public BigDecimal getNet() { return net; }
+        public int getTransfers() { return transfers; }
+    }
+}
@@ -1,123 +1,588 @@
 package com.bankingsystem.util;
 
+import com.bankingsystem.model.SettlementEntry;
 import com.bankingsystem.model.Transaction;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.InsertManyOptions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Map;
-import java.util.List;
-import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Durable settlement queue stored in the settlement_queue collection, so a settlement run in
+ * another process (scripts/settlement.sh) sees everything the service enqueued.
+ * Producers hand entries to a committer thread that inserts whatever has accumulated in one
+ * journaled write and then releases all of them, so concurrent enqueues share one disk flush.
+ * Consumers claim batches under a lease and acknowledge them; unacknowledged claims become
+ * claimable again once the lease runs out, which makes the acknowledged state the durable offset.
+ * Each transaction is stored as one entry per account leg, placed in that account's partition,
+ * and consumers only claim from the partitions they hold a lease on.
+ * Transactions are saved with settlementPending set, which the committer removes once their entries
+ * are on disk; a failed enqueue is therefore not an error for the caller, because the outbox sweep
+ * enqueues whatever still carries the flag.
+ */
 @Component
 public class SettlementQueue {
     
-    private final BlockingQueue<Transaction> settlementQueue = new LinkedBlockingQueue<>();
-    private final Map<String, Transaction> pendingTransactions = new ConcurrentHashMap<>();
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int OUTBOX_PAGE_SIZE = 500;
     
-    /**
-     * Add a transaction to the settlement queue
-     */
-    public void enqueue(Transaction transaction) {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.settlement.queue.commit-batch-size:500}")
+    private int commitBatchSize;
+    
+    @Value("${banking.settlement.queue.commit-timeout-ms:5000}")
+    private long commitTimeoutMillis;
+    
+    @Value("${banking.settlement.queue.lease-ms:300000}")
+    private long leaseMillis;
+    
+    @Value("${banking.settlement.queue.retention-days:7}")
+    private int retentionDays;
+    
+    @Value("${banking.settlement.partitions:16}")
+    private int partitionCount;
+    
+    // Age a pending transaction must reach before the sweep takes it, well past the commit timeout
+    @Value("${banking.settlement.queue.outbox-grace-ms:60000}")
+    private long outboxGraceMillis;
+    
+    // Identifies this process in claims
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName();
+    
+    private final BlockingQueue<PendingEnqueue> commitQueue = new LinkedBlockingQueue<>();
+    private Thread committer;
+    private volatile boolean running;
+    
+    // Entries this process has committed since startup
+    private final AtomicLong committedCount = new AtomicLong();
+    
+    private Counter enqueuedCounter;
+    private Timer commitTimer;
+    
+    @PostConstruct
+    public void start() {
         try {
-            settlementQueue.put(transaction);
-            pendingTransactions.put(transaction.getTransactionId(), transaction);
+            IndexOperations indexes = mongoTemplate.indexOps(SettlementEntry.class);
+            indexes.ensureIndex(new Index().on("status", Sort.Direction.ASC).on("seq", Sort.Direction.ASC));
+            indexes.ensureIndex(new Index().on("partition", Sort.Direction.ASC).on("status", Sort.Direction.ASC)
+                    .on("seq", Sort.Direction.ASC));
+            indexes.ensureIndex(new Index().on("transactionId", Sort.Direction.ASC));
+            indexes.ensureIndex(new Index().on("status", Sort.Direction.ASC).on("retryAt", Sort.Direction.ASC));
+            indexes.ensureIndex(new Index().on("claimToken", Sort.Direction.ASC).sparse());
+            indexes.ensureIndex(new Index().on("settledAt", Sort.Direction.ASC).expire(Duration.ofDays(retentionDays)));
+        } catch (Exception e) {
+            System.err.println("❌ Failed to create settlement queue indexes: " + e.getMessage());
+        }
+        
+        enqueuedCounter = Counter.builder("banking.settlement.enqueued")
+                .description("Settlement entries durably added to the queue")
+                .register(meterRegistry);
+        commitTimer = Timer.builder("banking.settlement.queue.commit")
+                .description("Time to write one group of settlement entries")
+                .register(meterRegistry);
+        
+        running = true;
+        committer = new Thread(this::runCommitter, "settlement-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        // Waiting producers are released by the final groups the committer writes on its way out
+        running = false;
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(10));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new RuntimeException("Failed to enqueue transaction", e);
         }
     }
     
     /**
-     * Remove and return the next transaction from the settlement queue
+     * Add a saved transaction to the settlement queue, returning once it is on disk. A failure is
+     * logged rather than thrown and false returned; the outbox sweep enqueues the transaction later.
      */
-    public Transaction dequeue() {
+    public boolean enqueue(Transaction transaction) {
+        return enqueueAll(List.of(transaction));
+    }
+    
+    /**
+     * Add several saved transactions in one group, returning once all of them are on disk; false
+     * if they were left for the outbox sweep
+     */
+    public boolean enqueueAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return true;
+        }
+        List<SettlementEntry> entries = new ArrayList<>(transactions.size() * 2);
+        List<String> transactionIds = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            addLegs(transaction, idGenerator.nextId(), entries);
+            transactionIds.add(transaction.getTransactionId());
+        }
         try {
-            Transaction transaction = settlementQueue.take();
-            pendingTransactions.remove(transaction.getTransactionId());
-            return transaction;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return null;
+            commitAndWait(new PendingEnqueue(entries, transactionIds));
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("❌ Failed to enqueue " + transactions.size()
+                    + " transactions for settlement, left for the outbox sweep: " + e.getMessage());
+            return false;
         }
     }
     
     /**
-     * Get the next transaction without removing it from the queue
+     * Add prepared entries in one group, such as dead letters sent back for another try
      */
-    public Transaction peek() {
-        return settlementQueue.peek();
+    public void enqueueEntries(List<SettlementEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        commitAndWait(new PendingEnqueue(entries, List.of()));
     }
     
     /**
-     * Get the current size of the settlement queue
+     * Enqueue transactions that were saved but never made it into the queue, such as those whose
+     * enqueue timed out or whose process died in between. Re-enqueueing is harmless, since the
+     * queue ignores entries it already holds.
      */
-    public int size() {
-        return settlementQueue.size();
+    @Scheduled(fixedDelayString = "${banking.settlement.queue.outbox-sweep-ms:60000}", initialDelay = 60000)
+    public void sweepOutbox() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(outboxGraceMillis));
+            Query unqueued = new Query(Criteria.where("settlementPending").is(true).and("createdAt").lt(cutoff))
+                    .limit(OUTBOX_PAGE_SIZE);
+            int swept = 0;
+            List<Transaction> page;
+            do {
+                page = mongoTemplate.find(unqueued, Transaction.class);
+                if (page.isEmpty() || !enqueueAll(page)) {
+                    break;
+                }
+                swept += page.size();
+            } while (page.size() == OUTBOX_PAGE_SIZE);
+            if (swept > 0) {
+                System.out.println("🔄 Enqueued " + swept + " transactions missing from the settlement queue");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Settlement outbox sweep failed: " + e.getMessage());
+        }
     }
     
     /**
-     * Check if the settlement queue is empty
+     * Name this process claims entries under
      */
-    public boolean isEmpty() {
-        return settlementQueue.isEmpty();
+    public String getOwner() {
+        return owner;
     }
     
     /**
-     * Get all pending transactions as a list
+     * Number of entries this process has enqueued since startup
      */
-    public List<Transaction> getPendingTransactions() {
-        return new ArrayList<>(pendingTransactions.values());
+    public long getEnqueuedCount() {
+        return committedCount.get();
     }
     
     /**
-     * Check if a specific transaction is pending
+     * Claim up to maxElements entries of the given partitions in enqueue order; they stay invisible
+     * to other consumers until acknowledged, released, or the lease expires. Entries claimed under an
+     * older token of a partition can be taken over at once, since that claim's holder lost the partition.
      */
-    public boolean isPending(String transactionId) {
-        return pendingTransactions.containsKey(transactionId);
+    public List<SettlementEntry> drainTo(int maxElements, Map<Integer, Long> fences) {
+        if (fences.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Criteria> perPartition = new ArrayList<>(fences.size());
+        fences.forEach((partition, fence) -> perPartition.add(claimable(partition, fence, now)));
+        Query candidates = new Query(new Criteria().orOperator(perPartition)).with(Sort.by("seq")).limit(maxElements);
+        candidates.fields().include("_id").include("partition");
+        Map<Integer, List<String>> idsByPartition = new HashMap<>();
+        for (SettlementEntry candidate : mongoTemplate.find(candidates, SettlementEntry.class)) {
+            idsByPartition.computeIfAbsent(candidate.getPartition(), partition -> new ArrayList<>()).add(candidate.getId());
+        }
+        if (idsByPartition.isEmpty()) {
+            return List.of();
+        }
+        
+        // Re-check claimability in the update so a concurrent consumer cannot take the same entries
+        String claimToken = UUID.randomUUID().toString();
+        LocalDateTime leaseUntil = now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMillis));
+        idsByPartition.forEach((partition, ids) -> {
+            long fence = fences.get(partition);
+            Query claim = new Query(new Criteria().andOperator(Criteria.where("_id").in(ids),
+                    claimable(partition, fence, now)));
+            mongoTemplate.updateMulti(claim, new Update()
+                    .set("status", SettlementEntry.EntryStatus.CLAIMED)
+                    .set("claimedBy", owner)
+                    .set("claimToken", claimToken)
+                    .set("fence", fence)
+                    .set("leaseUntil", leaseUntil)
+                    .inc("attempts", 1), SettlementEntry.class);
+        });
+        
+        return mongoTemplate.find(new Query(Criteria.where("claimToken").is(claimToken)).with(Sort.by("seq")),
+                SettlementEntry.class);
+    }
+    
+    /**
+     * Mark claimed entries as settled; this is what a consumer commits once its work is durable.
+     * Returns the entries that are now settled, which leaves out claims this process had lost.
+     */
+    public List<String> acknowledge(Collection<String> entryIds) {
+        if (entryIds.isEmpty()) {
+            return List.of();
+        }
+        long acknowledged = mongoTemplate.updateMulti(ownedClaims(entryIds), new Update()
+                .set("status", SettlementEntry.EntryStatus.SETTLED)
+                .set("settledAt", LocalDateTime.now())
+                .unset("claimToken")
+                .unset("leaseUntil"), SettlementEntry.class).getModifiedCount();
+        if (acknowledged == entryIds.size()) {
+            return new ArrayList<>(entryIds);
+        }
+        Query settled = new Query(Criteria.where("_id").in(entryIds).and("status").is(SettlementEntry.EntryStatus.SETTLED));
+        settled.fields().include("_id");
+        List<String> settledIds = new ArrayList<>();
+        for (SettlementEntry entry : mongoTemplate.find(settled, SettlementEntry.class)) {
+            settledIds.add(entry.getId());
+        }
+        return settledIds;
+    }
+    
+    /**
+     * Park a claimed entry that failed until retryAt; returns false if this process no longer holds the claim
+     */
+    public boolean retryLater(String entryId, String error, LocalDateTime retryAt) {
+        return mongoTemplate.updateFirst(ownedClaims(List.of(entryId)), new Update()
+                .set("status", SettlementEntry.EntryStatus.RETRY)
+                .set("retryAt", retryAt)
+                .set("lastError", error)
+                .unset("claimedBy")
+                .unset("claimToken")
+                .unset("leaseUntil"), SettlementEntry.class).getMatchedCount() > 0;
+    }
+    
+    /**
+     * Make waiting retries claimable again. Each gets a new sequence number, since the account's
+     * position has usually moved past the old one while it waited.
+     */
+    public int promoteRetries(Collection<String> entryIds) {
+        int promoted = 0;
+        for (String entryId : entryIds) {
+            Query waiting = new Query(Criteria.where("_id").is(entryId).and("status").is(SettlementEntry.EntryStatus.RETRY));
+            if (mongoTemplate.updateFirst(waiting, new Update()
+                    .set("status", SettlementEntry.EntryStatus.QUEUED)
+                    .set("seq", idGenerator.nextId())
+                    .unset("retryAt"), SettlementEntry.class).getMatchedCount() > 0) {
+                promoted++;
+            }
+        }
+        return promoted;
+    }
+    
+    /**
+     * IDs of retries due at or before the given time, oldest first
+     */
+    public List<String> getDueRetries(LocalDateTime dueBy, int limit) {
+        Query due = new Query(Criteria.where("status").is(SettlementEntry.EntryStatus.RETRY).and("retryAt").lte(dueBy))
+                .with(Sort.by("retryAt")).limit(limit);
+        due.fields().include("_id");
+        List<String> entryIds = new ArrayList<>();
+        for (SettlementEntry entry : mongoTemplate.find(due, SettlementEntry.class)) {
+            entryIds.add(entry.getId());
+        }
+        return entryIds;
+    }
+    
+    /**
+     * Visit every waiting retry due at or before the given time with its ID and retry time,
+     * without loading the whole set at once
+     */
+    public void forEachRetry(LocalDateTime dueBy, Consumer<SettlementEntry> visitor) {
+        Query waiting = new Query(Criteria.where("status").is(SettlementEntry.EntryStatus.RETRY).and("retryAt").lte(dueBy));
+        waiting.fields().include("_id").include("retryAt");
+        try (Stream<SettlementEntry> retries = mongoTemplate.stream(waiting, SettlementEntry.class)) {
+            retries.forEach(visitor);
+        }
     }
     
     /**
-     * Remove a specific transaction from pending list (if it was processed)
+     * Claimed entries of this process, with their attempt counts
+     */
+    public List<SettlementEntry> getOwnedClaims(Collection<String> entryIds) {
+        if (entryIds.isEmpty()) {
+            return List.of();
+        }
+        return mongoTemplate.find(ownedClaims(entryIds), SettlementEntry.class);
+    }
+    
+    /**
+     * Entries in the given status, oldest first
+     */
+    public List<SettlementEntry> getEntries(SettlementEntry.EntryStatus status, int limit) {
+        return mongoTemplate.find(new Query(Criteria.where("status").is(status)).with(Sort.by("seq")).limit(limit),
+                SettlementEntry.class);
+    }
+    
+    /**
+     * Delete an entry that has been moved to the dead-letter store, if it is still in the expected status
+     * (and, for CLAIMED, still claimed by this process)
+     */
+    public boolean remove(String entryId, SettlementEntry.EntryStatus status) {
+        Query query = status == SettlementEntry.EntryStatus.CLAIMED ? ownedClaims(List.of(entryId))
+                : new Query(Criteria.where("_id").is(entryId).and("status").is(status));
+        return mongoTemplate.remove(query, SettlementEntry.class).getDeletedCount() > 0;
+    }
+    
+    /**
+     * Return claimed entries that were never attempted, such as the remainder of a run that timed out,
+     * without counting the claim against their attempts
+     */
+    public void requeue(Collection<String> entryIds) {
+        if (entryIds.isEmpty()) {
+            return;
+        }
+        mongoTemplate.updateMulti(ownedClaims(entryIds), new Update()
+                .set("status", SettlementEntry.EntryStatus.QUEUED)
+                .inc("attempts", -1)
+                .unset("claimedBy")
+                .unset("claimToken")
+                .unset("leaseUntil"), SettlementEntry.class);
+    }
+    
+    /**
+     * Remove a specific transaction from the queue once it has been settled
      */
     public void markAsProcessed(String transactionId) {
-        pendingTransactions.remove(transactionId);
+        acknowledge(List.of(transactionId + ":" + SettlementEntry.Leg.DEBIT,
+                transactionId + ":" + SettlementEntry.Leg.CREDIT));
     }
     
     /**
-     * Clear all pending transactions
+     * Check if any leg of a specific transaction is still waiting for settlement
      */
-    public void clear() {
-        settlementQueue.clear();
-        pendingTransactions.clear();
+    public boolean isPending(String transactionId) {
+        return mongoTemplate.exists(new Query(Criteria.where("transactionId").is(transactionId).and("status")
+                .in(SettlementEntry.EntryStatus.QUEUED, SettlementEntry.EntryStatus.CLAIMED)), SettlementEntry.class);
     }
     
     /**
-     * Get the number of pending transactions
+     * Get the number of queued or claimed entries
      */
-    public int getPendingCount() {
-        return pendingTransactions.size();
+    public long getPendingCount() {
+        return mongoTemplate.count(new Query(Criteria.where("status")
+                .in(SettlementEntry.EntryStatus.QUEUED, SettlementEntry.EntryStatus.CLAIMED)), SettlementEntry.class);
     }
     
     /**
-     * Drain all transactions from the queue to a list
+     * Get the number of failed entries waiting for their next attempt
      */
-    public List<Transaction> drainAll() {
-        List<Transaction> transactions = new ArrayList<>();
-        settlementQueue.drainTo(transactions);
-        pendingTransactions.clear();
-        return transactions;
+    public long getRetryingCount() {
+        return mongoTemplate.count(new Query(Criteria.where("status").is(SettlementEntry.EntryStatus.RETRY)),
+                SettlementEntry.class);
     }
     
     /**
-     * Drain up to maxElements transactions from the queue to a list
+     * Check if the settlement queue is empty
      */
-    public List<Transaction> drainTo(int maxElements) {
-        List<Transaction> transactions = new ArrayList<>();
-        settlementQueue.drainTo(transactions, maxElements);
-        // Remove drained transactions from pending map
-        transactions.forEach(tx -> pendingTransactions.remove(tx.getTransactionId()));
-        return transactions;
+    public boolean isEmpty() {
+        return getPendingCount() == 0;
+    }
+    
+    /**
+     * Get entries waiting for settlement, oldest first
+     */
+    public List<SettlementEntry> getPendingEntries(int limit) {
+        return mongoTemplate.find(new Query(Criteria.where("status")
+                .in(SettlementEntry.EntryStatus.QUEUED, SettlementEntry.EntryStatus.CLAIMED))
+                .with(Sort.by("seq")).limit(limit), SettlementEntry.class);
+    }
+    
+    /**
+     * Settlement partition of an account; every instance must agree on it, so it depends only on
+     * the account number and banking.settlement.partitions
+     */
+    public static int partitionOf(String accountNumber, int partitionCount) {
+        int hash = accountNumber.hashCode();
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, partitionCount);
+    }
+    
+    /**
+     * Split a transaction into one entry per account it moves money on
+     */
+    private void addLegs(Transaction transaction, long seq, List<SettlementEntry> entries) {
+        String source = transaction.getSourceAccount() != null ? transaction.getSourceAccount().getAccountNumber() : null;
+        if (transaction.getType() == Transaction.TransactionType.TRANSFER) {
+            String destination = transaction.getDestinationAccount() != null
+                    ? transaction.getDestinationAccount().getAccountNumber() : null;
+            addLeg(transaction, SettlementEntry.Leg.DEBIT, source, destination, seq, entries);
+            addLeg(transaction, SettlementEntry.Leg.CREDIT, destination, source, seq, entries);
+        } else {
+            boolean credit = transaction.getType() == Transaction.TransactionType.DEPOSIT
+                    || transaction.getType() == Transaction.TransactionType.INTEREST
+                    || transaction.getType() == Transaction.TransactionType.REFUND;
+            addLeg(transaction, credit ? SettlementEntry.Leg.CREDIT : SettlementEntry.Leg.DEBIT, source, null, seq, entries);
+        }
+    }
+    
+    private void addLeg(Transaction transaction, SettlementEntry.Leg leg, String accountNumber,
+                        String counterpartyAccountNumber, long seq, List<SettlementEntry> entries) {
+        if (accountNumber != null) {
+            entries.add(new SettlementEntry(transaction, leg, accountNumber, counterpartyAccountNumber, seq,
+                    partitionOf(accountNumber, partitionCount)));
+        }
+    }
+    
+    private static Criteria claimable(int partition, long fence, LocalDateTime now) {
+        return Criteria.where("partition").is(partition).orOperator(
+                Criteria.where("status").is(SettlementEntry.EntryStatus.QUEUED),
+                Criteria.where("status").is(SettlementEntry.EntryStatus.CLAIMED).and("fence").lt(fence),
+                Criteria.where("status").is(SettlementEntry.EntryStatus.CLAIMED).and("leaseUntil").lt(now));
+    }
+    
+    private Query ownedClaims(Collection<String> entryIds) {
+        return new Query(Criteria.where("_id").in(entryIds)
+                .and("status").is(SettlementEntry.EntryStatus.CLAIMED)
+                .and("claimedBy").is(owner));
+    }
+    
+    private String collection() {
+        return mongoTemplate.getCollectionName(SettlementEntry.class);
+    }
+    
+    private void commitAndWait(PendingEnqueue pending) {
+        commitQueue.add(pending);
+        try {
+            pending.done.get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to enqueue transaction", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("Failed to enqueue transaction", e.getCause() != null ? e.getCause() : e);
+        }
+    }
+    
+    private void runCommitter() {
+        List<PendingEnqueue> group = new ArrayList<>();
+        while (running || !commitQueue.isEmpty()) {
+            try {
+                PendingEnqueue first = running ? commitQueue.poll(200, TimeUnit.MILLISECONDS) : commitQueue.poll();
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                commitQueue.drainTo(group, commitBatchSize - 1);
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+    
+    /**
+     * Write one group with a single journaled insert, then clear the pending flag of its transactions;
+     * entries already queued are not an error
+     */
+    private void commit(List<PendingEnqueue> group) {
+        List<Document> documents = new ArrayList<>();
+        List<String> transactionIds = new ArrayList<>();
+        for (PendingEnqueue pending : group) {
+            for (SettlementEntry entry : pending.entries) {
+                Document document = new Document();
+                mongoTemplate.getConverter().write(entry, document);
+                documents.add(document);
+            }
+            transactionIds.addAll(pending.transactionIds);
+        }
+        
+        try {
+            commitTimer.record(() -> insert(documents));
+            if (!transactionIds.isEmpty()) {
+                mongoTemplate.updateMulti(new Query(Criteria.where("transactionId").in(transactionIds)),
+                        new Update().unset("settlementPending"), Transaction.class);
+            }
+            enqueuedCounter.increment(documents.size());
+            committedCount.addAndGet(documents.size());
+            group.forEach(pending -> pending.done.complete(null));
+        } catch (RuntimeException e) {
+            System.err.println("❌ Failed to commit " + documents.size() + " settlement entries: " + e.getMessage());
+            group.forEach(pending -> pending.done.completeExceptionally(e));
+        }
+    }
+    
+    private void insert(List<Document> documents) {
+        try {
+            mongoTemplate.getCollection(collection())
+                    .withWriteConcern(WriteConcern.JOURNALED)
+                    .insertMany(documents, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Entries from one enqueue call and the signal its caller waits on
+     */
+    private static class PendingEnqueue {
+        private final List<SettlementEntry> entries;
+        private final List<String> transactionIds;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        
+        private PendingEnqueue(List<SettlementEntry> entries, List<String> transactionIds) {
+            this.entries = entries;
+            this.transactionIds = transactionIds;
+        }
     }
 }
@@ -0,0 +1,167 @@
+package com.bankingsystem.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel. A timer is one small node hashed into the bucket of the tick it expires on,
+ * with a count of the full turns still to wait, so scheduling is O(1) and each tick only walks one
+ * bucket no matter how many timers are pending. Producers hand timers over through a lock-free queue;
+ * only the ticker thread touches the buckets. Expiry is accurate to one tick, and everything that
+ * expires on the same tick is handed to the callback as one batch.
+ */
+public class TimingWheel<T> {
+    
+    // Timers moved into buckets per tick, so a burst of scheduling cannot stall expiry
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+    
+    private final String name;
+    private final long tickNanos;
+    private final Bucket<T>[] wheel;
+    private final int mask;
+    private final Consumer<List<T>> onExpired;
+    private final Queue<Timer<T>> added = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    
+    private long startNanos;
+    private long tick;
+    private Thread ticker;
+    private volatile boolean running;
+    
+    /**
+     * @param wheelSize number of buckets, rounded up to a power of two
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(String name, long tickMillis, int wheelSize, Consumer<List<T>> onExpired) {
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.name = name;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis));
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket<>();
+        }
+        this.mask = size - 1;
+        this.onExpired = onExpired;
+    }
+    
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        startNanos = System.nanoTime();
+        running = true;
+        ticker = new Thread(this::run, name);
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+    
+    public synchronized void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+    }
+    
+    /**
+     * Fire item after delayMillis; a delay of zero or less fires on the next tick
+     */
+    public void schedule(T item, long delayMillis) {
+        added.add(new Timer<>(item, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis))));
+        pending.incrementAndGet();
+    }
+    
+    /**
+     * Number of timers that have not fired yet
+     */
+    public int size() {
+        return pending.get();
+    }
+    
+    private void run() {
+        while (running) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    // stop() interrupts the ticker; the loop condition decides
+                    continue;
+                }
+            }
+            transferAdded();
+            List<T> expired = wheel[(int) (tick & mask)].expire();
+            tick++;
+            if (!expired.isEmpty()) {
+                pending.addAndGet(-expired.size());
+                try {
+                    onExpired.accept(expired);
+                } catch (Exception e) {
+                    System.err.println("❌ Timing wheel " + name + " callback failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private void transferAdded() {
+        Timer<T> timer;
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK && (timer = added.poll()) != null; i++) {
+            long expiresOnTick = (timer.deadlineNanos - startNanos) / tickNanos;
+            // Already due timers go in the bucket about to be processed
+            long target = Math.max(expiresOnTick, tick);
+            timer.remainingRounds = (target - tick) / wheel.length;
+            wheel[(int) (target & mask)].add(timer);
+        }
+    }
+    
+    private static class Timer<T> {
+        private final T item;
+        private final long deadlineNanos;
+        private long remainingRounds;
+        private Timer<T> next;
+        
+        Timer(T item, long deadlineNanos) {
+            this.item = item;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+    
+    /**
+     * Singly linked list of the timers hashed to one slot
+     */
+    private static class Bucket<T> {
+        private Timer<T> head;
+        
+        void add(Timer<T> timer) {
+            timer.next = head;
+            head = timer;
+        }
+        
+        List<T> expire() {
+            List<T> expired = new ArrayList<>();
+            Timer<T> previous = null;
+            Timer<T> timer = head;
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                if (timer.remainingRounds <= 0) {
+                    expired.add(timer.item);
+                    if (previous == null) {
+                        head = next;
+                    } else {
+                        previous.next = next;
+                    }
+                } else {
+                    timer.remainingRounds--;
+                    previous = timer;
+                }
+                timer = next;
+            }
+            return expired;
+        }
+    }
+}
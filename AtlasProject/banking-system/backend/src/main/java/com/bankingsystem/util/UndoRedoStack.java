@@ -1,116 +1,326 @@
 package com.bankingsystem.util;
 
 import com.bankingsystem.model.Transaction;
+import com.bankingsystem.model.UndoHistory;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
-import java.util.Stack;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Map;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+/**
+ * Per-account undo and redo history, kept in the undo_histories collection so that every instance
+ * sees the same stacks and they survive restarts. Each account is one document holding two lists of
+ * compact records, capped at the configured depth; pushes and moves are single atomic updates.
+ * The stack sizes are served from a small in-memory hot set, weighed against a memory budget,
+ * that is updated by this instance's writes and refreshed in the background to pick up other
+ * instances' writes. Peeking always reads the document, so an undo acts on the shared state.
+ */
 @Component
 public class UndoRedoStack {
     
-    private final Map<String, Stack<Transaction>> undoStacks = new ConcurrentHashMap<>();
-    private final Map<String, Stack<Transaction>> redoStacks = new ConcurrentHashMap<>();
+    private static final int MOVE_ATTEMPTS = 3;
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${banking.undo.depth:20}")
+    private int depth;
+    
+    @Value("${banking.undo.retention-days:30}")
+    private long retentionDays;
+    
+    @Value("${banking.undo.cache.refresh-ms:1000}")
+    private long refreshMillis;
+    
+    @Value("${banking.undo.idle-ttl-minutes:60}")
+    private long idleTtlMinutes;
+    
+    @Value("${banking.undo.max-bytes:67108864}")
+    private long maxBytes;
+    
+    private LoadingCache<String, Sizes> sizes;
+    
+    @PostConstruct
+    public void init() {
+        sizes = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String accountId, Sizes entry) -> Sizes.BYTES + 40 + 2 * accountId.length())
+                .expireAfterAccess(Duration.ofMinutes(idleTtlMinutes))
+                .refreshAfterWrite(Duration.ofMillis(refreshMillis))
+                .recordStats()
+                .build(this::loadSizes);
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, sizes, "undo_history");
+        Gauge.builder("banking.undo.memory.bytes", this, UndoRedoStack::getEstimatedBytes)
+                .description("Estimated heap held by the undo history hot set")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        
+        try {
+            mongoTemplate.indexOps(UndoHistory.class).ensureIndex(new Index().on("updatedAt", Sort.Direction.ASC)
+                    .expire(Duration.ofDays(retentionDays)));
+        } catch (Exception e) {
+            System.err.println("❌ Failed to create undo history index: " + e.getMessage());
+        }
+    }
     
     /**
      * Push a completed transaction to the undo stack for a specific account
      */
     public void pushUndo(String accountId, Transaction transaction) {
-        undoStacks.computeIfAbsent(accountId, k -> new Stack<>()).push(transaction);
-        // Clear redo stack when new transaction is added
-        redoStacks.remove(accountId);
+        // The oldest entries fall off once the stack reaches the depth; a new transaction clears redo
+        Update update = new Update()
+                .set("redo", List.of())
+                .inc("version", 1)
+                .set("updatedAt", LocalDateTime.now());
+        update.push("undo").slice(-depth).each(entryOf(transaction));
+        try {
+            remember(mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(accountId)), update,
+                    FindAndModifyOptions.options().returnNew(true).upsert(true), UndoHistory.class));
+        } catch (Exception e) {
+            // The transaction itself has completed; only its undo entry is lost
+            System.err.println("❌ Failed to record undo history for account " + accountId + ": " + e.getMessage());
+        }
     }
     
     /**
-     * Pop the last transaction from undo stack for reversal
+     * Move a specific transaction from the account's undo stack to its redo stack once it has been
+     * reversed; false if it is no longer on the undo stack
      */
-    public Transaction popUndo(String accountId) {
-        Stack<Transaction> undoStack = undoStacks.get(accountId);
-        if (undoStack != null && !undoStack.isEmpty()) {
-            Transaction transaction = undoStack.pop();
-            // Move to redo stack
-            redoStacks.computeIfAbsent(accountId, k -> new Stack<>()).push(transaction);
-            return transaction;
-        }
-        return null;
+    public boolean moveToRedo(String accountId, String transactionId) {
+        return move(accountId, transactionId, true);
     }
     
     /**
-     * Pop the last reversed transaction from redo stack for re-execution
+     * Move several reversed transactions from the account's undo stack to its redo stack in one update,
+     * newest first as if undone one by one; the ones no longer on the undo stack are skipped
      */
-    public Transaction popRedo(String accountId) {
-        Stack<Transaction> redoStack = redoStacks.get(accountId);
-        if (redoStack != null && !redoStack.isEmpty()) {
-            Transaction transaction = redoStack.pop();
-            // Move back to undo stack
-            undoStacks.computeIfAbsent(accountId, k -> new Stack<>()).push(transaction);
-            return transaction;
+    public void moveAllToRedo(String accountId, Collection<String> transactionIds) {
+        Set<String> wanted = new HashSet<>(transactionIds);
+        for (int attempt = 0; attempt < MOVE_ATTEMPTS; attempt++) {
+            UndoHistory current = read(accountId);
+            List<UndoHistory.Entry> entries = new ArrayList<>();
+            for (UndoHistory.Entry entry : current.getUndo()) {
+                if (wanted.contains(entry.getTransactionId())) {
+                    entries.add(0, entry);
+                }
+            }
+            if (entries.isEmpty()) {
+                return;
+            }
+            
+            // Matches only the version just read, so a concurrent change re-reads instead of copying entries twice
+            Update update = new Update()
+                    .pull("undo", new Document("transactionId", new Document("$in", new ArrayList<>(wanted))))
+                    .inc("version", 1)
+                    .set("updatedAt", LocalDateTime.now());
+            update.push("redo").slice(-depth).each(entries.toArray());
+            UndoHistory moved = mongoTemplate.findAndModify(
+                    new Query(Criteria.where("_id").is(accountId).and("version").is(current.getVersion())),
+                    update, FindAndModifyOptions.options().returnNew(true), UndoHistory.class);
+            if (moved != null) {
+                remember(moved);
+                return;
+            }
         }
-        return null;
+        for (String transactionId : transactionIds) {
+            moveToRedo(accountId, transactionId);
+        }
+    }
+    
+    /**
+     * Move a specific transaction from the account's redo stack back to its undo stack once it has
+     * been re-applied; false if it is no longer on the redo stack
+     */
+    public boolean moveToUndo(String accountId, String transactionId) {
+        return move(accountId, transactionId, false);
     }
     
     /**
      * Check if undo is available for an account
      */
     public boolean canUndo(String accountId) {
-        Stack<Transaction> undoStack = undoStacks.get(accountId);
-        return undoStack != null && !undoStack.isEmpty();
+        return getUndoStackSize(accountId) > 0;
     }
     
     /**
      * Check if redo is available for an account
      */
     public boolean canRedo(String accountId) {
-        Stack<Transaction> redoStack = redoStacks.get(accountId);
-        return redoStack != null && !redoStack.isEmpty();
+        return getRedoStackSize(accountId) > 0;
     }
     
     /**
      * Get the size of undo stack for an account
      */
     public int getUndoStackSize(String accountId) {
-        Stack<Transaction> undoStack = undoStacks.get(accountId);
-        return undoStack != null ? undoStack.size() : 0;
+        return sizes.get(accountId).undo;
     }
     
     /**
      * Get the size of redo stack for an account
      */
     public int getRedoStackSize(String accountId) {
-        Stack<Transaction> redoStack = redoStacks.get(accountId);
-        return redoStack != null ? redoStack.size() : 0;
+        return sizes.get(accountId).redo;
     }
     
     /**
      * Clear all stacks for an account
      */
     public void clearStacks(String accountId) {
-        undoStacks.remove(accountId);
-        redoStacks.remove(accountId);
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(accountId)), UndoHistory.class);
+        sizes.invalidate(accountId);
     }
     
     /**
      * Clear all stacks for all accounts
      */
     public void clearAllStacks() {
-        undoStacks.clear();
-        redoStacks.clear();
+        mongoTemplate.remove(new Query(), UndoHistory.class);
+        sizes.invalidateAll();
     }
     
     /**
      * Get the last transaction that can be undone for an account
      */
-    public Transaction peekUndo(String accountId) {
-        Stack<Transaction> undoStack = undoStacks.get(accountId);
-        return (undoStack != null && !undoStack.isEmpty()) ? undoStack.peek() : null;
+    public UndoHistory.Entry peekUndo(String accountId) {
+        return last(read(accountId).getUndo());
     }
     
     /**
      * Get the last transaction that can be redone for an account
      */
-    public Transaction peekRedo(String accountId) {
-        Stack<Transaction> redoStack = redoStacks.get(accountId);
-        return (redoStack != null && !redoStack.isEmpty()) ? redoStack.peek() : null;
+    public UndoHistory.Entry peekRedo(String accountId) {
+        return last(read(accountId).getRedo());
+    }
+    
+    /**
+     * Accounts currently in the hot set
+     */
+    public long getAccountCount() {
+        return sizes.estimatedSize();
+    }
+    
+    /**
+     * Estimated heap held by the hot set, as charged against the memory budget
+     */
+    public long getEstimatedBytes() {
+        return sizes.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+    
+    private boolean move(String accountId, String transactionId, boolean toRedo) {
+        UndoHistory current = read(accountId);
+        UndoHistory.Entry entry = (toRedo ? current.getUndo() : current.getRedo()).stream()
+                .filter(candidate -> transactionId.equals(candidate.getTransactionId()))
+                .findFirst()
+                .orElse(null);
+        if (entry == null) {
+            return false;
+        }
+        
+        // Matches only while the entry is still on the source stack, so concurrent moves cannot copy it twice
+        String from = toRedo ? "undo" : "redo";
+        Update update = new Update()
+                .pull(from, new Document("transactionId", transactionId))
+                .inc("version", 1)
+                .set("updatedAt", LocalDateTime.now());
+        update.push(toRedo ? "redo" : "undo").slice(-depth).each(entry);
+        UndoHistory moved = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(accountId).and(from + ".transactionId").is(transactionId)),
+                update, FindAndModifyOptions.options().returnNew(true), UndoHistory.class);
+        remember(moved);
+        return moved != null;
+    }
+    
+    private UndoHistory read(String accountId) {
+        UndoHistory history = mongoTemplate.findById(accountId, UndoHistory.class);
+        if (history == null) {
+            history = new UndoHistory();
+            history.setAccountId(accountId);
+        }
+        remember(history);
+        return history;
+    }
+    
+    private Sizes loadSizes(String accountId) {
+        UndoHistory history = mongoTemplate.findById(accountId, UndoHistory.class);
+        return history != null ? Sizes.of(history) : Sizes.EMPTY;
+    }
+    
+    /**
+     * Feed a document this instance has just read or written into the hot set, never replacing
+     * a newer version
+     */
+    private void remember(UndoHistory history) {
+        if (history == null) {
+            return;
+        }
+        sizes.asMap().merge(history.getAccountId(), Sizes.of(history),
+                (current, latest) -> latest.version >= current.version ? latest : current);
+    }
+    
+    private static UndoHistory.Entry last(List<UndoHistory.Entry> entries) {
+        return entries == null || entries.isEmpty() ? null : entries.get(entries.size() - 1);
+    }
+    
+    private static UndoHistory.Entry entryOf(Transaction transaction) {
+        long timestamp = transaction.getTransactionDate() != null
+                ? transaction.getTransactionDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+        long amountPaise = transaction.getAmount().movePointRight(2).setScale(0, RoundingMode.HALF_UP)
+                .longValueExact();
+        return new UndoHistory.Entry(transaction.getTransactionId(), transaction.getType(), amountPaise, timestamp);
+    }
+    
+    /**
+     * Stack sizes of one account at a document version
+     */
+    private static class Sizes {
+        // Object header plus three fields
+        static final int BYTES = 32;
+        static final Sizes EMPTY = new Sizes(0, 0, -1);
+        
+        final int undo;
+        final int redo;
+        final long version;
+        
+        Sizes(int undo, int redo, long version) {
+            this.undo = undo;
+            this.redo = redo;
+            this.version = version;
+        }
+        
+        static Sizes of(UndoHistory history) {
+            return new Sizes(history.getUndo() != null ? history.getUndo().size() : 0,
+                    history.getRedo() != null ? history.getRedo().size() : 0, history.getVersion());
+        }
     }
 }
@@ -0,0 +1,171 @@
+package com.bankingsystem.benchmark;
+
+import com.bankingsystem.codec.AuditLogCodec;
+import com.bankingsystem.codec.TransactionCodec;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.model.Customer;
+import com.bankingsystem.model.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the item codecs with the builder-per-attribute mapping they replaced.
+ * Run from the backend directory with the GC profiler to see bytes allocated per item:
+ *
+ *   mvn -q test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.bankingsystem.benchmark.ItemCodecBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemCodecBenchmark {
+    
+    private final TransactionCodec transactionCodec = new TransactionCodec();
+    private final AuditLogCodec auditLogCodec = new AuditLogCodec();
+    
+    private Transaction transaction;
+    private AuditLog auditLog;
+    private Map<String, AttributeValue> transactionItem;
+    private Map<String, AttributeValue> auditLogItem;
+    
+    @Setup
+    public void setUp() {
+        Customer customer = new Customer("Asha", "Rao", "asha@example.com", "9876543210",
+                "12 MG Road", "Pune", "Maharashtra", "411001");
+        customer.setId("CUS-1");
+        Account source = new Account("ACC1000000001", customer, Account.AccountType.SAVINGS);
+        Account destination = new Account("ACC1000000002", customer, Account.AccountType.CURRENT);
+        transaction = new Transaction("TXN-1", Transaction.TransactionType.TRANSFER, new BigDecimal("2500.00"),
+                source, destination, "Rent");
+        transaction.setReferenceNumber("REF-1");
+        
+        auditLog = new AuditLog("ACT-1", "CUS-1", "TRANSFER", "TRANSACTION", "TXN-1");
+        auditLog.setDescription("Transfer completed");
+        auditLog.setResult("SUCCESS");
+        auditLog.setIpAddress("10.0.0.1");
+        auditLog.setUserAgent("Mozilla/5.0");
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("amount", new BigDecimal("2500.00"));
+        details.put("sourceAccount", "ACC1000000001");
+        details.put("destinationAccount", "ACC1000000002");
+        auditLog.setDetails(details);
+        
+        transactionItem = transactionCodec.encode(transaction);
+        auditLogItem = auditLogCodec.encode(auditLog);
+    }
+    
+    @Benchmark
+    public Map<String, AttributeValue> legacyTransactionEncode() {
+        return LegacyMapping.transactionItem(transaction);
+    }
+    
+    @Benchmark
+    public Map<String, AttributeValue> transactionEncode() {
+        return transactionCodec.encode(transaction);
+    }
+    
+    @Benchmark
+    public Transaction transactionDecode() {
+        return transactionCodec.decode(transactionItem);
+    }
+    
+    @Benchmark
+    public Map<String, AttributeValue> legacyAuditLogEncode() {
+        return LegacyMapping.auditLogItem(auditLog);
+    }
+    
+    @Benchmark
+    public Map<String, AttributeValue> auditLogEncode() {
+        return auditLogCodec.encode(auditLog);
+    }
+    
+    @Benchmark
+    public AuditLog auditLogDecode() {
+        return auditLogCodec.decode(auditLogItem);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ItemCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+    
+    /**
+     * The mappings as they were before the codecs, kept here only as the baseline
+     */
+    static class LegacyMapping {
+        
+        static Map<String, AttributeValue> transactionItem(Transaction transaction) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            if (transaction.getTransactionId() != null && !transaction.getTransactionId().trim().isEmpty()) {
+                item.put("transactionId", AttributeValue.builder().s(transaction.getTransactionId()).build());
+            }
+            if (transaction.getType() != null) {
+                item.put("type", AttributeValue.builder().s(transaction.getType().toString()).build());
+            }
+            if (transaction.getAmount() != null) {
+                item.put("amount", AttributeValue.builder().n(transaction.getAmount().toString()).build());
+            }
+            if (transaction.getDescription() != null && !transaction.getDescription().trim().isEmpty()) {
+                item.put("description", AttributeValue.builder().s(transaction.getDescription()).build());
+            }
+            if (transaction.getStatus() != null) {
+                item.put("status", AttributeValue.builder().s(transaction.getStatus().toString()).build());
+            }
+            if (transaction.getTransactionDate() != null) {
+                item.put("transactionDate", AttributeValue.builder().s(transaction.getTransactionDate().toString()).build());
+            }
+            if (transaction.getSourceAccount() != null && transaction.getSourceAccount().getAccountNumber() != null) {
+                item.put("sourceAccountNumber", AttributeValue.builder().s(transaction.getSourceAccount().getAccountNumber()).build());
+            }
+            if (transaction.getDestinationAccount() != null && transaction.getDestinationAccount().getAccountNumber() != null) {
+                item.put("destinationAccountNumber", AttributeValue.builder().s(transaction.getDestinationAccount().getAccountNumber()).build());
+            }
+            return item;
+        }
+        
+        static Map<String, AttributeValue> auditLogItem(AuditLog auditLog) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("ActionID", AttributeValue.builder().s(auditLog.getActionId()).build());
+            item.put("Timestamp", AttributeValue.builder().s(auditLog.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build());
+            item.put("UserId", AttributeValue.builder().s(auditLog.getUserId()).build());
+            item.put("Action", AttributeValue.builder().s(auditLog.getAction()).build());
+            item.put("EntityType", AttributeValue.builder().s(auditLog.getEntityType()).build());
+            item.put("EntityId", AttributeValue.builder().s(auditLog.getEntityId() != null ? auditLog.getEntityId() : "").build());
+            item.put("Description", AttributeValue.builder().s(auditLog.getDescription() != null ? auditLog.getDescription() : "").build());
+            item.put("Result", AttributeValue.builder().s(auditLog.getResult() != null ? auditLog.getResult() : "").build());
+            item.put("ErrorMessage", AttributeValue.builder().s(auditLog.getErrorMessage() != null ? auditLog.getErrorMessage() : "").build());
+            item.put("IpAddress", AttributeValue.builder().s(auditLog.getIpAddress() != null ? auditLog.getIpAddress() : "").build());
+            item.put("UserAgent", AttributeValue.builder().s(auditLog.getUserAgent() != null ? auditLog.getUserAgent() : "").build());
+            if (auditLog.getDetails() != null) {
+                item.put("Details", AttributeValue.builder().s(auditLog.getDetails().toString()).build());
+            }
+            return item;
+        }
+    }
+}
@@ -669,7 +669,7 @@ async function syncDataToDynamoDB() {
         const result = await response.json();
         
         if (result.success) {
-            showNotification('✅ Data synced to DynamoDB successfully!', 'success');
+            showNotification('✅ ' + result.message, 'success');
             updateSyncStatus(result);
         } else {
             showNotification('❌ Sync failed: ' + result.message, 'error');
@@ -70,8 +70,9 @@ log_message "Log file: $LOG_FILE"
 # Run settlement process
 log_message "Starting settlement process..."
 
-# Execute the settlement
-java $JAVA_OPTS -jar $JAR_FILE --spring.main.class=com.bankingsystem.SettlementRunner 2>&1 | tee -a $LOG_FILE
+# Execute one settlement run against the durable queue in MongoDB. The process exits when the run ends;
+# a run that reaches banking.settlement.timeout leaves the remaining entries for the next run and still exits 0
+java $JAVA_OPTS -jar $JAR_FILE settlement --spring.main.web-application-type=none 2>&1 | tee -a $LOG_FILE
 
 # Capture exit code
 EXIT_CODE=${PIPESTATUS[0]}